@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * A* search over the vertex ids of a graph. It works like
+ * {@link DijkstraSearch}, except that the frontier is ordered by the
+ * distance from the source plus the heuristic's estimate of the distance
+ * left to the target, so the search heads toward the target instead of
+ * spreading out evenly.
+ *
+ * Each vertex's estimate is asked for once and kept. If the heuristic is
+ * admissible but not consistent, a vertex can be reached more cheaply
+ * after it was settled; it is then put back on the frontier, so the path
+ * found is still a shortest one.
+ *
+ * Only the vertices a search reaches are cleared before the next one, so
+ * a short query costs nothing in proportion to the size of the graph. Each
+ * thread keeps one search to reuse from query to query, as given by
+ * {@link #forThread(AbstractGraph)}.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class AStarSearch<T> {
+    private static final long UNREACHED = DijkstraSearch.UNREACHED;
+    private static final int NO_PREDECESSOR = DijkstraSearch.NO_PREDECESSOR;
+    private static final long NOT_ESTIMATED = -1;
+    private static final ThreadLocal<AStarSearch<?>> SEARCHES =
+            new ThreadLocal<>();
+
+    private AbstractGraph<T> _graph;
+    private long[] _distances;
+    private long[] _estimates;
+    private int[] _predecessors;
+    private IndexedMinHeap _frontier;
+    private int[] _touched;
+    private int _touchedCount;
+    private int _settledCount;
+
+    /**
+     * Constructs a search over the given graph.
+     *
+     * @param graph graph to search
+     */
+    AStarSearch(AbstractGraph<T> graph) {
+        int idBound = graph.getVertexIdBound();
+
+        _graph = graph;
+        _distances = new long[idBound];
+        _estimates = new long[idBound];
+        _predecessors = new int[idBound];
+        _frontier = new IndexedMinHeap(idBound);
+        _touched = new int[idBound];
+        Arrays.fill(_distances, UNREACHED);
+        Arrays.fill(_estimates, NOT_ESTIMATED);
+        Arrays.fill(_predecessors, NO_PREDECESSOR);
+    }
+
+
+    /**
+     * Returns this thread's search, pointed at the given graph, making a
+     * new one if the thread has none, if its arrays are too small for the
+     * graph, or if it is still in use further up the stack, as it may be
+     * if the heuristic runs a search of its own. Once done with it,
+     * {@link #release()} lets go of the graph.
+     *
+     * @param graph graph to search
+     * @param <T> type of the vertices in the graph
+     * @return a search over the graph
+     */
+    @SuppressWarnings("unchecked")
+    static <T> AStarSearch<T> forThread(AbstractGraph<T> graph) {
+        AStarSearch<T> search = (AStarSearch<T>) SEARCHES.get();
+
+        if (search == null || search._graph != null ||
+                search._distances.length < graph.getVertexIdBound()) {
+            search = new AStarSearch<>(graph);
+            SEARCHES.set(search);
+        }
+        search._graph = graph;
+
+        return search;
+    }
+
+
+    /**
+     * Lets go of the graph, so that a search kept by a thread does not keep
+     * the graph alive, and the search can be handed out again.
+     */
+    void release() {
+        _graph = null;
+    }
+
+
+    /**
+     * Runs the search from the given source until the target is settled.
+     *
+     * @param source id of the vertex to search from
+     * @param target id of the vertex to search to
+     * @param heuristic lower bound on the distance left to the target
+     * @return true if the target was reached
+     */
+    boolean search(int source, int target, Heuristic<T> heuristic) {
+        T targetVertex = _graph.vertexOf(target);
+        int currentVertex;
+
+        // only the vertices the last search reached need clearing
+        for (int i = 0; i < _touchedCount; i++) {
+            _distances[_touched[i]] = UNREACHED;
+            _estimates[_touched[i]] = NOT_ESTIMATED;
+            _predecessors[_touched[i]] = NO_PREDECESSOR;
+        }
+        _touchedCount = 0;
+        _frontier.clear();
+        _settledCount = 0;
+
+        _touched[_touchedCount++] = source;
+        _distances[source] = 0;
+        _frontier.offer(source, 0);
+
+        // the vertex that looks closest to the target through its path so
+        // far is settled next; stop once that is the target
+        while (!_frontier.isEmpty()) {
+            currentVertex = _frontier.poll();
+            _settledCount++;
+            if (currentVertex == target) {
+                break;
+            }
+
+            for (int slot = _graph.firstEdgeSlot(currentVertex),
+                 end = _graph.endEdgeSlot(currentVertex); slot < end; slot++) {
+                int neighbor = _graph.edgeTargetAt(currentVertex, slot);
+                if (neighbor >= 0) {
+                    long pathWeight = _distances[currentVertex] +
+                            _graph.edgeWeightAt(currentVertex, slot);
+                    if (pathWeight < _distances[neighbor]) {
+                        if (_distances[neighbor] == UNREACHED) {
+                            _touched[_touchedCount++] = neighbor;
+                        }
+                        if (_estimates[neighbor] == NOT_ESTIMATED) {
+                            _estimates[neighbor] = heuristic.estimate(
+                                    _graph.vertexOf(neighbor), targetVertex);
+                        }
+                        _distances[neighbor] = pathWeight;
+                        _predecessors[neighbor] = currentVertex;
+                        _frontier.offer(neighbor,
+                                pathWeight + _estimates[neighbor]);
+                    }
+                }
+            }
+        }
+
+        return _distances[target] != UNREACHED;
+    }
+
+
+    /**
+     * Returns the distance found to the given vertex, or
+     * {@link DijkstraSearch#UNREACHED} if the search did not reach it.
+     *
+     * @param vertex id of the vertex
+     * @return distance from the source to the vertex
+     */
+    long distanceTo(int vertex) {
+        return _distances[vertex];
+    }
+
+
+    /**
+     * Returns the number of vertices settled by the last search, counting
+     * a vertex again each time it is put back on the frontier.
+     *
+     * @return vertices settled by the last search
+     */
+    int getSettledCount() {
+        return _settledCount;
+    }
+
+
+    /**
+     * Returns the predecessors found by the last search, indexed by vertex
+     * id. The source and unreached vertices have
+     * {@link DijkstraSearch#NO_PREDECESSOR}.
+     *
+     * @return predecessor of every vertex on its path
+     */
+    int[] getPredecessors() {
+        return _predecessors;
+    }
+}
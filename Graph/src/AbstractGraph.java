@@ -0,0 +1,1867 @@
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Read side shared by every graph representation. Subclasses supply the
+ * vertex and edge lookups, and the graph algorithms below run on top of
+ * them unchanged, whether the graph is a mutable {@link Graph} or a frozen
+ * {@link CsrGraph}.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public abstract class AbstractGraph<T> {
+
+    /**
+     * Ways of keeping the frontier of vertices still to be settled during a
+     * shortest path search.
+     */
+    public enum Frontier {
+        /**
+         * A java.util.PriorityQueue of edges. Every relaxation pushes a new
+         * edge, and stale entries are skipped as they come off the queue,
+         * so the queue can grow to the number of edges.
+         */
+        PRIORITY_QUEUE,
+
+        /**
+         * An indexed binary heap over vertex ids. A shorter route to a
+         * vertex lowers its key in place, so the heap holds at most one
+         * entry per vertex and allocates nothing per relaxation.
+         */
+        INDEXED_HEAP,
+
+        /**
+         * Dial's bucket queue, with a bucket for each distance from that of
+         * the next vertex to settle up to the largest edge weight past it,
+         * reused in a circle. Adding, moving and removing vertices is
+         * constant time, but it holds an array as long as the largest edge
+         * weight, so it suits small weights.
+         */
+        BUCKET_QUEUE,
+
+        /**
+         * A radix heap, which files vertices by the highest bit in which
+         * their distance differs from the last one settled. Its cost grows
+         * with the number of bits in the distances rather than the number
+         * of vertices waiting, whatever the weights.
+         */
+        RADIX_HEAP,
+
+        /**
+         * A bucket queue if the largest edge weight is small, otherwise a
+         * radix heap.
+         */
+        AUTO
+    }
+
+
+    /**
+     * Ways of finding the shortest path lengths between every pair of
+     * vertices.
+     */
+    public enum AllPairsMethod {
+        /**
+         * Blocked, multithreaded Floyd-Warshall over the full distance
+         * matrix. It always takes time cubic in the number of vertices, but
+         * its inner loop is a tight pass over cached rows, so it wins on
+         * dense graphs.
+         */
+        FLOYD_WARSHALL,
+
+        /**
+         * One Dijkstra search per source, run in parallel. Its time grows
+         * with the number of edges, so it wins on sparse graphs. Weights
+         * are never negative, so unlike Johnson's algorithm there is no
+         * reweighting step.
+         */
+        DIJKSTRA,
+
+        /**
+         * Floyd-Warshall if at least a tenth of all possible edges are
+         * present, otherwise Dijkstra.
+         */
+        AUTO
+    }
+
+
+    /**
+     * Ways of finding a minimum spanning tree.
+     */
+    public enum SpanningTreeMethod {
+        /**
+         * Prim's algorithm, growing one tree outward from a vertex through
+         * a priority queue of the edges leaving it. It suits dense graphs.
+         */
+        PRIM,
+
+        /**
+         * Prim's algorithm with an array of the cheapest edge from the tree
+         * to each vertex in place of a queue, scanned in full for the next
+         * vertex to add. That is O(n&sup2;) whatever the number of edges, and
+         * allocates nothing per edge, so it suits complete graphs such as
+         * those from {@link Graph#fromTSPFile(java.io.InputStream)}.
+         */
+        DENSE_PRIM,
+
+        /**
+         * Kruskal's algorithm, which sorts every edge by weight in parallel
+         * and takes each one that joins two trees not yet joined, tracked
+         * in disjoint sets of vertex ids. It suits sparse graphs.
+         */
+        KRUSKAL,
+
+        /**
+         * Boruvka's algorithm, in which every tree picks its cheapest edge
+         * out at once, in parallel over all cores, so that the number of
+         * trees at least halves each round.
+         */
+        BORUVKA,
+
+        /**
+         * Dense Prim's if at least a twentieth of all possible edges are
+         * present, otherwise Kruskal's, whose parallel sort of plain longs
+         * beats the queue of Edge objects in Prim's at any density.
+         */
+        AUTO
+    }
+
+
+    /**
+     * Largest edge weight for which {@link Frontier#AUTO} picks a bucket
+     * queue.
+     */
+    static final int MAX_BUCKET_QUEUE_WEIGHT = 1 << 16;
+
+
+    /**
+     * Returns true if this graph is directed, false if it is undirected.
+     *
+     * @return directedness of the graph
+     */
+    public abstract boolean isDirected();
+
+
+    /**
+     * Returns a sequence of the graph's vertices.
+     *
+     * @return a sequence of the graph's vertices.
+     */
+    public abstract List<T> getVertices();
+
+
+    /**
+     * Returns the number of vertices in the graph.
+     *
+     * @return the number of vertices in the graph
+     */
+    public abstract int getVertexCount();
+
+
+    /**
+     * Returns the id of the given vertex, or -1 if it is not in the graph.
+     * Ids are small non-negative integers, so callers can keep per-vertex
+     * data in plain arrays indexed by id.
+     *
+     * @param vertex vertex to look up
+     * @return the id of the vertex, or -1 if it does not exist
+     */
+    public abstract int idOf(T vertex);
+
+
+    /**
+     * Returns the vertex with the given id, or null if no vertex has it.
+     *
+     * @param vertexId id to look up
+     * @return the vertex with that id, or null if it does not exist
+     */
+    public abstract T vertexOf(int vertexId);
+
+
+    /**
+     * Returns one more than the largest id any vertex has had. Arrays of
+     * this length can hold data for every vertex by id.
+     *
+     * @return upper bound, exclusive, on the ids in the graph
+     */
+    public abstract int getVertexIdBound();
+
+
+    /**
+     * Returns the weight of the edge that goes from the given source vertex
+     * to the given destination vertex, or -1 if no such edge is present.
+     *
+     * @param source vertex that the given edge begins from
+     * @param destination vertex that the given edge ends at
+     * @return integer weight of the given edge, or -1 if it does not exist
+     */
+    public abstract int getEdgeWeight(T source, T destination);
+
+
+    /**
+     * Returns the weight of the edge that goes from the vertex with the
+     * given source id to the vertex with the given destination id, or -1 if
+     * no such edge is present.
+     *
+     * @param source id of the vertex that the given edge begins from
+     * @param destination id of the vertex that the given edge ends at
+     * @return integer weight of the given edge, or -1 if it does not exist
+     */
+    public abstract int getEdgeWeight(int source, int destination);
+
+
+    /**
+     * Returns true if the edge exists, false if not.
+     *
+     * @param source vertex that the given edge begins from
+     * @param destination vertex that the given edge ends at
+     * @return boolean representing existence
+     */
+    public abstract boolean edgeExists(T source, T destination);
+
+
+    /**
+     * Returns true if the edge between the vertices with the given ids
+     * exists, false if not.
+     *
+     * @param source id of the vertex that the given edge begins from
+     * @param destination id of the vertex that the given edge ends at
+     * @return boolean representing existence
+     */
+    public abstract boolean edgeExists(int source, int destination);
+
+
+    /**
+     * Returns true if the vertex is in the graph, false otherwise.
+     *
+     * @param vertex vertex to check existence of
+     * @return true if vertex is in the graph, false otherwise.
+     */
+    protected abstract boolean vertexExists(T vertex);
+
+
+    /**
+     * Returns the destinations of every edge leaving the given vertex. The
+     * vertex is assumed to be in the graph.
+     *
+     * @param vertex vertex whose neighbors to return
+     * @return the vertices that the given vertex has an edge going to
+     */
+    protected abstract Collection<T> getNeighbors(T vertex);
+
+
+    /**
+     * Returns the first slot holding an edge that leaves the vertex with
+     * the given id. The edges leaving the vertex are found by walking the
+     * slots from here up to {@link #endEdgeSlot(int)}; slots for which
+     * {@link #edgeTargetAt(int, int)} is negative are empty and skipped.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return first slot of the vertex's edges
+     */
+    protected abstract int firstEdgeSlot(int vertexId);
+
+
+    /**
+     * Returns one past the last slot holding an edge that leaves the vertex
+     * with the given id.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return end slot, exclusive, of the vertex's edges
+     */
+    protected abstract int endEdgeSlot(int vertexId);
+
+
+    /**
+     * Returns the id of the destination of the edge in the given slot of a
+     * vertex, or -1 if that slot is empty.
+     *
+     * @param vertexId id of the vertex the edge leaves
+     * @param slot slot of the edge
+     * @return id of the edge's destination, or -1 for an empty slot
+     */
+    protected abstract int edgeTargetAt(int vertexId, int slot);
+
+
+    /**
+     * Returns the weight of the edge in the given slot of a vertex. Only
+     * meaningful if the slot is not empty.
+     *
+     * @param vertexId id of the vertex the edge leaves
+     * @param slot slot of the edge
+     * @return weight of the edge
+     */
+    protected abstract int edgeWeightAt(int vertexId, int slot);
+
+
+    /**
+     * Returns the first slot holding an edge that enters the vertex with
+     * the given id. Incoming edges are walked the same way as the outgoing
+     * ones from {@link #firstEdgeSlot(int)}, up to
+     * {@link #endInEdgeSlot(int)}.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return first slot of the vertex's incoming edges
+     */
+    protected abstract int firstInEdgeSlot(int vertexId);
+
+
+    /**
+     * Returns one past the last slot holding an edge that enters the vertex
+     * with the given id.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return end slot, exclusive, of the vertex's incoming edges
+     */
+    protected abstract int endInEdgeSlot(int vertexId);
+
+
+    /**
+     * Returns the id of the source of the edge in the given incoming slot
+     * of a vertex, or -1 if that slot is empty.
+     *
+     * @param vertexId id of the vertex the edge enters
+     * @param slot slot of the edge
+     * @return id of the edge's source, or -1 for an empty slot
+     */
+    protected abstract int inEdgeSourceAt(int vertexId, int slot);
+
+
+    /**
+     * Returns the weight of the edge in the given incoming slot of a
+     * vertex. Only meaningful if the slot is not empty.
+     *
+     * @param vertexId id of the vertex the edge enters
+     * @param slot slot of the edge
+     * @return weight of the edge
+     */
+    protected abstract int inEdgeWeightAt(int vertexId, int slot);
+
+
+    /**
+     * Returns a number no smaller than the weight of any edge in the graph.
+     * It may be larger than the heaviest edge left after edges have been
+     * removed.
+     *
+     * @return upper bound on the edge weights
+     */
+    protected abstract int getMaxEdgeWeight();
+
+
+    /**
+     * Returns the number of changes made to the graph so far. Changes are
+     * numbered from 1 in the order they are made.
+     *
+     * @return number of changes to the graph
+     */
+    protected abstract long getChangeCount();
+
+
+    /**
+     * Returns the number of the last change that could have made some path
+     * shorter or joined two vertices that had no path between them.
+     *
+     * @return number of the last such change, or 0 if there has been none
+     */
+    protected abstract long getLastShorteningChange();
+
+
+    /**
+     * Returns the number of the last change that could have made a path
+     * through the given vertex longer or broken it.
+     *
+     * @param vertexId id of the vertex
+     * @return number of the last such change, or 0 if there has been none
+     */
+    protected abstract long getLastLengtheningChange(int vertexId);
+
+
+    /**
+     * Returns the edge from the given edge than the given destination.
+     *
+     * @param source source of the edge to return
+     * @param destination destination of the edge to return
+     * @return null if no such edge exists, otherwise returns an edge object
+     */
+    public Graph.Edge<T> getEdge(T source, T destination) {
+        Graph.Edge<T> returnEdge = null;
+
+        // if the edge exists, create an edge from the source and destination
+        // given.
+        if (edgeExists(source, destination)) {
+            returnEdge = new Graph.Edge<>(source, destination,
+                    getEdgeWeight(source, destination));
+        }
+
+        // returns null if no edge exists
+        return returnEdge;
+    }
+
+
+    /**
+     * Returns a list of all the edges in the graph. For an undirected graph,
+     * this only returns one direction instead of both.
+     *
+     * @return list of the edges in the graph.
+     */
+    public List<Graph.Edge<T>> getEdges() {
+        HashSet<Graph.Edge<T>> edgeList = new HashSet<>();
+
+        // for every source vertex
+        for (T source : getVertices()) {
+            // for every destination vertex
+            for (T dest : getNeighbors(source)) {
+                // if this is a directed graph or this edge's reverse hasn't
+                // been added already
+                if (isDirected() || !edgeList.contains(new Graph.Edge<>(dest,
+                        source, getEdgeWeight(dest, source)))) {
+                    // add edge to edge list
+                    edgeList.add(new Graph.Edge<>(source, dest,
+                            getEdgeWeight(source, dest)));
+                }
+            }
+        }
+
+        // now turn that hashSet into a List
+        return new ArrayList<>(edgeList);
+    }
+
+
+    /**
+     * Returns the length of the given set of vertices if they are a path
+     * through the graph. If they are not a path or the list is empty, then
+     * this returns -1.
+     *
+     * @param pathList list of vertices
+     * @return -1 for an empty list or a nonexistent path, length of path
+     * otherwise
+     */
+    public long pathLength(List<T> pathList) {
+        final long NO_PATH_EXISTS = -1;
+        long length = 0;
+        boolean isPath = true;
+        int pathIndex = 0;
+        T currentVertex = null;
+        T lastVertex = null;
+
+        // skips the check if an empty set is given
+        if (pathList.size() == 0) {
+            isPath = false;
+        }
+        // initializes the lastVertex to the first vertex in the array.
+        else {
+            lastVertex = pathList.get(0);
+        }
+
+        // for each element in the path list
+        while (isPath && pathIndex < pathList.size()) {
+            currentVertex = pathList.get(pathIndex);
+
+            // if the vertex does not exist in the graph
+            if (!vertexExists(currentVertex)) {
+                isPath = false;
+            }
+            // if an edge exists from the last vertex to this one, add its
+            // weight to the length
+            else if (edgeExists(lastVertex, currentVertex)) {
+                length += getEdgeWeight(lastVertex, currentVertex);
+            }
+
+            pathIndex++;
+            lastVertex = currentVertex;
+        }
+
+        if (!isPath) {
+            length = NO_PATH_EXISTS;
+        }
+
+        return length;
+    }
+
+
+    /**
+     * Returns the length of the path through the vertices with the given
+     * ids, in the same way as {@link #pathLength(List)}. If they are not a
+     * path or the array is empty, then this returns -1.
+     *
+     * @param pathIds ids of the vertices along the path
+     * @return -1 for an empty array or a nonexistent path, length of path
+     * otherwise
+     */
+    public long pathLength(int[] pathIds) {
+        final long NO_PATH_EXISTS = -1;
+        long length = 0;
+        boolean isPath = pathIds.length > 0;
+
+        // for each vertex in the path, add the weight of the edge reaching
+        // it from the vertex before, if that edge exists
+        for (int pathIndex = 0; isPath && pathIndex < pathIds.length;
+             pathIndex++) {
+            if (vertexOf(pathIds[pathIndex]) == null) {
+                isPath = false;
+            }
+            else if (pathIndex > 0 && edgeExists(pathIds[pathIndex - 1],
+                    pathIds[pathIndex])) {
+                length += getEdgeWeight(pathIds[pathIndex - 1],
+                        pathIds[pathIndex]);
+            }
+        }
+
+        if (!isPath) {
+            length = NO_PATH_EXISTS;
+        }
+
+        return length;
+    }
+
+
+    /**
+     * Finds the shortest path between the source and the destination
+     * vertices. Returns null if no path exists.
+     *
+     * @param source vertex to try to find the shortest path from
+     * @param destination vertex to try to find the shortest path to
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the given source to the given
+     * destination
+     * @throws NoSuchElementException
+     */
+    public List<Graph.Edge<T>> shortestPathBetween(T source, T destination)
+            throws NoSuchElementException {
+        return shortestPathBetween(source, destination, Frontier.AUTO);
+    }
+
+
+    /**
+     * Finds the shortest path between the source and the destination
+     * vertices, keeping the search frontier in the given way. Every
+     * frontier finds a path of the same length, though when several
+     * shortest paths exist they may not pick the same one. Returns null if
+     * no path exists.
+     *
+     * @param source vertex to try to find the shortest path from
+     * @param destination vertex to try to find the shortest path to
+     * @param frontier how to keep the vertices waiting to be settled
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the given source to the given
+     * destination
+     * @throws NoSuchElementException if either vertex is not in the graph
+     */
+    public List<Graph.Edge<T>> shortestPathBetween(T source, T destination,
+                                                   Frontier frontier)
+            throws NoSuchElementException {
+        List<Graph.Edge<T>> shortestPath;
+
+        if (frontier == Frontier.PRIORITY_QUEUE) {
+            shortestPath = priorityQueueShortestPath(source, destination);
+        }
+        else {
+            int sourceId = idOf(source);
+            int destinationId = idOf(destination);
+
+            // if source and destination vertices not in graph, throw
+            // exception
+            if (sourceId < 0 || destinationId < 0) {
+                throw new NoSuchElementException();
+            }
+
+            DijkstraSearch<T> search = new DijkstraSearch<>(this, false,
+                    newDistanceQueue(frontier));
+            shortestPath = null;
+            if (search.search(sourceId, destinationId)) {
+                shortestPath = buildPath(search.getPredecessors(),
+                        destinationId);
+            }
+        }
+
+        return shortestPath;
+    }
+
+
+    /**
+     * Finds the shortest paths from the source to every vertex in the graph
+     * with a single search. Asking the tree for many destinations is much
+     * cheaper than calling {@link #shortestPathBetween(Object, Object)} for
+     * each of them, which searches again from scratch every time.
+     *
+     * @param source vertex to find the shortest paths from
+     * @return tree of shortest paths from the source
+     * @throws NoSuchElementException if the source is not in the graph
+     */
+    public ShortestPathTree<T> shortestPathTree(T source)
+            throws NoSuchElementException {
+        int sourceId = idOf(source);
+
+        // if source vertex not in graph, throw exception
+        if (sourceId < 0) {
+            throw new NoSuchElementException();
+        }
+
+        DijkstraSearch<T> search = new DijkstraSearch<>(this);
+        search.search(sourceId, -1);
+
+        return new ShortestPathTree<>(this, sourceId, search.getDistances(),
+                search.getPredecessors());
+    }
+
+
+    /**
+     * Finds the shortest paths from the source to every vertex in the graph
+     * with parallel delta-stepping, which spreads the search over all cores.
+     * The distances are the same as those from
+     * {@link #shortestPathTree(Object)}, though where several shortest
+     * paths exist the tree may pick a different one. Vertices are handled
+     * in buckets of distances delta wide: a larger delta gives each
+     * parallel round more work but may relax edges more than once. The
+     * graph must not be changed while this runs.
+     *
+     * @param source vertex to find the shortest paths from
+     * @param delta width of each bucket of distances
+     * @return tree of shortest paths from the source
+     * @throws NoSuchElementException if the source is not in the graph
+     * @throws IllegalArgumentException if delta is not positive
+     */
+    public ShortestPathTree<T> shortestPathTree(T source, int delta)
+            throws NoSuchElementException, IllegalArgumentException {
+        int sourceId = idOf(source);
+
+        // if source vertex not in graph, throw exception
+        if (sourceId < 0) {
+            throw new NoSuchElementException();
+        }
+        else if (delta <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        DeltaStepping<T> search = new DeltaStepping<>(this, delta);
+        search.search(sourceId);
+
+        return new ShortestPathTree<>(this, sourceId, search.getDistances(),
+                search.getPredecessors(sourceId));
+    }
+
+
+    /**
+     * Finds the length of the shortest path from every source to every
+     * target. The result is a flat matrix with a row per source, so the
+     * distance from sources.get(i) to targets.get(j) is at
+     * [i * targets.size() + j], and -1 where there is no path.
+     *
+     * The rows are filled in parallel on the common ForkJoinPool, one
+     * search per source, and each search stops once it has settled every
+     * target. Each worker thread reuses the same search arrays for all of
+     * its rows. The graph must not be changed while this runs.
+     *
+     * @param sources vertices the paths start from
+     * @param targets vertices the paths end at
+     * @return shortest path lengths, a row per source and a column per
+     * target
+     * @throws NoSuchElementException if any of the vertices is not in the
+     * graph
+     * @throws IllegalArgumentException if the matrix would have more than
+     * Integer.MAX_VALUE entries
+     */
+    public long[] distanceMatrix(List<T> sources, List<T> targets)
+            throws NoSuchElementException, IllegalArgumentException {
+        final int[] sourceIds = new int[sources.size()];
+        final int[] targetIds = new int[targets.size()];
+
+        if ((long) sourceIds.length * targetIds.length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+
+        // if any vertex not in graph, throw exception before searching
+        for (int i = 0; i < sourceIds.length; i++) {
+            sourceIds[i] = idOf(sources.get(i));
+            if (sourceIds[i] < 0) {
+                throw new NoSuchElementException();
+            }
+        }
+        for (int i = 0; i < targetIds.length; i++) {
+            targetIds[i] = idOf(targets.get(i));
+            if (targetIds[i] < 0) {
+                throw new NoSuchElementException();
+            }
+        }
+
+        final long[] matrix = new long[sourceIds.length * targetIds.length];
+        final ThreadLocal<DijkstraSearch<T>> searches =
+                ThreadLocal.withInitial(() -> new DijkstraSearch<>(this));
+        IntStream.range(0, sourceIds.length).parallel().forEach(row -> {
+            DijkstraSearch<T> search = searches.get();
+            search.search(sourceIds[row], targetIds);
+            for (int column = 0; column < targetIds.length; column++) {
+                long distance = search.distanceTo(targetIds[column]);
+                matrix[row * targetIds.length + column] =
+                        distance == DijkstraSearch.UNREACHED ? -1 : distance;
+            }
+        });
+
+        return matrix;
+    }
+
+
+    /**
+     * Finds the length of the shortest path between every pair of vertices,
+     * picking the method by how dense the graph is.
+     *
+     * @return table of the shortest path lengths
+     * @throws IllegalStateException if a shortest path is longer than
+     * Integer.MAX_VALUE - 1
+     * @throws IllegalArgumentException if the table would have more than
+     * Integer.MAX_VALUE entries
+     */
+    public DistanceTable<T> allPairsShortestPaths()
+            throws IllegalStateException, IllegalArgumentException {
+        return allPairsShortestPaths(AllPairsMethod.AUTO);
+    }
+
+
+    /**
+     * Finds the length of the shortest path between every pair of vertices
+     * with the given method. Both methods use every core. The table holds
+     * the lengths as ints to keep it compact. The graph must not be changed
+     * while this runs.
+     *
+     * @param method how to find the shortest paths
+     * @return table of the shortest path lengths
+     * @throws IllegalStateException if a shortest path is longer than
+     * Integer.MAX_VALUE - 1
+     * @throws IllegalArgumentException if the table would have more than
+     * Integer.MAX_VALUE entries
+     */
+    public DistanceTable<T> allPairsShortestPaths(AllPairsMethod method)
+            throws IllegalStateException, IllegalArgumentException {
+        final List<T> vertices = getVertices();
+        final int n = vertices.size();
+        final int[] ids = new int[n];
+        final int[] indices = new int[getVertexIdBound()];
+        long edgeCount = 0;
+
+        if ((long) n * n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+
+        final int[] distances = new int[n * n];
+
+        // the table numbers the vertices densely, skipping unused ids
+        for (int i = 0; i < n; i++) {
+            ids[i] = idOf(vertices.get(i));
+            indices[ids[i]] = i;
+            for (int slot = firstEdgeSlot(ids[i]),
+                 end = endEdgeSlot(ids[i]); slot < end; slot++) {
+                if (edgeTargetAt(ids[i], slot) >= 0) {
+                    edgeCount++;
+                }
+            }
+        }
+
+        if (method == AllPairsMethod.AUTO) {
+            method = edgeCount * 10 >= (long) n * (n - 1) ?
+                    AllPairsMethod.FLOYD_WARSHALL : AllPairsMethod.DIJKSTRA;
+        }
+
+        if (method == AllPairsMethod.FLOYD_WARSHALL) {
+            Arrays.fill(distances, DistanceTable.UNREACHABLE);
+            for (int i = 0; i < n; i++) {
+                distances[i * n + i] = 0;
+                for (int slot = firstEdgeSlot(ids[i]),
+                     end = endEdgeSlot(ids[i]); slot < end; slot++) {
+                    int target = edgeTargetAt(ids[i], slot);
+                    if (target >= 0) {
+                        distances[i * n + indices[target]] =
+                                edgeWeightAt(ids[i], slot);
+                    }
+                }
+            }
+            FloydWarshall.run(distances, n);
+        }
+        else {
+            final ThreadLocal<DijkstraSearch<T>> searches =
+                    ThreadLocal.withInitial(() -> new DijkstraSearch<>(this));
+            IntStream.range(0, n).parallel().forEach(row -> {
+                DijkstraSearch<T> search = searches.get();
+                search.search(ids[row], -1);
+                for (int column = 0; column < n; column++) {
+                    long distance = search.distanceTo(ids[column]);
+                    if (distance >= DistanceTable.UNREACHABLE &&
+                            distance != DijkstraSearch.UNREACHED) {
+                        throw new IllegalStateException();
+                    }
+                    distances[row * n + column] =
+                            (int) Math.min(distance,
+                                    DistanceTable.UNREACHABLE);
+                }
+            });
+        }
+
+        return new DistanceTable<>(vertices, IntBuffer.wrap(distances));
+    }
+
+
+    /**
+     * Finds the shortest path between the source and the destination by
+     * searching forward from the source and backward from the destination
+     * at the same time, stopping once the two searches have met and no
+     * shorter path can remain. For a single source and destination this
+     * usually settles far fewer vertices than
+     * {@link #shortestPathBetween(Object, Object)}, and it finds a path of
+     * the same length. Returns null if no path exists.
+     *
+     * @param source vertex to try to find the shortest path from
+     * @param destination vertex to try to find the shortest path to
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the given source to the given
+     * destination
+     * @throws NoSuchElementException if either vertex is not in the graph
+     */
+    public List<Graph.Edge<T>> bidirectionalShortestPathBetween(
+            T source, T destination) throws NoSuchElementException {
+        int sourceId = idOf(source);
+        int destinationId = idOf(destination);
+        List<Graph.Edge<T>> shortestPath = null;
+
+        // if source and destination vertices not in graph, throw exception
+        if (sourceId < 0 || destinationId < 0) {
+            throw new NoSuchElementException();
+        }
+
+        BidirectionalDijkstra<T> search = BidirectionalDijkstra.forThread(this);
+        try {
+            if (search.search(sourceId, destinationId)) {
+                shortestPath = edgesAlong(search.getPathIds());
+            }
+        }
+        finally {
+            search.release();
+        }
+
+        return shortestPath;
+    }
+
+
+    /**
+     * Finds the shortest path between the source and the destination with
+     * A* search. The heuristic estimates how far each vertex is from the
+     * destination, which points the search toward it and usually settles
+     * far fewer vertices than {@link #shortestPathBetween(Object, Object)}
+     * on long queries. The estimates must never exceed the true distances,
+     * or the path returned may not be the shortest. Returns null if no
+     * path exists.
+     *
+     * @param source vertex to try to find the shortest path from
+     * @param destination vertex to try to find the shortest path to
+     * @param heuristic lower bound on the distance from any vertex to the
+     *                  destination, such as {@link Heuristic#euclidean(Map)}
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the given source to the given
+     * destination
+     * @throws NoSuchElementException if either vertex is not in the graph
+     */
+    public List<Graph.Edge<T>> aStar(T source, T destination,
+                                     Heuristic<T> heuristic)
+            throws NoSuchElementException {
+        int sourceId = idOf(source);
+        int destinationId = idOf(destination);
+        List<Graph.Edge<T>> shortestPath = null;
+
+        // if source and destination vertices not in graph, throw exception
+        if (sourceId < 0 || destinationId < 0) {
+            throw new NoSuchElementException();
+        }
+
+        AStarSearch<T> search = AStarSearch.forThread(this);
+        try {
+            if (search.search(sourceId, destinationId, heuristic)) {
+                shortestPath = buildPath(search.getPredecessors(),
+                        destinationId);
+            }
+        }
+        finally {
+            search.release();
+        }
+
+        return shortestPath;
+    }
+
+
+    /**
+     * Finds the k shortest paths from the source to the destination that
+     * never visit a vertex twice, with Yen's algorithm. The paths are
+     * returned shortest first and are all different; where several have
+     * the same length they may come in any order. Fewer than k paths are
+     * returned if there are no more, and none if the destination cannot be
+     * reached. The path from a vertex to itself is the empty path.
+     *
+     * One backward search from the destination is shared by all the
+     * searches for alternatives, which then take the exact distances it
+     * found as an A* heuristic, and the alternatives branching off each
+     * path are searched for in parallel. The graph must not be changed
+     * while this runs.
+     *
+     * @param source vertex the paths start from
+     * @param destination vertex the paths end at
+     * @param k largest number of paths to return
+     * @return up to k shortest loopless paths, each a list of edges
+     * @throws NoSuchElementException if either vertex is not in the graph
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public List<List<Graph.Edge<T>>> kShortestPaths(T source, T destination,
+                                                    int k)
+            throws NoSuchElementException, IllegalArgumentException {
+        int sourceId = idOf(source);
+        int destinationId = idOf(destination);
+        List<List<Graph.Edge<T>>> paths = new ArrayList<>();
+
+        // if source and destination vertices not in graph, throw exception
+        if (sourceId < 0 || destinationId < 0) {
+            throw new NoSuchElementException();
+        }
+        else if (k <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        KShortestPaths<T> search = new KShortestPaths<>(this, destinationId);
+        for (int[] pathIds : search.find(sourceId, k)) {
+            paths.add(edgesAlong(pathIds));
+        }
+
+        return paths;
+    }
+
+
+    /**
+     * Returns an empty queue of the given kind with room for every vertex
+     * id, for any frontier but {@link Frontier#PRIORITY_QUEUE}.
+     *
+     * @param frontier kind of queue to make
+     * @return the new queue
+     */
+    DistanceQueue newDistanceQueue(Frontier frontier) {
+        DistanceQueue queue;
+        int maxWeight = Math.max(getMaxEdgeWeight(), 0);
+
+        // the bucket queue needs an array as long as the heaviest edge
+        if (frontier == Frontier.AUTO) {
+            frontier = maxWeight <= MAX_BUCKET_QUEUE_WEIGHT ?
+                    Frontier.BUCKET_QUEUE : Frontier.RADIX_HEAP;
+        }
+
+        if (frontier == Frontier.BUCKET_QUEUE) {
+            queue = new BucketQueue(getVertexIdBound(), maxWeight);
+        }
+        else if (frontier == Frontier.RADIX_HEAP) {
+            queue = new RadixHeap(getVertexIdBound());
+        }
+        else {
+            queue = new IndexedMinHeap(getVertexIdBound());
+        }
+
+        return queue;
+    }
+
+
+    /**
+     * Returns the edges joining each vertex in the given sequence of ids to
+     * the next, with their weights from the graph.
+     *
+     * @param pathIds ids of the vertices along a path
+     * @return list of the edges along the path
+     */
+    List<Graph.Edge<T>> edgesAlong(int[] pathIds) {
+        List<Graph.Edge<T>> path = new ArrayList<>();
+
+        for (int i = 1; i < pathIds.length; i++) {
+            path.add(new Graph.Edge<>(vertexOf(pathIds[i - 1]),
+                    vertexOf(pathIds[i]), getEdgeWeight(pathIds[i - 1],
+                    pathIds[i])));
+        }
+
+        return path;
+    }
+
+
+    /**
+     * Returns the edges of the path that ends at the given vertex, as
+     * recorded by the predecessor of each vertex along it, in order from
+     * the start of the path. A vertex with no predecessor starts the path.
+     *
+     * @param predecessors id of the vertex before each vertex on its path,
+     *                     or a negative number for the start of the path
+     * @param destination id of the vertex the path ends at
+     * @return list of the edges along the path
+     */
+    List<Graph.Edge<T>> buildPath(int[] predecessors, int destination) {
+        List<Graph.Edge<T>> path = new ArrayList<>();
+        int currentVertex = destination;
+
+        // walk back from the destination, adding the edge taken to reach
+        // each vertex with its proper weight from the graph itself
+        while (predecessors[currentVertex] >= 0) {
+            int previousVertex = predecessors[currentVertex];
+            path.add(new Graph.Edge<>(vertexOf(previousVertex),
+                    vertexOf(currentVertex), getEdgeWeight(previousVertex,
+                    currentVertex)));
+            currentVertex = previousVertex;
+        }
+
+        // the path was just built in reverse, and now it needs to be
+        // reversed back to look proper.
+        Collections.reverse(path);
+
+        return path;
+    }
+
+
+    /**
+     * Finds the shortest path between the source and the destination with
+     * a PriorityQueue of edges as the frontier.
+     *
+     * @param source vertex to try to find the shortest path from
+     * @param destination vertex to try to find the shortest path to
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the given source to the given
+     * destination
+     * @throws NoSuchElementException if either vertex is not in the graph
+     */
+    private List<Graph.Edge<T>> priorityQueueShortestPath(T source,
+                                                          T destination)
+            throws NoSuchElementException {
+        // set up variables
+        List<Graph.Edge<T>> shortestPath = new ArrayList<>();
+        HashMap<T, Graph.Edge<T>> connectedElements = new HashMap<>();
+        PriorityQueue<Graph.Edge<T>> frontier = new PriorityQueue<>();
+        T currentVertex = null;
+        Graph.Edge<T> currentEdge = new Graph.Edge<>(null, source, 0);
+        int pathWeight;
+
+        // if source and destination vertices not in graph, throw exception
+        if (!vertexExists(source) || !vertexExists(destination)) {
+            throw new NoSuchElementException();
+        }
+
+
+        // otherwise, start with the source and begin finding neighbors.
+        connectedElements.put(source, currentEdge);
+
+        // this allows the special case of an empty set, given source ==
+        // destination
+        if (source != destination) {
+            // find the neighbors of the source and add them to the frontier
+            for (T vertex : getNeighbors(source)) {
+                if (!connectedElements.containsKey(vertex)) {
+                    // add the weight of the nearest edge added to the
+                    // weight of the path taken to reach this point
+                    pathWeight = getEdgeWeight(source, vertex) +
+                            connectedElements.get(source).getWeight();
+
+                    // add the edge to the frontier with the correct weight
+                    frontier.offer(new Graph.Edge<>(source, vertex,
+                            pathWeight));
+                }
+            }
+
+            // this loops until the graph has been searched or the
+            // destination has been found.
+            do {
+                // the edge with the least total pathWeight is the next to add
+                // to connectedVertices
+                do {
+                    // define it as the next edge to work with
+                    currentEdge = frontier.poll();
+                }
+                while (!frontier.isEmpty() && connectedElements.containsKey(
+                        currentEdge.getDestination()));
+
+                // add the edge and its destination vertex to the
+                // connectedElements set
+                currentVertex = currentEdge.getDestination();
+                connectedElements.put(currentVertex, currentEdge);
+
+                // add every edge connected to the recent new addition to the
+                // connectedElements set
+                for (T vertex : getNeighbors(currentVertex)) {
+                    if (!connectedElements.containsKey(vertex)) {
+                        // add the weight of the nearest edge added to the
+                        // weight of the path taken to reach this point
+                        pathWeight = getEdgeWeight(currentVertex, vertex) +
+                                connectedElements.get(currentVertex).getWeight();
+
+                        // add the edge to the frontier with the correct weight
+                        frontier.offer(new Graph.Edge<>(currentVertex, vertex,
+                                pathWeight));
+                    }
+                }
+            }
+            // if the frontier has had no new elements added and is empty,
+            // then the graph is unconnected. If the destination has been
+            // found, then the shortest path has been found and this can exit.
+            while (!frontier.isEmpty() &&
+                    !connectedElements.containsKey(destination));
+
+
+            // when we first hit this, the current vertex will be the destination
+            // and the current edge will be the path taken to get there.
+            while (currentEdge.getSource() != null &&
+                    connectedElements.containsKey(destination)) {
+                // add the current edge to shortest path, but with the proper
+                // weight from the graph itself.
+                shortestPath.add(new Graph.Edge<>(currentEdge.getSource(),
+                        currentVertex, getEdgeWeight(currentEdge.getSource(),
+                        currentVertex)));
+
+                // reset current edge as the edge connecting to it
+                currentVertex = currentEdge.getSource();
+                currentEdge = connectedElements.get(currentVertex);
+            }
+
+            // the shortest path was just built in reverse, and now it needs
+            // to be reversed back to look proper.
+            Collections.reverse(shortestPath);
+
+            // if no destination was ever found, then return null
+            if (!connectedElements.containsKey(destination)) {
+                shortestPath = null;
+            }
+        }
+
+        return shortestPath;
+    }
+
+
+    /**
+     * Returns the minimum spanning tree of this graph, if undirected. If
+     * directed, it throws an IllegalStateException. The algorithm is picked
+     * by {@link SpanningTreeMethod#AUTO}. Returns null if no spanning tree
+     * exists.
+     *
+     * @return a graph representation of a minimum spanning tree of this
+     * graph. null if no spanning tree exists
+     * @throws IllegalStateException if this graph is directed.
+     */
+    public Graph<T> minimumSpanningTree() throws IllegalStateException {
+        return minimumSpanningTree(SpanningTreeMethod.AUTO);
+    }
+
+
+    /**
+     * Returns the minimum spanning tree of this graph found with the given
+     * method, if undirected. If directed, it throws an
+     * IllegalStateException. Returns null if no spanning tree exists.
+     *
+     * @param method how to find the tree
+     * @return a graph representation of a minimum spanning tree of this
+     * graph. null if no spanning tree exists
+     * @throws IllegalStateException if this graph is directed.
+     */
+    public Graph<T> minimumSpanningTree(SpanningTreeMethod method)
+            throws IllegalStateException {
+        Graph<T> minSpanTree;
+
+        // cannot be directed
+        if (isDirected()) {
+            throw new IllegalStateException();
+        }
+
+        if (method == SpanningTreeMethod.AUTO) {
+            long n = getVertexCount();
+            // every edge of an undirected graph fills a slot at both ends,
+            // so this compares the edges with a twentieth of n(n-1)/2
+            method = countEdgeSlots() * 40 >= n * (n - 1) ?
+                    SpanningTreeMethod.DENSE_PRIM : SpanningTreeMethod.KRUSKAL;
+        }
+
+        if (method == SpanningTreeMethod.PRIM) {
+            minSpanTree = primSpanningTree();
+        }
+        else if (method == SpanningTreeMethod.DENSE_PRIM) {
+            minSpanTree = densePrimSpanningTree();
+        }
+        else if (method == SpanningTreeMethod.BORUVKA) {
+            Boruvka<T> boruvka = new Boruvka<>(this);
+            minSpanTree = boruvka.findForest();
+            // a forest of more than one tree does not span the graph
+            if (boruvka.getForestEdgeCount() < getVertexCount() - 1) {
+                minSpanTree = null;
+            }
+        }
+        else {
+            minSpanTree = kruskalSpanningTree();
+        }
+
+        return minSpanTree;
+    }
+
+
+    /**
+     * Returns the minimum spanning forest of this graph, if undirected,
+     * which joins every connected component of the graph with a minimum
+     * spanning tree. Unlike {@link #minimumSpanningTree()}, this gives a
+     * result for every graph, and for a connected graph the two are the
+     * same. It uses Boruvka's algorithm on all cores, and the graph must
+     * not be changed while it runs.
+     *
+     * @return a graph with every vertex of this graph and the edges of a
+     * minimum spanning forest
+     * @throws IllegalStateException if this graph is directed.
+     */
+    public Graph<T> minimumSpanningForest() throws IllegalStateException {
+        // cannot be directed
+        if (isDirected()) {
+            throw new IllegalStateException();
+        }
+
+        return new Boruvka<>(this).findForest();
+    }
+
+
+    /**
+     * Returns the minimum spanning tree of this undirected graph found with
+     * Prim's algorithm, or null if no spanning tree exists.
+     *
+     * @return a minimum spanning tree, or null
+     */
+    private Graph<T> primSpanningTree() {
+        Graph<T> minSpanTree = new Graph<>(false);
+        PriorityQueue<Graph.Edge<T>> edgeQueue = new PriorityQueue<>();
+        T currentVertex = null;
+        Graph.Edge<T> currentEdge = null;
+        boolean graphUnconnected = false;
+
+        // if the graph isn't empty
+        if (getVertexCount() > 0) {
+            // pick a vertex to add to the min span tree
+            currentVertex = getVertices().get(0);
+            // add that vertex to the minimum spanning tree
+            minSpanTree.addVertex(currentVertex);
+
+            // for every edge connected to the first vertex
+            for (T destination : getNeighbors(currentVertex)) {
+                // if the destination of the edge coming from the first
+                // vertex is not already in the minimum spanning tree
+                if (!minSpanTree.vertexExists(destination)) {
+                    // add the edge from the first vertex to a vertex not in
+                    // the minSpanTree to the priority queue.
+                    edgeQueue.offer(new Graph.Edge<>(currentVertex, destination,
+                            getEdgeWeight(currentVertex, destination)));
+                }
+            }
+
+            // for as many vertices as there are in the graph, until one
+            // cannot be reached
+            for (int i = 0; i < getVertexCount()-1 && !graphUnconnected;
+                 i++) {
+
+                // the next edge to add to the minimum spanning tree is the edge
+                // currently connected to the min span tree by only one vertex
+                // that also has the lowest weight.
+                do {
+                    currentEdge = edgeQueue.poll();
+                }
+                while (currentEdge != null && minSpanTree.vertexExists(
+                        currentEdge.getDestination()));
+
+                // if there is no such edge, the vertices left cannot be
+                // reached from the tree, so this must be a disconnected graph
+                if (currentEdge == null) {
+                    graphUnconnected = true;
+                }
+                else {
+                    // add this edge to the min span tree
+                    minSpanTree.addVertex(currentEdge.getDestination());
+                    minSpanTree.addEdge(currentEdge);
+
+                    // the most recently added vertex to the min span tree is
+                    // now the destination of the recently added edge.
+                    currentVertex = currentEdge.getDestination();
+
+                    // for every edge connected to the most recently added
+                    // vertex
+                    for (T destination : getNeighbors(currentVertex)) {
+                        // if the destination of the edge coming from the
+                        // current vertex is not already in the minimum
+                        // spanning tree
+                        if (!minSpanTree.vertexExists(destination)) {
+                            // add the edge from the most recently added vertex
+                            // to a vertex not in the minSpanTree to the
+                            // priority queue.
+                            edgeQueue.offer(new Graph.Edge<>(currentVertex,
+                                    destination, getEdgeWeight(currentVertex,
+                                    destination)));
+                        }
+                    }
+                }
+            }
+        }
+
+        // if the graph is unconnected, return null.
+        if (graphUnconnected) {
+            minSpanTree = null;
+        }
+
+        return minSpanTree;
+    }
+
+
+    /**
+     * Returns the minimum spanning tree of this undirected graph found with
+     * Prim's algorithm over arrays, or null if no spanning tree exists.
+     *
+     * @return a minimum spanning tree, or null
+     */
+    private Graph<T> densePrimSpanningTree() {
+        final int NO_PARENT = -1;
+        List<T> vertices = getVertices();
+        int n = vertices.size();
+        int[] ids = new int[n];
+        int[] indices = new int[getVertexIdBound()];
+        // cheapest known edge from the tree to each vertex, and where in
+        // the tree it comes from
+        long[] keys = new long[n];
+        int[] parents = new int[n];
+        boolean[] isInTree = new boolean[n];
+        boolean graphUnconnected = false;
+
+        for (int i = 0; i < n; i++) {
+            ids[i] = idOf(vertices.get(i));
+            indices[ids[i]] = i;
+        }
+        Arrays.fill(keys, Long.MAX_VALUE);
+        Arrays.fill(parents, NO_PARENT);
+        if (n > 0) {
+            keys[0] = 0;
+        }
+
+        for (int step = 0; step < n && !graphUnconnected; step++) {
+            // the vertex outside the tree with the cheapest edge into it
+            int nearest = -1;
+            for (int i = 0; i < n; i++) {
+                if (!isInTree[i] && (nearest < 0 || keys[i] < keys[nearest])) {
+                    nearest = i;
+                }
+            }
+
+            // if no edge reaches it, this must be a disconnected graph
+            if (keys[nearest] == Long.MAX_VALUE) {
+                graphUnconnected = true;
+            }
+            else {
+                isInTree[nearest] = true;
+                int nearestId = ids[nearest];
+                for (int slot = firstEdgeSlot(nearestId),
+                     end = endEdgeSlot(nearestId); slot < end; slot++) {
+                    int target = edgeTargetAt(nearestId, slot);
+                    if (target >= 0) {
+                        int index = indices[target];
+                        int weight = edgeWeightAt(nearestId, slot);
+                        if (!isInTree[index] && weight < keys[index]) {
+                            keys[index] = weight;
+                            parents[index] = nearest;
+                        }
+                    }
+                }
+            }
+        }
+
+        Graph<T> minSpanTree = null;
+        if (!graphUnconnected) {
+            minSpanTree = new Graph<>(false);
+            for (T vertex : vertices) {
+                minSpanTree.addVertex(vertex);
+            }
+            for (int i = 0; i < n; i++) {
+                if (parents[i] != NO_PARENT) {
+                    minSpanTree.addEdge(vertices.get(parents[i]),
+                            vertices.get(i), (int) keys[i]);
+                }
+            }
+        }
+
+        return minSpanTree;
+    }
+
+
+    /**
+     * Returns the minimum spanning tree of this undirected graph found with
+     * Kruskal's algorithm, or null if no spanning tree exists.
+     *
+     * @return a minimum spanning tree, or null
+     */
+    private Graph<T> kruskalSpanningTree() {
+        List<T> vertices = getVertices();
+        int edgeCount = 0;
+
+        // each undirected edge once, from its lower id
+        for (T vertex : vertices) {
+            int source = idOf(vertex);
+            for (int slot = firstEdgeSlot(source), end = endEdgeSlot(source);
+                 slot < end; slot++) {
+                if (edgeTargetAt(source, slot) > source) {
+                    edgeCount++;
+                }
+            }
+        }
+
+        // sorting the weight in the high half and the edge's index in the
+        // low half sorts plain longs instead of Edge objects
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        long[] keys = new long[edgeCount];
+        int edgeIndex = 0;
+        for (T vertex : vertices) {
+            int source = idOf(vertex);
+            for (int slot = firstEdgeSlot(source), end = endEdgeSlot(source);
+                 slot < end; slot++) {
+                int target = edgeTargetAt(source, slot);
+                if (target > source) {
+                    sources[edgeIndex] = source;
+                    targets[edgeIndex] = target;
+                    keys[edgeIndex] = (long) edgeWeightAt(source, slot) << 32 |
+                            edgeIndex;
+                    edgeIndex++;
+                }
+            }
+        }
+        Arrays.parallelSort(keys);
+
+        Graph<T> minSpanTree = new Graph<>(false);
+        DisjointSet trees = new DisjointSet(getVertexIdBound());
+        int treeEdgeCount = 0;
+        for (T vertex : vertices) {
+            minSpanTree.addVertex(vertex);
+        }
+        for (int i = 0; i < keys.length && treeEdgeCount < vertices.size() - 1;
+             i++) {
+            int index = (int) keys[i];
+            if (trees.union(sources[index], targets[index])) {
+                minSpanTree.addEdge(vertexOf(sources[index]),
+                        vertexOf(targets[index]), (int) (keys[i] >>> 32));
+                treeEdgeCount++;
+            }
+        }
+
+        // fewer edges than that means the trees never all joined
+        if (treeEdgeCount < vertices.size() - 1) {
+            minSpanTree = null;
+        }
+
+        return minSpanTree;
+    }
+
+
+    /**
+     * Returns the number of slots holding an edge, which is the number of
+     * edges in a directed graph and twice that in an undirected one.
+     *
+     * @return number of edge slots in use
+     */
+    private long countEdgeSlots() {
+        long edgeSlotCount = 0;
+
+        for (T vertex : getVertices()) {
+            int vertexId = idOf(vertex);
+            for (int slot = firstEdgeSlot(vertexId),
+                 end = endEdgeSlot(vertexId); slot < end; slot++) {
+                if (edgeTargetAt(vertexId, slot) >= 0) {
+                    edgeSlotCount++;
+                }
+            }
+        }
+
+        return edgeSlotCount;
+    }
+
+
+    /**
+     * Implements Tao and Michalewicz' Inver-Over genetic algorithm to find
+     * the optimal tour in this graph.
+     *
+     * The paper describing this algorithm can be found at:
+     * http://dl.acm.org/citation.cfm?id=668606
+     *
+     * N.B. This implementation of the Inver-Over algorithm only accepts
+     * fully connected graphs.
+     *
+     * @param populationSize number of solutions to maintain at a time
+     * @param inversionProbability probability that a current child will
+     *                             attempt to find new connections within the
+     *                             same solution tour.
+     * @param terminationIterations how many iterations to run before
+     *                              terminating
+     *
+     * @return a list of vertices that constitute the optimal tour through
+     * the graph.
+     */
+    public List<T> getOptimalTour(int populationSize,
+                                  float inversionProbability,
+                                  int terminationIterations) {
+        return getOptimalTour(populationSize, inversionProbability,
+                terminationIterations, TourDistances.of(this));
+    }
+
+
+    /**
+     * Finds the optimal tour in this graph in the same way as
+     * {@link #getOptimalTour(int, float, int)}, taking the distances
+     * between vertices from the given source instead of the graph's edges.
+     * A matrix of distances built once with
+     * {@link TourDistances#matrix(AbstractGraph)} can be reused across
+     * runs, and {@link TourDistances#euclidean(List, Map)} suits instances
+     * too big for a matrix.
+     *
+     * @param populationSize number of solutions to maintain at a time
+     * @param inversionProbability probability that a current child will
+     *                             attempt to find new connections within the
+     *                             same solution tour.
+     * @param terminationIterations how many iterations to run before
+     *                              terminating
+     * @param distances distances between every pair of vertices
+     * @return a list of vertices that constitute the optimal tour through
+     * the graph.
+     * @throws IllegalArgumentException if the distances are not over the
+     * vertices of this graph
+     */
+    public List<T> getOptimalTour(int populationSize,
+                                  float inversionProbability,
+                                  int terminationIterations,
+                                  TourDistances<T> distances)
+            throws IllegalArgumentException {
+        return getOptimalTour(populationSize, inversionProbability,
+                terminationIterations, distances, new SplittableRandom());
+    }
+
+
+    /**
+     * Finds the optimal tour in this graph in the same way as
+     * {@link #getOptimalTour(int, float, int, TourDistances)}, making its
+     * random choices from a generator started from the given seed, so that
+     * the same seed always gives the same tour.
+     *
+     * @param populationSize number of solutions to maintain at a time
+     * @param inversionProbability probability that a current child will
+     *                             attempt to find new connections within the
+     *                             same solution tour.
+     * @param terminationIterations how many iterations to run before
+     *                              terminating
+     * @param distances distances between every pair of vertices
+     * @param seed seed for the random choices
+     * @return a list of vertices that constitute the optimal tour through
+     * the graph.
+     * @throws IllegalArgumentException if the distances are not over the
+     * vertices of this graph
+     */
+    public List<T> getOptimalTour(int populationSize,
+                                  float inversionProbability,
+                                  int terminationIterations,
+                                  TourDistances<T> distances, long seed)
+            throws IllegalArgumentException {
+        return getOptimalTour(populationSize, inversionProbability,
+                terminationIterations, distances, new SplittableRandom(seed));
+    }
+
+
+    /**
+     * Finds the optimal tour in this graph with the island model in the
+     * same way as {@link #getOptimalTour(int, float, int, int, int)}, with
+     * one island per core, as given by Runtime.availableProcessors(), which
+     * keeps every core busy.
+     *
+     * @param populationSize number of solutions each island maintains at a
+     *                       time
+     * @param inversionProbability probability that a current child will
+     *                             attempt to find new connections within the
+     *                             same solution tour.
+     * @param terminationIterations how many iterations each island runs
+     *                              before terminating
+     * @param migrationInterval how many iterations to run between
+     *                          migrations
+     * @return a list of vertices that constitute the optimal tour through
+     * the graph.
+     * @throws IllegalArgumentException if the migration interval is not
+     * positive
+     */
+    public List<T> getOptimalTour(int populationSize,
+                                  float inversionProbability,
+                                  int terminationIterations,
+                                  int migrationInterval)
+            throws IllegalArgumentException {
+        return getOptimalTour(populationSize, inversionProbability,
+                terminationIterations,
+                Runtime.getRuntime().availableProcessors(), migrationInterval);
+    }
+
+
+    /**
+     * Finds the optimal tour in this graph with the island model of
+     * Inver-Over, which evolves several separate populations in parallel,
+     * each on its own thread, and every migration interval sends each
+     * one's best tour to the next. To run one island per core, use
+     * {@link #getOptimalTour(int, float, int, int)}.
+     *
+     * @param populationSize number of solutions each island maintains at a
+     *                       time
+     * @param inversionProbability probability that a current child will
+     *                             attempt to find new connections within the
+     *                             same solution tour.
+     * @param terminationIterations how many iterations each island runs
+     *                              before terminating
+     * @param islandCount number of islands
+     * @param migrationInterval how many iterations to run between
+     *                          migrations
+     * @return a list of vertices that constitute the optimal tour through
+     * the graph.
+     * @throws IllegalArgumentException if the island count or the migration
+     * interval is not positive
+     */
+    public List<T> getOptimalTour(int populationSize,
+                                  float inversionProbability,
+                                  int terminationIterations,
+                                  int islandCount, int migrationInterval)
+            throws IllegalArgumentException {
+        return getOptimalTour(populationSize, inversionProbability,
+                terminationIterations, TourDistances.of(this), islandCount,
+                migrationInterval);
+    }
+
+
+    /**
+     * Finds the optimal tour in this graph with the island model in the
+     * same way as {@link #getOptimalTour(int, float, int, int, int)},
+     * taking the distances between vertices from the given source instead
+     * of the graph's edges.
+     *
+     * @param populationSize number of solutions each island maintains at a
+     *                       time
+     * @param inversionProbability probability that a current child will
+     *                             attempt to find new connections within the
+     *                             same solution tour.
+     * @param terminationIterations how many iterations each island runs
+     *                              before terminating
+     * @param distances distances between every pair of vertices
+     * @param islandCount number of islands
+     * @param migrationInterval how many iterations to run between
+     *                          migrations
+     * @return a list of vertices that constitute the optimal tour through
+     * the graph.
+     * @throws IllegalArgumentException if the distances are not over the
+     * vertices of this graph, or the island count or the migration interval
+     * is not positive
+     */
+    public List<T> getOptimalTour(int populationSize,
+                                  float inversionProbability,
+                                  int terminationIterations,
+                                  TourDistances<T> distances,
+                                  int islandCount, int migrationInterval)
+            throws IllegalArgumentException {
+        return getOptimalTour(populationSize, inversionProbability,
+                terminationIterations, distances, islandCount,
+                migrationInterval, new SplittableRandom());
+    }
+
+
+    /**
+     * Finds the optimal tour in this graph with the island model in the
+     * same way as
+     * {@link #getOptimalTour(int, float, int, TourDistances, int, int)},
+     * giving each island a generator split in turn from one started from
+     * the given seed. Which thread runs which island makes no difference,
+     * so the same seed and island count always give the same tour.
+     *
+     * @param populationSize number of solutions each island maintains at a
+     *                       time
+     * @param inversionProbability probability that a current child will
+     *                             attempt to find new connections within the
+     *                             same solution tour.
+     * @param terminationIterations how many iterations each island runs
+     *                              before terminating
+     * @param distances distances between every pair of vertices
+     * @param islandCount number of islands
+     * @param migrationInterval how many iterations to run between
+     *                          migrations
+     * @param seed seed for the random choices
+     * @return a list of vertices that constitute the optimal tour through
+     * the graph.
+     * @throws IllegalArgumentException if the distances are not over the
+     * vertices of this graph, or the island count or the migration interval
+     * is not positive
+     */
+    public List<T> getOptimalTour(int populationSize,
+                                  float inversionProbability,
+                                  int terminationIterations,
+                                  TourDistances<T> distances,
+                                  int islandCount, int migrationInterval,
+                                  long seed)
+            throws IllegalArgumentException {
+        return getOptimalTour(populationSize, inversionProbability,
+                terminationIterations, distances, islandCount,
+                migrationInterval, new SplittableRandom(seed));
+    }
+
+
+    /**
+     * Runs Inver-Over on a single population.
+     *
+     * @param populationSize number of solutions to maintain at a time
+     * @param inversionProbability probability of an inversion within the
+     *                             same tour
+     * @param terminationIterations how many iterations to run
+     * @param distances distances between every pair of vertices
+     * @param random generator for the random choices
+     * @return the best tour, or null if the population is empty
+     * @throws IllegalArgumentException if the distances are not over the
+     * vertices of this graph
+     */
+    private List<T> getOptimalTour(int populationSize,
+                                   float inversionProbability,
+                                   int terminationIterations,
+                                   TourDistances<T> distances,
+                                   SplittableRandom random)
+            throws IllegalArgumentException {
+        List<T> shortestPath = null;
+
+        checkCities(distances);
+
+        if (populationSize > 0) {
+            InverOver<T> search = new InverOver<>(distances, populationSize,
+                    inversionProbability, random);
+            search.evolve(terminationIterations);
+            shortestPath = search.getBestTour();
+        }
+
+        return shortestPath;
+    }
+
+
+    /**
+     * Runs the island model of Inver-Over.
+     *
+     * @param populationSize number of solutions each island maintains
+     * @param inversionProbability probability of an inversion within the
+     *                             same tour
+     * @param terminationIterations how many iterations each island runs
+     * @param distances distances between every pair of vertices
+     * @param islandCount number of islands
+     * @param migrationInterval how many iterations to run between
+     *                          migrations
+     * @param random generator to split the islands' generators from
+     * @return the best tour, or null if the populations are empty
+     * @throws IllegalArgumentException if the distances are not over the
+     * vertices of this graph, or the island count or the migration interval
+     * is not positive
+     */
+    private List<T> getOptimalTour(int populationSize,
+                                   float inversionProbability,
+                                   int terminationIterations,
+                                   TourDistances<T> distances,
+                                   int islandCount, int migrationInterval,
+                                   SplittableRandom random)
+            throws IllegalArgumentException {
+        List<T> shortestPath = null;
+
+        checkCities(distances);
+        if (islandCount <= 0 || migrationInterval <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        if (populationSize > 0) {
+            InverOverIslands<T> search = new InverOverIslands<>(distances,
+                    islandCount, populationSize, inversionProbability,
+                    random);
+            search.evolve(terminationIterations, migrationInterval);
+            shortestPath = search.getBestTour();
+        }
+
+        return shortestPath;
+    }
+
+
+    /**
+     * Shortens a tour through every vertex of this graph with 2-opt and
+     * Or-opt moves, until no move between near neighbors shortens it
+     * further. The tour is scored as {@link #getOptimalTour(int, float, int)}
+     * scores it, and it suits polishing that method's result, or a tour
+     * from anywhere else.
+     *
+     * @param tour every vertex of this graph once, in the order of the tour
+     * @return the vertices in the order of a tour no longer than the given
+     * one
+     * @throws IllegalArgumentException if the tour is not every vertex once,
+     * or the graph is directed
+     */
+    public List<T> improveTour(List<T> tour) throws IllegalArgumentException {
+        return improveTour(tour, TourDistances.of(this));
+    }
+
+
+    /**
+     * Shortens a tour through every vertex of this graph in the same way as
+     * {@link #improveTour(List)}, taking the distances between vertices
+     * from the given source instead of the graph's edges. Only each
+     * vertex's {@link LocalSearch#NEIGHBOR_COUNT} nearest are tried as new
+     * neighbors, and with {@link TourDistances#euclidean(List, Map)} they
+     * are found without measuring every pair, so this runs on tours far too
+     * big for a matrix.
+     *
+     * @param tour every vertex of this graph once, in the order of the tour
+     * @param distances symmetric distances between every pair of vertices
+     * @return the vertices in the order of a tour no longer than the given
+     * one
+     * @throws IllegalArgumentException if the distances are not over the
+     * vertices of this graph or are not symmetric, or the tour is not every
+     * vertex once
+     */
+    public List<T> improveTour(List<T> tour, TourDistances<T> distances)
+            throws IllegalArgumentException {
+        List<T> cities = distances.getCities();
+        Map<T, Integer> cityNumbers = new HashMap<>();
+        int[] cityTour = new int[tour.size()];
+        List<T> improvedTour = new ArrayList<>(tour.size());
+
+        checkCities(distances);
+        if (!distances.isSymmetric() || tour.size() != cities.size()) {
+            throw new IllegalArgumentException();
+        }
+
+        for (int city = 0; city < cities.size(); city++) {
+            cityNumbers.put(cities.get(city), city);
+        }
+        boolean[] isVisited = new boolean[cities.size()];
+        for (int i = 0; i < cityTour.length; i++) {
+            Integer city = cityNumbers.get(tour.get(i));
+            if (city == null || isVisited[city]) {
+                throw new IllegalArgumentException();
+            }
+            isVisited[city] = true;
+            cityTour[i] = city;
+        }
+
+        for (int city : new LocalSearch<>(distances).improve(cityTour)) {
+            improvedTour.add(cities.get(city));
+        }
+
+        return improvedTour;
+    }
+
+
+    /**
+     * Checks that the cities of the given distances are the vertices of
+     * this graph.
+     *
+     * @param distances distances to check
+     * @throws IllegalArgumentException if the cities are not the vertices
+     */
+    private void checkCities(TourDistances<T> distances)
+            throws IllegalArgumentException {
+        List<T> cities = distances.getCities();
+
+        if (cities.size() != getVertexCount() ||
+                new HashSet<>(cities).size() != cities.size()) {
+            throw new IllegalArgumentException();
+        }
+        for (T city : cities) {
+            if (idOf(city) < 0) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+}
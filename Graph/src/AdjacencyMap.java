@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * Edges leaving a single vertex, kept as a map from destination vertex id to
+ * edge weight. The map uses open addressing with linear probing over two
+ * parallel int arrays, so unlike a HashMap&lt;Integer, Integer&gt; it boxes
+ * nothing and allocates nothing per edge; adding, looking up and removing
+ * edges only allocates when the arrays need to grow.
+ *
+ * The slots of the map can be walked directly with {@link #capacity()},
+ * {@link #keyAt(int)} and {@link #weightAt(int)}. Empty slots hold a key of
+ * -1.
+ */
+class AdjacencyMap {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] _keys;
+    private int[] _weights;
+    private int _size;
+
+    /**
+     * Constructs an empty map.
+     */
+    AdjacencyMap() {
+        _keys = new int[INITIAL_CAPACITY];
+        _weights = new int[INITIAL_CAPACITY];
+        _size = 0;
+        Arrays.fill(_keys, EMPTY);
+    }
+
+
+    /**
+     * Returns the number of edges in the map.
+     *
+     * @return the number of edges in the map
+     */
+    int size() {
+        return _size;
+    }
+
+
+    /**
+     * Returns the number of slots in the map, some of which may be empty.
+     *
+     * @return the number of slots in the map
+     */
+    int capacity() {
+        return _keys.length;
+    }
+
+
+    /**
+     * Returns the destination id held in the given slot, or -1 if the slot
+     * is empty.
+     *
+     * @param slot slot to read
+     * @return destination id in the slot, or -1 if empty
+     */
+    int keyAt(int slot) {
+        return _keys[slot];
+    }
+
+
+    /**
+     * Returns the weight held in the given slot. Only meaningful if the slot
+     * is not empty.
+     *
+     * @param slot slot to read
+     * @return weight in the slot
+     */
+    int weightAt(int slot) {
+        return _weights[slot];
+    }
+
+
+    /**
+     * Returns the slot holding the given destination id, or -1 if the map
+     * does not contain it.
+     *
+     * @param key destination id to find
+     * @return slot of the key, or -1 if it is not in the map
+     */
+    int indexOf(int key) {
+        int mask = _keys.length - 1;
+        int slot = hash(key) & mask;
+
+        // walk the probe sequence until we find the key or hit a gap
+        while (_keys[slot] != EMPTY && _keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return _keys[slot] == key ? slot : -1;
+    }
+
+
+    /**
+     * Returns true if the map contains the given destination id.
+     *
+     * @param key destination id to check
+     * @return true if the key is in the map, false otherwise
+     */
+    boolean containsKey(int key) {
+        return key >= 0 && indexOf(key) >= 0;
+    }
+
+
+    /**
+     * Adds the given edge, or replaces its weight if it is already present.
+     *
+     * @param key destination id, which must not be negative
+     * @param weight weight of the edge
+     */
+    void put(int key, int weight) {
+        int mask = _keys.length - 1;
+        int slot = hash(key) & mask;
+
+        while (_keys[slot] != EMPTY && _keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        // a new key may push the map past three quarters full, in which case
+        // it is doubled before the key is added
+        if (_keys[slot] == EMPTY) {
+            if ((_size + 1) * 4 > _keys.length * 3) {
+                grow();
+                put(key, weight);
+                return;
+            }
+            _keys[slot] = key;
+            _size++;
+        }
+        _weights[slot] = weight;
+    }
+
+
+    /**
+     * Removes the edge to the given destination id if it is present.
+     *
+     * @param key destination id to remove
+     * @return true if an edge was removed, false if there was none
+     */
+    boolean remove(int key) {
+        int mask = _keys.length - 1;
+        int gap = key >= 0 ? indexOf(key) : -1;
+        boolean removed = gap >= 0;
+
+        if (removed) {
+            // shift later entries of the probe run back into the gap so that
+            // lookups never need tombstones
+            int slot = (gap + 1) & mask;
+            while (_keys[slot] != EMPTY) {
+                int home = hash(_keys[slot]) & mask;
+                // the entry can fill the gap only if its home slot does not
+                // lie cyclically between the gap and its current slot
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    _keys[gap] = _keys[slot];
+                    _weights[gap] = _weights[slot];
+                    gap = slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            _keys[gap] = EMPTY;
+            _size--;
+        }
+
+        return removed;
+    }
+
+
+    /**
+     * Doubles the number of slots and reinserts every edge.
+     */
+    private void grow() {
+        int[] oldKeys = _keys;
+        int[] oldWeights = _weights;
+
+        _keys = new int[oldKeys.length * 2];
+        _weights = new int[oldKeys.length * 2];
+        _size = 0;
+        Arrays.fill(_keys, EMPTY);
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                put(oldKeys[slot], oldWeights[slot]);
+            }
+        }
+    }
+
+
+    /**
+     * Scrambles a vertex id so that runs of consecutive ids spread over the
+     * table instead of piling up in neighboring slots.
+     *
+     * @param key vertex id to hash
+     * @return scrambled id
+     */
+    private static int hash(int key) {
+        int scrambled = key * 0x9E3779B9;
+        return scrambled ^ (scrambled >>> 16);
+    }
+}
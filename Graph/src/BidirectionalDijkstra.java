@@ -0,0 +1,289 @@
+import java.util.Arrays;
+
+/**
+ * Point-to-point Dijkstra that grows one search forward from the source and
+ * another backward from the destination, following incoming edges, until
+ * the two meet. Each step advances whichever side has the closer frontier.
+ *
+ * The best path seen so far is the lowest forward distance plus backward
+ * distance over every vertex both searches have reached. Once the smallest
+ * keys left on the two frontiers add up to at least that much, no path
+ * through an unsettled vertex can be shorter, and the search stops. On
+ * road-like graphs the two balls together cover far fewer vertices than one
+ * ball reaching all the way from the source to the destination.
+ *
+ * Only the vertices a search reaches are cleared before the next one, so
+ * a short query costs nothing in proportion to the size of the graph. Each
+ * thread keeps one search to reuse from query to query, as given by
+ * {@link #forThread(AbstractGraph)}.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class BidirectionalDijkstra<T> {
+    private static final long UNREACHED = DijkstraSearch.UNREACHED;
+    private static final int NO_VERTEX = -1;
+    private static final ThreadLocal<BidirectionalDijkstra<?>> SEARCHES =
+            new ThreadLocal<>();
+
+    private AbstractGraph<T> _graph;
+    private long[] _forwardDistances;
+    private long[] _backwardDistances;
+    private int[] _predecessors;
+    private int[] _successors;
+    private IndexedMinHeap _forwardFrontier;
+    private IndexedMinHeap _backwardFrontier;
+    private int[] _touched;
+    private int _touchedCount;
+    private long _bestLength;
+    private int _meetingVertex;
+    private int _settledCount;
+
+    /**
+     * Constructs a search over the given graph.
+     *
+     * @param graph graph to search
+     */
+    BidirectionalDijkstra(AbstractGraph<T> graph) {
+        int idBound = graph.getVertexIdBound();
+
+        _graph = graph;
+        _forwardDistances = new long[idBound];
+        _backwardDistances = new long[idBound];
+        _predecessors = new int[idBound];
+        _successors = new int[idBound];
+        _forwardFrontier = new IndexedMinHeap(idBound);
+        _backwardFrontier = new IndexedMinHeap(idBound);
+        _touched = new int[idBound];
+        Arrays.fill(_forwardDistances, UNREACHED);
+        Arrays.fill(_backwardDistances, UNREACHED);
+        Arrays.fill(_predecessors, NO_VERTEX);
+        Arrays.fill(_successors, NO_VERTEX);
+    }
+
+
+    /**
+     * Returns this thread's search, pointed at the given graph, making a
+     * new one if the thread has none, if its arrays are too small for the
+     * graph, or if it is still in use further up the stack. Once done with
+     * it, {@link #release()} lets go of the graph.
+     *
+     * @param graph graph to search
+     * @param <T> type of the vertices in the graph
+     * @return a search over the graph
+     */
+    @SuppressWarnings("unchecked")
+    static <T> BidirectionalDijkstra<T> forThread(AbstractGraph<T> graph) {
+        BidirectionalDijkstra<T> search =
+                (BidirectionalDijkstra<T>) SEARCHES.get();
+
+        if (search == null || search._graph != null ||
+                search._forwardDistances.length < graph.getVertexIdBound()) {
+            search = new BidirectionalDijkstra<>(graph);
+            SEARCHES.set(search);
+        }
+        search._graph = graph;
+
+        return search;
+    }
+
+
+    /**
+     * Lets go of the graph, so that a search kept by a thread does not keep
+     * the graph alive, and the search can be handed out again.
+     */
+    void release() {
+        _graph = null;
+    }
+
+
+    /**
+     * Searches for the shortest path from the source to the target.
+     *
+     * @param source id of the vertex to search from
+     * @param target id of the vertex to search to
+     * @return true if a path was found
+     */
+    boolean search(int source, int target) {
+        reset();
+        _bestLength = UNREACHED;
+        _meetingVertex = NO_VERTEX;
+        _settledCount = 0;
+
+        touch(source);
+        _forwardDistances[source] = 0;
+        _forwardFrontier.offer(source, 0);
+        touch(target);
+        _backwardDistances[target] = 0;
+        _backwardFrontier.offer(target, 0);
+        considerMeeting(source);
+
+        // keep going while both sides have something left and a shorter
+        // path could still turn up
+        while (!_forwardFrontier.isEmpty() && !_backwardFrontier.isEmpty() &&
+                _forwardFrontier.peekKey() + _backwardFrontier.peekKey() <
+                        _bestLength) {
+            if (_forwardFrontier.peekKey() <= _backwardFrontier.peekKey()) {
+                settleForward();
+            }
+            else {
+                settleBackward();
+            }
+        }
+
+        return _meetingVertex != NO_VERTEX;
+    }
+
+
+    /**
+     * Returns the ids of the vertices along the path found by the last
+     * search, from the source to the target.
+     *
+     * @return ids along the shortest path, or null if there is none
+     */
+    int[] getPathIds() {
+        int[] pathIds = null;
+
+        if (_meetingVertex != NO_VERTEX) {
+            int forwardLength = 0;
+            int backwardLength = 0;
+
+            // count the hops on each side of the meeting vertex
+            for (int vertex = _meetingVertex; _predecessors[vertex] >= 0;
+                 vertex = _predecessors[vertex]) {
+                forwardLength++;
+            }
+            for (int vertex = _meetingVertex; _successors[vertex] >= 0;
+                 vertex = _successors[vertex]) {
+                backwardLength++;
+            }
+
+            // the forward half is filled in backwards from the meeting
+            // vertex, the backward half straight on from it
+            pathIds = new int[forwardLength + backwardLength + 1];
+            int vertex = _meetingVertex;
+            for (int i = forwardLength; i >= 0; i--) {
+                pathIds[i] = vertex;
+                vertex = _predecessors[vertex];
+            }
+            vertex = _meetingVertex;
+            for (int i = forwardLength + 1; i < pathIds.length; i++) {
+                vertex = _successors[vertex];
+                pathIds[i] = vertex;
+            }
+        }
+
+        return pathIds;
+    }
+
+
+    /**
+     * Returns the number of vertices the two sides settled in the last
+     * search.
+     *
+     * @return vertices settled by the last search
+     */
+    int getSettledCount() {
+        return _settledCount;
+    }
+
+
+    /**
+     * Settles the closest vertex on the forward frontier and relaxes the
+     * edges leaving it.
+     */
+    private void settleForward() {
+        int currentVertex = _forwardFrontier.poll();
+        _settledCount++;
+
+        for (int slot = _graph.firstEdgeSlot(currentVertex),
+             end = _graph.endEdgeSlot(currentVertex); slot < end; slot++) {
+            int neighbor = _graph.edgeTargetAt(currentVertex, slot);
+            if (neighbor >= 0) {
+                long pathWeight = _forwardDistances[currentVertex] +
+                        _graph.edgeWeightAt(currentVertex, slot);
+                if (pathWeight < _forwardDistances[neighbor]) {
+                    touch(neighbor);
+                    _forwardDistances[neighbor] = pathWeight;
+                    _predecessors[neighbor] = currentVertex;
+                    _forwardFrontier.offer(neighbor, pathWeight);
+                    considerMeeting(neighbor);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Settles the closest vertex on the backward frontier and relaxes the
+     * edges coming into it.
+     */
+    private void settleBackward() {
+        int currentVertex = _backwardFrontier.poll();
+        _settledCount++;
+
+        for (int slot = _graph.firstInEdgeSlot(currentVertex),
+             end = _graph.endInEdgeSlot(currentVertex); slot < end; slot++) {
+            int neighbor = _graph.inEdgeSourceAt(currentVertex, slot);
+            if (neighbor >= 0) {
+                long pathWeight = _backwardDistances[currentVertex] +
+                        _graph.inEdgeWeightAt(currentVertex, slot);
+                if (pathWeight < _backwardDistances[neighbor]) {
+                    touch(neighbor);
+                    _backwardDistances[neighbor] = pathWeight;
+                    _successors[neighbor] = currentVertex;
+                    _backwardFrontier.offer(neighbor, pathWeight);
+                    considerMeeting(neighbor);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Remembers the given vertex as the meeting point if both sides have
+     * reached it and the path through it beats the best one so far.
+     *
+     * @param vertex id of a vertex whose distance just went down
+     */
+    private void considerMeeting(int vertex) {
+        if (_forwardDistances[vertex] != UNREACHED &&
+                _backwardDistances[vertex] != UNREACHED &&
+                _forwardDistances[vertex] + _backwardDistances[vertex] <
+                        _bestLength) {
+            _bestLength = _forwardDistances[vertex] +
+                    _backwardDistances[vertex];
+            _meetingVertex = vertex;
+        }
+    }
+
+
+    /**
+     * Notes that the given vertex is about to get a distance, so that it
+     * is cleared before the next search.
+     *
+     * @param vertex id of the vertex
+     */
+    private void touch(int vertex) {
+        if (_forwardDistances[vertex] == UNREACHED &&
+                _backwardDistances[vertex] == UNREACHED) {
+            _touched[_touchedCount++] = vertex;
+        }
+    }
+
+
+    /**
+     * Clears everything the last search left behind.
+     */
+    private void reset() {
+        for (int i = 0; i < _touchedCount; i++) {
+            int vertex = _touched[i];
+            _forwardDistances[vertex] = UNREACHED;
+            _backwardDistances[vertex] = UNREACHED;
+            _predecessors[vertex] = NO_VERTEX;
+            _successors[vertex] = NO_VERTEX;
+        }
+        _touchedCount = 0;
+        _forwardFrontier.clear();
+        _backwardFrontier.clear();
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel Boruvka's algorithm for the minimum spanning forest of an
+ * undirected graph, which has a minimum spanning tree for each of the
+ * graph's connected components.
+ *
+ * Every vertex starts as a component of its own. In each round, every
+ * component picks the cheapest edge leaving it, and all of those edges join
+ * the forest at once, merging the components they join. The number of
+ * components with edges left at least halves each round, so there are at
+ * most log n rounds, and every step within a round runs over all cores:
+ *
+ * - The edges are scanned in parallel, and each offers itself to the
+ *   components at both its ends with a compare-and-set on an atomic array
+ *   of the cheapest edge so far per component.
+ * - Each component then points at the component across its cheapest edge.
+ *   Edges are ordered by weight and then by index, so no two weigh the
+ *   same, and the only cycles this can make are pairs pointing at each
+ *   other over one edge. The lower of each pair becomes the root.
+ * - Pointer jumping flattens the pointers onto the roots in log rounds,
+ *   with no locks, and every vertex takes the root of its component as its
+ *   new component.
+ * - Edges now inside one component can never be used, so they are dropped
+ *   and later rounds scan fewer and fewer edges.
+ *
+ * The graph must not be changed while this runs.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class Boruvka<T> {
+    private static final long NO_EDGE = Long.MAX_VALUE;
+
+    private AbstractGraph<T> _graph;
+    private int[] _vertexIds;
+    private int[] _sources;
+    private int[] _targets;
+    private int[] _weights;
+    private int _forestEdgeCount;
+
+    /**
+     * Gathers the edges of the graph, each once, in parallel.
+     *
+     * @param graph undirected graph to span
+     */
+    Boruvka(final AbstractGraph<T> graph) {
+        List<T> vertices = graph.getVertices();
+        final int[] vertexIds = new int[vertices.size()];
+        final int[] offsets = new int[vertices.size() + 1];
+
+        for (int i = 0; i < vertexIds.length; i++) {
+            vertexIds[i] = graph.idOf(vertices.get(i));
+        }
+
+        // count each vertex's edges to higher ids, then fill them in at the
+        // offsets the counts give
+        IntStream.range(0, vertexIds.length).parallel().forEach(i -> {
+            int source = vertexIds[i];
+            for (int slot = graph.firstEdgeSlot(source),
+                 end = graph.endEdgeSlot(source); slot < end; slot++) {
+                if (graph.edgeTargetAt(source, slot) > source) {
+                    offsets[i + 1]++;
+                }
+            }
+        });
+        for (int i = 0; i < vertexIds.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        final int[] sources = new int[offsets[vertexIds.length]];
+        final int[] targets = new int[sources.length];
+        final int[] weights = new int[sources.length];
+        IntStream.range(0, vertexIds.length).parallel().forEach(i -> {
+            int source = vertexIds[i];
+            int edgeIndex = offsets[i];
+            for (int slot = graph.firstEdgeSlot(source),
+                 end = graph.endEdgeSlot(source); slot < end; slot++) {
+                int target = graph.edgeTargetAt(source, slot);
+                if (target > source) {
+                    sources[edgeIndex] = source;
+                    targets[edgeIndex] = target;
+                    weights[edgeIndex] = graph.edgeWeightAt(source, slot);
+                    edgeIndex++;
+                }
+            }
+        });
+
+        _graph = graph;
+        _vertexIds = vertexIds;
+        _sources = sources;
+        _targets = targets;
+        _weights = weights;
+    }
+
+
+    /**
+     * Finds the minimum spanning forest.
+     *
+     * @return a graph with every vertex and the edges of the forest
+     */
+    Graph<T> findForest() {
+        final int[] components = new int[_graph.getVertexIdBound()];
+        final int[] next = new int[components.length];
+        final AtomicLongArray cheapest = new AtomicLongArray(components.length);
+        final boolean[] isInForest = new boolean[_sources.length];
+        int[] roots = _vertexIds;
+        int[] liveEdges = IntStream.range(0, _sources.length).toArray();
+
+        for (int vertexId : _vertexIds) {
+            components[vertexId] = vertexId;
+        }
+
+        while (liveEdges.length > 0) {
+            final int[] currentRoots = roots;
+            final int[] currentEdges = liveEdges;
+
+            IntStream.of(currentRoots).parallel().forEach(root ->
+                    cheapest.set(root, NO_EDGE));
+
+            // the weight in the high half and the index in the low half
+            // order the edges with no ties
+            IntStream.of(currentEdges).parallel().forEach(edge -> {
+                long key = (long) _weights[edge] << 32 | edge;
+                lower(cheapest, components[_sources[edge]], key);
+                lower(cheapest, components[_targets[edge]], key);
+            });
+
+            // every root with a live edge has a cheapest edge across to
+            // another component
+            IntStream.of(currentRoots).parallel().forEach(root -> {
+                long key = cheapest.get(root);
+                if (key == NO_EDGE) {
+                    next[root] = root;
+                }
+                else {
+                    int edge = (int) key;
+                    int sourceComponent = components[_sources[edge]];
+                    next[root] = sourceComponent != root ? sourceComponent :
+                            components[_targets[edge]];
+                    isInForest[edge] = true;
+                }
+            });
+
+            // break each pair pointing at each other; the higher one never
+            // writes, so the lower can read its pointer safely
+            IntStream.of(currentRoots).parallel().forEach(root -> {
+                int other = next[root];
+                if (root < other && next[other] == root) {
+                    next[root] = root;
+                }
+            });
+
+            // jump every pointer onto its root
+            while (IntStream.of(currentRoots).parallel().map(root -> {
+                int jump = next[next[root]];
+                int isChanged = jump != next[root] ? 1 : 0;
+                next[root] = jump;
+                return isChanged;
+            }).sum() > 0) {
+                // keep jumping
+            }
+
+            IntStream.of(_vertexIds).parallel().forEach(vertexId ->
+                    components[vertexId] = next[components[vertexId]]);
+
+            roots = IntStream.of(currentRoots).parallel()
+                    .filter(root -> next[root] == root).toArray();
+            liveEdges = IntStream.of(currentEdges).parallel()
+                    .filter(edge -> components[_sources[edge]] !=
+                            components[_targets[edge]]).toArray();
+        }
+
+        Graph<T> forest = new Graph<>(false);
+        for (int vertexId : _vertexIds) {
+            forest.addVertex(_graph.vertexOf(vertexId));
+        }
+        for (int edge = 0; edge < isInForest.length; edge++) {
+            if (isInForest[edge]) {
+                _forestEdgeCount++;
+                forest.addEdge(_graph.vertexOf(_sources[edge]),
+                        _graph.vertexOf(_targets[edge]), _weights[edge]);
+            }
+        }
+
+        return forest;
+    }
+
+
+    /**
+     * Returns the number of edges in the forest last found. The forest is a
+     * single spanning tree if this is one less than the number of vertices.
+     *
+     * @return number of edges in the forest
+     */
+    int getForestEdgeCount() {
+        return _forestEdgeCount;
+    }
+
+
+    /**
+     * Lowers the entry at the given index to the key if it is higher.
+     *
+     * @param cheapest cheapest edge key per component
+     * @param index component to offer the edge to
+     * @param key key of the edge
+     */
+    private static void lower(AtomicLongArray cheapest, int index, long key) {
+        long current = cheapest.get(index);
+
+        while (key < current && !cheapest.compareAndSet(index, current, key)) {
+            current = cheapest.get(index);
+        }
+    }
+}
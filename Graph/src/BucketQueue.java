@@ -0,0 +1,150 @@
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue over vertex ids, for searches whose edge weights are
+ * small integers. Every distance on the frontier of Dijkstra's algorithm
+ * lies between the last distance settled and that plus the largest edge
+ * weight, so one bucket per distance in that window, reused in a circle,
+ * holds the whole frontier. Each bucket is a doubly linked list threaded
+ * through arrays indexed by id, so adding a vertex, moving it to a lower
+ * bucket and taking it out are all constant time, and nothing is allocated
+ * after construction. Finding the next vertex scans forward past empty
+ * buckets, which over a whole search costs at most the largest distance.
+ */
+class BucketQueue extends DistanceQueue {
+    private static final int NONE = -1;
+    private static final long NOT_QUEUED = -1;
+
+    private int[] _heads;
+    private int[] _next;
+    private int[] _previous;
+    private long[] _distances;
+    private long _current;
+    private int _size;
+
+    /**
+     * Constructs an empty queue for the ids 0 through capacity-1, for
+     * searches over edges no heavier than the given weight.
+     *
+     * @param capacity one more than the largest id the queue will hold
+     * @param maxWeight largest edge weight in the graph
+     */
+    BucketQueue(int capacity, int maxWeight) {
+        _heads = new int[maxWeight + 1];
+        _next = new int[capacity];
+        _previous = new int[capacity];
+        _distances = new long[capacity];
+        Arrays.fill(_heads, NONE);
+        Arrays.fill(_distances, NOT_QUEUED);
+    }
+
+
+    /**
+     * Returns true if the queue has no entries.
+     *
+     * @return true if the queue is empty
+     */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+
+    /**
+     * Adds the id with the given distance, or moves it to the bucket for the
+     * distance if it is already in the queue with a larger one.
+     *
+     * @param id id to add or update
+     * @param distance new distance of the id
+     */
+    void offer(int id, long distance) {
+        if (_distances[id] == NOT_QUEUED) {
+            // the scan for the next vertex starts from the lowest distance
+            // that can be in the queue
+            if (_size == 0 || distance < _current) {
+                _current = distance;
+            }
+            _size++;
+            link(id, distance);
+        }
+        else if (distance < _distances[id]) {
+            _current = Math.min(_current, distance);
+            unlink(id);
+            link(id, distance);
+        }
+    }
+
+
+    /**
+     * Removes and returns an id with the smallest distance. The queue must
+     * not be empty.
+     *
+     * @return an id with the smallest distance
+     */
+    int poll() {
+        int bucket = (int) (_current % _heads.length);
+
+        while (_heads[bucket] == NONE) {
+            _current++;
+            bucket = bucket + 1 == _heads.length ? 0 : bucket + 1;
+        }
+
+        int id = _heads[bucket];
+        unlink(id);
+        _distances[id] = NOT_QUEUED;
+        _size--;
+
+        return id;
+    }
+
+
+    /**
+     * Removes every entry from the queue.
+     */
+    void clear() {
+        for (int bucket = 0; _size > 0 && bucket < _heads.length; bucket++) {
+            while (_heads[bucket] != NONE) {
+                int id = _heads[bucket];
+                unlink(id);
+                _distances[id] = NOT_QUEUED;
+                _size--;
+            }
+        }
+    }
+
+
+    /**
+     * Puts the id at the front of the bucket for the given distance.
+     *
+     * @param id id to add
+     * @param distance distance of the id
+     */
+    private void link(int id, long distance) {
+        int bucket = (int) (distance % _heads.length);
+
+        _distances[id] = distance;
+        _previous[id] = NONE;
+        _next[id] = _heads[bucket];
+        if (_heads[bucket] != NONE) {
+            _previous[_heads[bucket]] = id;
+        }
+        _heads[bucket] = id;
+    }
+
+
+    /**
+     * Takes the id out of the bucket it is in.
+     *
+     * @param id id to remove
+     */
+    private void unlink(int id) {
+        if (_previous[id] != NONE) {
+            _next[_previous[id]] = _next[id];
+        }
+        else {
+            _heads[(int) (_distances[id] % _heads.length)] = _next[id];
+        }
+        if (_next[id] != NONE) {
+            _previous[_next[id]] = _previous[id];
+        }
+    }
+}
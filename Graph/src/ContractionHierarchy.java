@@ -0,0 +1,803 @@
+import java.util.*;
+
+/**
+ * Contraction hierarchy over a graph, answering shortest path queries far
+ * faster than a plain Dijkstra search on large graphs that rarely change,
+ * such as road networks.
+ *
+ * Building the hierarchy contracts the vertices one at a time from least to
+ * most important. Contracting a vertex takes it out of the graph, and every
+ * shortest path that ran through it is kept by adding a shortcut edge
+ * between its neighbors, unless a witness search finds another path that is
+ * no longer. A shortcut remembers the vertex it skips, so a path of
+ * shortcuts can always be unpacked into edges of the original graph. The
+ * next vertex to contract is the one with the lowest edge difference, the
+ * number of shortcuts its contraction would add minus the number of edges it
+ * would remove, plus the number of its neighbors already contracted to keep
+ * the contraction spread evenly over the graph. Priorities are updated
+ * lazily: a vertex's priority is worked out again when it reaches the front
+ * of the queue, and it goes back in if it is no longer the lowest.
+ *
+ * A query searches forward from the source and backward from the
+ * destination, each only ever following edges to vertices contracted later.
+ * Those upward searches meet at the most important vertex on the shortest
+ * path and settle only a small fraction of the graph.
+ *
+ * The hierarchy describes the graph as it was when built and must be rebuilt
+ * after the graph changes. Queries keep their working arrays per thread, so
+ * several threads may query the same hierarchy at once.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public class ContractionHierarchy<T> {
+    private static final long UNREACHED = DijkstraSearch.UNREACHED;
+    private static final int NO_VERTEX = -1;
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private ArrayList<T> _vertices;
+    private HashMap<T, Integer> _vertexIds;
+    private boolean _isDirected;
+    private int[] _ranks;
+    private int _shortcutCount;
+
+    // edges from each vertex to more important ones, for the forward search
+    private int[] _upOffsets;
+    private int[] _upTargets;
+    private int[] _upWeights;
+    private int[] _upMiddles;
+
+    // edges into each vertex from more important ones, for the backward
+    // search; the same arrays as the upward edges in an undirected graph
+    private int[] _downOffsets;
+    private int[] _downSources;
+    private int[] _downWeights;
+    private int[] _downMiddles;
+
+    // state used only while building
+    private AdjacencyMap[] _outEdges;
+    private AdjacencyMap[] _inEdges;
+    private AdjacencyMap[] _middles;
+    private long[] _witnessDistances;
+    private IndexedMinHeap _witnessFrontier;
+    private int[] _witnessTouched;
+    private int _witnessTouchedCount;
+
+    private ThreadLocal<Query> _queries;
+
+    /**
+     * Builds the contraction hierarchy of the given graph.
+     *
+     * @param graph graph to build the hierarchy of
+     * @throws IllegalStateException if a shortcut would weigh more than
+     * Integer.MAX_VALUE
+     */
+    public ContractionHierarchy(AbstractGraph<T> graph)
+            throws IllegalStateException {
+        final int idBound = graph.getVertexIdBound();
+        int[][] upEdges = new int[idBound][];
+        int[][] downEdges = new int[idBound][];
+
+        _vertices = new ArrayList<>(idBound);
+        _vertexIds = new HashMap<>();
+        for (int i = 0; i < idBound; i++) {
+            _vertices.add(graph.vertexOf(i));
+            if (graph.vertexOf(i) != null) {
+                _vertexIds.put(graph.vertexOf(i), i);
+            }
+        }
+        _isDirected = graph.isDirected();
+        _ranks = new int[idBound];
+        Arrays.fill(_ranks, NO_VERTEX);
+
+        copyGraph(graph);
+        contractAll(upEdges, downEdges);
+        _upOffsets = new int[idBound + 1];
+        _upTargets = flatten(upEdges, 0, _upOffsets);
+        _upWeights = flatten(upEdges, 1, _upOffsets);
+        _upMiddles = flatten(upEdges, 2, _upOffsets);
+        if (_isDirected) {
+            _downOffsets = new int[idBound + 1];
+            _downSources = flatten(downEdges, 0, _downOffsets);
+            _downWeights = flatten(downEdges, 1, _downOffsets);
+            _downMiddles = flatten(downEdges, 2, _downOffsets);
+        }
+        else {
+            _downOffsets = _upOffsets;
+            _downSources = _upTargets;
+            _downWeights = _upWeights;
+            _downMiddles = _upMiddles;
+        }
+
+        // the working graph is no longer needed
+        _outEdges = null;
+        _inEdges = null;
+        _middles = null;
+        _witnessDistances = null;
+        _witnessFrontier = null;
+        _witnessTouched = null;
+
+        _queries = new ThreadLocal<Query>() {
+            protected Query initialValue() {
+                return new Query(idBound);
+            }
+        };
+    }
+
+
+    /**
+     * Finds the shortest path between the source and the destination.
+     * Returns null if no path exists.
+     *
+     * @param source vertex to try to find the shortest path from
+     * @param destination vertex to try to find the shortest path to
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the given source to the given
+     * destination
+     * @throws NoSuchElementException if either vertex is not in the graph
+     */
+    public List<Graph.Edge<T>> shortestPathBetween(T source, T destination)
+            throws NoSuchElementException {
+        Query query = _queries.get();
+        List<Graph.Edge<T>> shortestPath = null;
+
+        if (query.search(vertexId(source), vertexId(destination))) {
+            shortestPath = unpack(query.getPathIds());
+        }
+
+        return shortestPath;
+    }
+
+
+    /**
+     * Returns the length of the shortest path between the source and the
+     * destination, or -1 if no path exists. This skips unpacking the
+     * shortcuts, so it is cheaper than finding the path itself.
+     *
+     * @param source vertex the path starts from
+     * @param destination vertex the path ends at
+     * @return length of the shortest path, or -1 if there is none
+     * @throws NoSuchElementException if either vertex is not in the graph
+     */
+    public long distanceBetween(T source, T destination)
+            throws NoSuchElementException {
+        Query query = _queries.get();
+        long distance = -1;
+
+        if (query.search(vertexId(source), vertexId(destination))) {
+            distance = query.getBestLength();
+        }
+
+        return distance;
+    }
+
+
+    /**
+     * Returns the number of shortcuts added while building the hierarchy.
+     *
+     * @return the number of shortcuts
+     */
+    public int getShortcutCount() {
+        return _shortcutCount;
+    }
+
+
+    /**
+     * Returns the id of the given vertex.
+     *
+     * @param vertex vertex to look up
+     * @return id of the vertex
+     * @throws NoSuchElementException if the vertex was not in the graph
+     */
+    private int vertexId(T vertex) throws NoSuchElementException {
+        Integer vertexId = _vertexIds.get(vertex);
+
+        if (vertexId == null) {
+            throw new NoSuchElementException();
+        }
+
+        return vertexId;
+    }
+
+
+    /**
+     * Copies the edges of the graph into the working maps that contraction
+     * adds shortcuts to and removes vertices from.
+     *
+     * @param graph graph to copy
+     */
+    private void copyGraph(AbstractGraph<T> graph) {
+        int idBound = graph.getVertexIdBound();
+
+        _outEdges = new AdjacencyMap[idBound];
+        _middles = new AdjacencyMap[idBound];
+        // an undirected graph's edges in and out are the same, so one map
+        // serves for both and a shortcut added one way is added both ways
+        _inEdges = _isDirected ? new AdjacencyMap[idBound] : _outEdges;
+        for (int i = 0; i < idBound; i++) {
+            if (_vertices.get(i) != null) {
+                _outEdges[i] = new AdjacencyMap();
+                _middles[i] = new AdjacencyMap();
+                if (_isDirected) {
+                    _inEdges[i] = new AdjacencyMap();
+                }
+            }
+        }
+
+        for (int i = 0; i < idBound; i++) {
+            for (int slot = graph.firstEdgeSlot(i),
+                 end = graph.endEdgeSlot(i); slot < end; slot++) {
+                int target = graph.edgeTargetAt(i, slot);
+                if (target >= 0) {
+                    _outEdges[i].put(target, graph.edgeWeightAt(i, slot));
+                    _inEdges[target].put(i, graph.edgeWeightAt(i, slot));
+                }
+            }
+        }
+
+        _witnessDistances = new long[idBound];
+        _witnessFrontier = new IndexedMinHeap(idBound);
+        _witnessTouched = new int[idBound];
+        Arrays.fill(_witnessDistances, UNREACHED);
+    }
+
+
+    /**
+     * Contracts every vertex in order of priority, recording the edges each
+     * one has to more important vertices when it is contracted.
+     *
+     * @param upEdges filled with the targets, weights and middles of the
+     *                edges leaving each vertex
+     * @param downEdges filled with the sources, weights and middles of the
+     *                  edges coming into each vertex
+     */
+    private void contractAll(int[][] upEdges, int[][] downEdges) {
+        IndexedMinHeap order = new IndexedMinHeap(_vertices.size());
+        int[] contractedNeighbors = new int[_vertices.size()];
+        int rank = 0;
+
+        for (int i = 0; i < _vertices.size(); i++) {
+            if (_vertices.get(i) != null) {
+                order.offer(i, priority(i, contractedNeighbors));
+            }
+        }
+
+        while (!order.isEmpty()) {
+            int vertex = order.poll();
+
+            // contracting other vertices may have made this one worse to
+            // contract than the next in line, in which case it waits
+            long priority = priority(vertex, contractedNeighbors);
+            if (!order.isEmpty() && priority > order.peekKey()) {
+                order.offer(vertex, priority);
+                continue;
+            }
+
+            upEdges[vertex] = edgesOf(_outEdges[vertex], vertex, true);
+            downEdges[vertex] = edgesOf(_inEdges[vertex], vertex, false);
+            contract(vertex, false);
+            _ranks[vertex] = rank++;
+
+            // take the vertex out of the working graph
+            for (int i = 0; i < upEdges[vertex].length; i += 3) {
+                _inEdges[upEdges[vertex][i]].remove(vertex);
+                contractedNeighbors[upEdges[vertex][i]]++;
+            }
+            for (int i = 0; i < downEdges[vertex].length; i += 3) {
+                _outEdges[downEdges[vertex][i]].remove(vertex);
+                _middles[downEdges[vertex][i]].remove(vertex);
+                if (_isDirected) {
+                    contractedNeighbors[downEdges[vertex][i]]++;
+                }
+            }
+            _outEdges[vertex] = null;
+            _inEdges[vertex] = null;
+            _middles[vertex] = null;
+        }
+    }
+
+
+    /**
+     * Returns how soon the given vertex should be contracted: its edge
+     * difference plus the number of its neighbors already contracted.
+     * Lower is sooner.
+     *
+     * @param vertex id of the vertex
+     * @param contractedNeighbors number of contracted neighbors of each
+     *                            vertex
+     * @return priority of the vertex
+     */
+    private long priority(int vertex, int[] contractedNeighbors) {
+        int removedEdges = _outEdges[vertex].size();
+
+        if (_isDirected) {
+            removedEdges += _inEdges[vertex].size();
+        }
+
+        return (long) contract(vertex, true) - removedEdges +
+                contractedNeighbors[vertex];
+    }
+
+
+    /**
+     * Finds the shortcuts needed to contract the given vertex, and adds them
+     * unless only counting.
+     *
+     * @param vertex id of the vertex to contract
+     * @param isSimulated true to only count the shortcuts
+     * @return the number of shortcuts needed
+     * @throws IllegalStateException if a shortcut would weigh more than
+     * Integer.MAX_VALUE
+     */
+    private int contract(int vertex, boolean isSimulated)
+            throws IllegalStateException {
+        int[] inEdges = edgesOf(_inEdges[vertex], vertex, false);
+        int[] outEdges = edgesOf(_outEdges[vertex], vertex, true);
+        int maxOutWeight = 0;
+        int shortcutCount = 0;
+
+        for (int i = 1; i < outEdges.length; i += 3) {
+            maxOutWeight = Math.max(maxOutWeight, outEdges[i]);
+        }
+
+        // a path from each neighbor in to each neighbor out through the
+        // vertex needs a shortcut unless something else is no longer
+        for (int i = 0; i < inEdges.length; i += 3) {
+            int source = inEdges[i];
+            findWitnesses(source, vertex, (long) inEdges[i + 1] +
+                    maxOutWeight);
+            for (int j = 0; j < outEdges.length; j += 3) {
+                int target = outEdges[j];
+                long viaWeight = (long) inEdges[i + 1] + outEdges[j + 1];
+                // an undirected pair only needs checking one way round
+                if (target != source && (_isDirected || source < target) &&
+                        _witnessDistances[target] > viaWeight) {
+                    shortcutCount++;
+                    if (!isSimulated) {
+                        addShortcut(source, target, viaWeight, vertex);
+                    }
+                }
+            }
+        }
+        resetWitnesses();
+
+        return shortcutCount;
+    }
+
+
+    /**
+     * Adds a shortcut between two vertices that skips the given middle
+     * vertex, unless an edge between them is already at least as short.
+     *
+     * @param source id of the vertex the shortcut leaves
+     * @param target id of the vertex the shortcut enters
+     * @param weight length of the path the shortcut replaces
+     * @param middle id of the vertex the shortcut skips
+     * @throws IllegalStateException if the weight does not fit in an int
+     */
+    private void addShortcut(int source, int target, long weight,
+                             int middle) throws IllegalStateException {
+        int slot = _outEdges[source].indexOf(target);
+
+        if (weight > Integer.MAX_VALUE) {
+            throw new IllegalStateException();
+        }
+
+        if (slot < 0 || _outEdges[source].weightAt(slot) > weight) {
+            _outEdges[source].put(target, (int) weight);
+            _inEdges[target].put(source, (int) weight);
+            _middles[source].put(target, middle);
+            if (!_isDirected) {
+                _middles[target].put(source, middle);
+            }
+            _shortcutCount++;
+        }
+    }
+
+
+    /**
+     * Runs a bounded Dijkstra search from the given vertex around the one
+     * being contracted, leaving the distances found in the witness arrays.
+     * The search stops past the given distance or after a fixed number of
+     * vertices, so a witness can be missed; that only costs an unneeded
+     * shortcut.
+     *
+     * @param source id of the vertex to search from
+     * @param excluded id of the vertex being contracted
+     * @param maxDistance longest path worth finding
+     */
+    private void findWitnesses(int source, int excluded, long maxDistance) {
+        int settledCount = 0;
+
+        resetWitnesses();
+        touchWitness(source, 0);
+
+        while (!_witnessFrontier.isEmpty() &&
+                _witnessFrontier.peekKey() <= maxDistance &&
+                settledCount < WITNESS_SETTLE_LIMIT) {
+            int currentVertex = _witnessFrontier.poll();
+            AdjacencyMap edges = _outEdges[currentVertex];
+            settledCount++;
+
+            for (int slot = 0; slot < edges.capacity(); slot++) {
+                int neighbor = edges.keyAt(slot);
+                if (neighbor >= 0 && neighbor != excluded) {
+                    long pathWeight = _witnessDistances[currentVertex] +
+                            edges.weightAt(slot);
+                    if (pathWeight < _witnessDistances[neighbor]) {
+                        touchWitness(neighbor, pathWeight);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Lowers a vertex's witness distance and puts it on the frontier.
+     *
+     * @param vertex id of the vertex
+     * @param distance new distance to the vertex
+     */
+    private void touchWitness(int vertex, long distance) {
+        if (_witnessDistances[vertex] == UNREACHED) {
+            _witnessTouched[_witnessTouchedCount++] = vertex;
+        }
+        _witnessDistances[vertex] = distance;
+        _witnessFrontier.offer(vertex, distance);
+    }
+
+
+    /**
+     * Clears the distances left by the last witness search, in time
+     * proportional to the number of vertices it reached.
+     */
+    private void resetWitnesses() {
+        for (int i = 0; i < _witnessTouchedCount; i++) {
+            _witnessDistances[_witnessTouched[i]] = UNREACHED;
+        }
+        _witnessTouchedCount = 0;
+        _witnessFrontier.clear();
+    }
+
+
+    /**
+     * Returns the edges in the given working map as consecutive triples of
+     * other end, weight and middle vertex, the middle being -1 for an edge
+     * of the original graph.
+     *
+     * @param edges working map of edges leaving or entering the vertex
+     * @param vertex id of the vertex the map belongs to
+     * @param isOutgoing true if the map holds edges leaving the vertex
+     * @return other end, weight and middle of each edge
+     */
+    private int[] edgesOf(AdjacencyMap edges, int vertex,
+                          boolean isOutgoing) {
+        int[] triples = new int[edges.size() * 3];
+        int count = 0;
+
+        for (int slot = 0; slot < edges.capacity(); slot++) {
+            int other = edges.keyAt(slot);
+            if (other >= 0) {
+                AdjacencyMap middles = isOutgoing ? _middles[vertex] :
+                        _middles[other];
+                int middleSlot = middles.indexOf(isOutgoing ? other : vertex);
+                triples[count++] = other;
+                triples[count++] = edges.weightAt(slot);
+                triples[count++] = middleSlot >= 0 ?
+                        middles.weightAt(middleSlot) : NO_VERTEX;
+            }
+        }
+
+        return triples;
+    }
+
+
+    /**
+     * Packs one field of every vertex's recorded edges into a single array,
+     * filling in where each vertex's edges start.
+     *
+     * @param edges triples recorded for each vertex, null for unused ids
+     * @param field 0, 1 or 2 for the other end, weight or middle
+     * @param offsets filled with the start of each vertex's edges
+     * @return the field of every edge, grouped by vertex
+     */
+    private static int[] flatten(int[][] edges, int field, int[] offsets) {
+        int total = 0;
+
+        for (int i = 0; i < edges.length; i++) {
+            offsets[i] = total;
+            total += edges[i] == null ? 0 : edges[i].length / 3;
+        }
+        offsets[edges.length] = total;
+
+        int[] flat = new int[total];
+        for (int i = 0; i < edges.length; i++) {
+            for (int j = 0; edges[i] != null && j < edges[i].length; j += 3) {
+                flat[offsets[i] + j / 3] = edges[i][j + field];
+            }
+        }
+
+        return flat;
+    }
+
+
+    /**
+     * Turns a path through the hierarchy into the edges of the original
+     * graph, replacing each shortcut by the two edges it stands for until
+     * none are left.
+     *
+     * @param pathIds ids of the vertices along a path in the hierarchy
+     * @return list of the original edges along the path
+     */
+    private List<Graph.Edge<T>> unpack(int[] pathIds) {
+        List<Graph.Edge<T>> path = new ArrayList<>();
+        ArrayDeque<int[]> pending = new ArrayDeque<>();
+
+        // pushing the edges last to first makes them come off the stack in
+        // order, and a shortcut's two halves are pushed the same way
+        for (int i = pathIds.length - 1; i > 0; i--) {
+            pending.push(new int[] {pathIds[i - 1], pathIds[i]});
+        }
+
+        while (!pending.isEmpty()) {
+            int[] edge = pending.pop();
+            int index = edgeIndex(edge[0], edge[1]);
+            boolean isUpward = _ranks[edge[0]] < _ranks[edge[1]];
+            int middle = isUpward ? _upMiddles[index] : _downMiddles[index];
+            if (middle == NO_VERTEX) {
+                path.add(new Graph.Edge<>(_vertices.get(edge[0]),
+                        _vertices.get(edge[1]), isUpward ?
+                        _upWeights[index] : _downWeights[index]));
+            }
+            else {
+                pending.push(new int[] {middle, edge[1]});
+                pending.push(new int[] {edge[0], middle});
+            }
+        }
+
+        return path;
+    }
+
+
+    /**
+     * Returns where the edge between the two vertices is kept: among the
+     * upward edges of the source if the target is more important, and
+     * among the downward edges of the target otherwise.
+     *
+     * @param source id of the vertex the edge leaves
+     * @param target id of the vertex the edge enters
+     * @return index of the edge in the upward or downward arrays
+     */
+    private int edgeIndex(int source, int target) {
+        int index;
+
+        if (_ranks[source] < _ranks[target]) {
+            index = _upOffsets[source];
+            while (_upTargets[index] != target) {
+                index++;
+            }
+        }
+        else {
+            index = _downOffsets[target];
+            while (_downSources[index] != source) {
+                index++;
+            }
+        }
+
+        return index;
+    }
+
+
+    /**
+     * Working arrays for one thread's queries. Only the entries a search
+     * reaches are reset afterward, so a query costs nothing in proportion
+     * to the size of the graph.
+     */
+    private class Query {
+        private long[] _forwardDistances;
+        private long[] _backwardDistances;
+        private int[] _predecessors;
+        private int[] _successors;
+        private IndexedMinHeap _forwardFrontier;
+        private IndexedMinHeap _backwardFrontier;
+        private int[] _touched;
+        private int _touchedCount;
+        private long _bestLength;
+        private int _meetingVertex;
+
+        /**
+         * Constructs the working arrays for a graph with the given number of
+         * vertex ids.
+         *
+         * @param idBound number of vertex ids in the graph
+         */
+        Query(int idBound) {
+            _forwardDistances = new long[idBound];
+            _backwardDistances = new long[idBound];
+            _predecessors = new int[idBound];
+            _successors = new int[idBound];
+            _forwardFrontier = new IndexedMinHeap(idBound);
+            _backwardFrontier = new IndexedMinHeap(idBound);
+            _touched = new int[idBound];
+            Arrays.fill(_forwardDistances, UNREACHED);
+            Arrays.fill(_backwardDistances, UNREACHED);
+            Arrays.fill(_predecessors, NO_VERTEX);
+            Arrays.fill(_successors, NO_VERTEX);
+        }
+
+
+        /**
+         * Searches upward from both ends for the shortest path from the
+         * source to the target.
+         *
+         * @param source id of the vertex to search from
+         * @param target id of the vertex to search to
+         * @return true if a path was found
+         */
+        boolean search(int source, int target) {
+            reset();
+            _bestLength = UNREACHED;
+            _meetingVertex = NO_VERTEX;
+
+            touch(source);
+            _forwardDistances[source] = 0;
+            _forwardFrontier.offer(source, 0);
+            touch(target);
+            _backwardDistances[target] = 0;
+            _backwardFrontier.offer(target, 0);
+            considerMeeting(source);
+
+            // neither side can stop at the first meeting, since the top of
+            // the shortest path may lie above it; a side is done once its
+            // closest vertex is no closer than the best path
+            while (true) {
+                long forwardKey = _forwardFrontier.isEmpty() ? UNREACHED :
+                        _forwardFrontier.peekKey();
+                long backwardKey = _backwardFrontier.isEmpty() ? UNREACHED :
+                        _backwardFrontier.peekKey();
+                if (Math.min(forwardKey, backwardKey) >= _bestLength) {
+                    break;
+                }
+                if (forwardKey <= backwardKey) {
+                    int vertex = _forwardFrontier.poll();
+                    for (int i = _upOffsets[vertex];
+                         i < _upOffsets[vertex + 1]; i++) {
+                        relax(vertex, _upTargets[i], _upWeights[i],
+                                _forwardDistances, _predecessors,
+                                _forwardFrontier);
+                    }
+                }
+                else {
+                    int vertex = _backwardFrontier.poll();
+                    for (int i = _downOffsets[vertex];
+                         i < _downOffsets[vertex + 1]; i++) {
+                        relax(vertex, _downSources[i], _downWeights[i],
+                                _backwardDistances, _successors,
+                                _backwardFrontier);
+                    }
+                }
+            }
+
+            return _meetingVertex != NO_VERTEX;
+        }
+
+
+        /**
+         * Returns the length of the path found by the last search.
+         *
+         * @return length of the shortest path
+         */
+        long getBestLength() {
+            return _bestLength;
+        }
+
+
+        /**
+         * Returns the ids along the path found by the last search, which
+         * may include shortcuts, from the source to the target.
+         *
+         * @return ids along the path through the hierarchy
+         */
+        int[] getPathIds() {
+            ArrayList<Integer> forward = new ArrayList<>();
+            int[] pathIds;
+            int length = 0;
+
+            for (int vertex = _meetingVertex; vertex != NO_VERTEX;
+                 vertex = _predecessors[vertex]) {
+                forward.add(vertex);
+            }
+            for (int vertex = _successors[_meetingVertex];
+                 vertex != NO_VERTEX; vertex = _successors[vertex]) {
+                length++;
+            }
+
+            pathIds = new int[forward.size() + length];
+            for (int i = 0; i < forward.size(); i++) {
+                pathIds[i] = forward.get(forward.size() - 1 - i);
+            }
+            int index = forward.size();
+            for (int vertex = _successors[_meetingVertex];
+                 vertex != NO_VERTEX; vertex = _successors[vertex]) {
+                pathIds[index++] = vertex;
+            }
+
+            return pathIds;
+        }
+
+
+        /**
+         * Lowers the distance of the neighbor on one side if going through
+         * the settled vertex is shorter.
+         *
+         * @param vertex id of the vertex just settled
+         * @param neighbor id of the vertex at the other end of the edge
+         * @param weight weight of the edge
+         * @param distances distances on this side
+         * @param previous vertex each vertex was reached from on this side
+         * @param frontier frontier on this side
+         */
+        private void relax(int vertex, int neighbor, int weight,
+                           long[] distances, int[] previous,
+                           IndexedMinHeap frontier) {
+            long pathWeight = distances[vertex] + weight;
+
+            if (pathWeight < distances[neighbor]) {
+                touch(neighbor);
+                distances[neighbor] = pathWeight;
+                previous[neighbor] = vertex;
+                frontier.offer(neighbor, pathWeight);
+                considerMeeting(neighbor);
+            }
+        }
+
+
+        /**
+         * Remembers the given vertex as the meeting point if both sides have
+         * reached it and the path through it beats the best one so far.
+         *
+         * @param vertex id of a vertex whose distance just went down
+         */
+        private void considerMeeting(int vertex) {
+            if (_forwardDistances[vertex] != UNREACHED &&
+                    _backwardDistances[vertex] != UNREACHED &&
+                    _forwardDistances[vertex] + _backwardDistances[vertex] <
+                            _bestLength) {
+                _bestLength = _forwardDistances[vertex] +
+                        _backwardDistances[vertex];
+                _meetingVertex = vertex;
+            }
+        }
+
+
+        /**
+         * Notes that the given vertex is about to get a distance, so that it
+         * is cleared before the next search.
+         *
+         * @param vertex id of the vertex
+         */
+        private void touch(int vertex) {
+            if (_forwardDistances[vertex] == UNREACHED &&
+                    _backwardDistances[vertex] == UNREACHED) {
+                _touched[_touchedCount++] = vertex;
+            }
+        }
+
+
+        /**
+         * Clears everything the last search left behind.
+         */
+        private void reset() {
+            for (int i = 0; i < _touchedCount; i++) {
+                int vertex = _touched[i];
+                _forwardDistances[vertex] = UNREACHED;
+                _backwardDistances[vertex] = UNREACHED;
+                _predecessors[vertex] = NO_VERTEX;
+                _successors[vertex] = NO_VERTEX;
+            }
+            _touchedCount = 0;
+            _forwardFrontier.clear();
+            _backwardFrontier.clear();
+        }
+    }
+}
@@ -0,0 +1,490 @@
+import java.util.*;
+
+/**
+ * Immutable snapshot of a graph in compressed sparse row form. Every vertex
+ * is given a dense integer id, and the edges leaving vertex i occupy
+ * positions offsets[i] through offsets[i+1]-1 of the targets and weights
+ * arrays, sorted by target id. This keeps the whole graph in three flat
+ * primitive arrays instead of a map of maps, which is far lighter on the
+ * heap and much friendlier to the cache when walking neighbors.
+ *
+ * Snapshots are built with {@link Graph#freeze()}. Like an undirected
+ * {@link Graph}, an undirected snapshot stores each edge in both directions.
+ * A directed snapshot also keeps a second set of rows listing the edges
+ * coming into each vertex, so that searches can run backwards.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public class CsrGraph<T> extends AbstractGraph<T> {
+    private T[] _vertices;
+    private HashMap<T, Integer> _vertexIds;
+    private int[] _offsets;
+    private int[] _targets;
+    private int[] _weights;
+    private int[] _reverseOffsets;
+    private int[] _sources;
+    private int[] _reverseWeights;
+    private int _maxEdgeWeight;
+    private boolean _isDirected;
+
+    /**
+     * Constructs a snapshot holding the current vertices and edges of the
+     * given graph.
+     *
+     * @param graph graph to copy
+     */
+    @SuppressWarnings("unchecked")
+    CsrGraph(AbstractGraph<T> graph) {
+        List<T> vertices = graph.getVertices();
+        int numVertices = vertices.size();
+        int edgeIndex = 0;
+        long[] row;
+
+        _isDirected = graph.isDirected();
+        _vertices = (T[]) new Object[numVertices];
+        _vertexIds = new HashMap<>();
+        _offsets = new int[numVertices + 1];
+
+        // hand out the ids in the order the graph lists its vertices
+        for (int i = 0; i < numVertices; i++) {
+            _vertices[i] = vertices.get(i);
+            _vertexIds.put(_vertices[i], i);
+        }
+
+        // count the edges leaving each vertex to lay out the offsets
+        for (int i = 0; i < numVertices; i++) {
+            _offsets[i + 1] = _offsets[i] +
+                    graph.getNeighbors(_vertices[i]).size();
+        }
+
+        _targets = new int[_offsets[numVertices]];
+        _weights = new int[_offsets[numVertices]];
+
+        // fill each row, sorted by target id so that edges can be found by
+        // binary search. Target and weight are packed together so that one
+        // primitive sort keeps them paired.
+        for (int i = 0; i < numVertices; i++) {
+            row = new long[_offsets[i + 1] - _offsets[i]];
+            int rowIndex = 0;
+            for (T destination : graph.getNeighbors(_vertices[i])) {
+                row[rowIndex++] = ((long) _vertexIds.get(destination) << 32)
+                        | graph.getEdgeWeight(_vertices[i], destination);
+            }
+            Arrays.sort(row);
+
+            for (long packedEdge : row) {
+                _targets[edgeIndex] = (int) (packedEdge >>> 32);
+                _weights[edgeIndex] = (int) packedEdge;
+                _maxEdgeWeight = Math.max(_maxEdgeWeight,
+                        _weights[edgeIndex]);
+                edgeIndex++;
+            }
+        }
+
+        // an undirected snapshot's rows already list the edges coming into
+        // each vertex
+        if (!_isDirected) {
+            _reverseOffsets = _offsets;
+            _sources = _targets;
+            _reverseWeights = _weights;
+        }
+        else {
+            buildReverseRows();
+        }
+    }
+
+
+    /**
+     * Returns true if this graph is directed, false if it is undirected.
+     *
+     * @return directedness of the graph
+     */
+    public boolean isDirected() {
+        return _isDirected;
+    }
+
+
+    /**
+     * Returns a sequence of the graph's vertices.
+     *
+     * @return a sequence of the graph's vertices.
+     */
+    public List<T> getVertices() {
+        return new ArrayList<>(Arrays.asList(_vertices));
+    }
+
+
+    /**
+     * Returns the number of vertices in the graph.
+     *
+     * @return the number of vertices in the graph
+     */
+    public int getVertexCount() {
+        return _vertices.length;
+    }
+
+
+    /**
+     * Returns the id of the given vertex, or -1 if it is not in the graph.
+     *
+     * @param vertex vertex to look up
+     * @return the id of the vertex, or -1 if it does not exist
+     */
+    public int idOf(T vertex) {
+        final int NONEXISTENT_VERTEX = -1;
+        Integer vertexId = _vertexIds.get(vertex);
+
+        return vertexId == null ? NONEXISTENT_VERTEX : vertexId;
+    }
+
+
+    /**
+     * Returns the vertex with the given id, or null if no vertex has it.
+     *
+     * @param vertexId id to look up
+     * @return the vertex with that id, or null if it does not exist
+     */
+    public T vertexOf(int vertexId) {
+        T vertex = null;
+
+        if (vertexId >= 0 && vertexId < _vertices.length) {
+            vertex = _vertices[vertexId];
+        }
+
+        return vertex;
+    }
+
+
+    /**
+     * Returns one more than the largest vertex id. Snapshot ids are dense,
+     * so this is the same as the vertex count.
+     *
+     * @return upper bound, exclusive, on the ids in the graph
+     */
+    public int getVertexIdBound() {
+        return _vertices.length;
+    }
+
+
+    /**
+     * Returns the weight of the edge that goes from the given source vertex
+     * to the given destination vertex, or -1 if no such edge is present.
+     *
+     * @param source vertex that the given edge begins from
+     * @param destination vertex that the given edge ends at
+     * @return integer weight of the given edge, or -1 if it does not exist
+     */
+    public int getEdgeWeight(T source, T destination) {
+        return getEdgeWeight(idOf(source), idOf(destination));
+    }
+
+
+    /**
+     * Returns the weight of the edge that goes from the vertex with the
+     * given source id to the vertex with the given destination id, or -1 if
+     * no such edge is present.
+     *
+     * @param source id of the vertex that the given edge begins from
+     * @param destination id of the vertex that the given edge ends at
+     * @return integer weight of the given edge, or -1 if it does not exist
+     */
+    public int getEdgeWeight(int source, int destination) {
+        final int NONEXISTENT_EDGE = -1;
+        int returnWeight = NONEXISTENT_EDGE;
+        int edgeIndex = findEdge(source, destination);
+
+        if (edgeIndex >= 0) {
+            returnWeight = _weights[edgeIndex];
+        }
+
+        return returnWeight;
+    }
+
+
+    /**
+     * Returns true if the edge exists, false if not.
+     *
+     * @param source vertex that the given edge begins from
+     * @param destination vertex that the given edge ends at
+     * @return boolean representing existence
+     */
+    public boolean edgeExists(T source, T destination) {
+        return edgeExists(idOf(source), idOf(destination));
+    }
+
+
+    /**
+     * Returns true if the edge between the vertices with the given ids
+     * exists, false if not.
+     *
+     * @param source id of the vertex that the given edge begins from
+     * @param destination id of the vertex that the given edge ends at
+     * @return boolean representing existence
+     */
+    public boolean edgeExists(int source, int destination) {
+        return findEdge(source, destination) >= 0;
+    }
+
+
+    /**
+     * String representation of the graph.
+     *
+     * @return representation of graph in string form
+     */
+    public String toString() {
+        StringBuilder graphString = new StringBuilder();
+
+        graphString.append("Directed: ").append(_isDirected).append(" {");
+        for (int i = 0; i < _vertices.length; i++) {
+            if (i > 0) {
+                graphString.append(", ");
+            }
+            graphString.append(_vertices[i]).append("={");
+            for (int j = _offsets[i]; j < _offsets[i + 1]; j++) {
+                if (j > _offsets[i]) {
+                    graphString.append(", ");
+                }
+                graphString.append(_vertices[_targets[j]]).append('=')
+                        .append(_weights[j]);
+            }
+            graphString.append('}');
+        }
+        graphString.append('}');
+
+        return graphString.toString();
+    }
+
+
+    /**
+     * Returns true if the vertex is in the graph, false otherwise.
+     *
+     * @param vertex vertex to check existence of
+     * @return true if vertex is in the graph, false otherwise.
+     */
+    protected boolean vertexExists(T vertex) {
+        return _vertexIds.containsKey(vertex);
+    }
+
+
+    /**
+     * Returns the destinations of every edge leaving the given vertex, as a
+     * view over that vertex's row. The vertex is assumed to be in the graph.
+     *
+     * @param vertex vertex whose neighbors to return
+     * @return the vertices that the given vertex has an edge going to
+     */
+    protected Collection<T> getNeighbors(T vertex) {
+        final int rowStart = _offsets[_vertexIds.get(vertex)];
+        final int rowEnd = _offsets[_vertexIds.get(vertex) + 1];
+
+        return new AbstractList<T>() {
+            public T get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException();
+                }
+                return _vertices[_targets[rowStart + index]];
+            }
+
+            public int size() {
+                return rowEnd - rowStart;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the position of the vertex's first edge in the targets and
+     * weights arrays.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return first slot of the vertex's edges
+     */
+    protected int firstEdgeSlot(int vertexId) {
+        return _offsets[vertexId];
+    }
+
+
+    /**
+     * Returns the position just past the vertex's last edge in the targets
+     * and weights arrays.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return end slot, exclusive, of the vertex's edges
+     */
+    protected int endEdgeSlot(int vertexId) {
+        return _offsets[vertexId + 1];
+    }
+
+
+    /**
+     * Returns the destination id of the edge at the given position. Rows
+     * have no gaps, so this is never -1.
+     *
+     * @param vertexId id of the vertex the edge leaves
+     * @param slot position of the edge
+     * @return id of the edge's destination
+     */
+    protected int edgeTargetAt(int vertexId, int slot) {
+        return _targets[slot];
+    }
+
+
+    /**
+     * Returns the weight of the edge at the given position.
+     *
+     * @param vertexId id of the vertex the edge leaves
+     * @param slot position of the edge
+     * @return weight of the edge
+     */
+    protected int edgeWeightAt(int vertexId, int slot) {
+        return _weights[slot];
+    }
+
+
+    /**
+     * Returns the position of the vertex's first incoming edge in the
+     * sources and reverse weights arrays.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return first slot of the vertex's incoming edges
+     */
+    protected int firstInEdgeSlot(int vertexId) {
+        return _reverseOffsets[vertexId];
+    }
+
+
+    /**
+     * Returns the position just past the vertex's last incoming edge in the
+     * sources and reverse weights arrays.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return end slot, exclusive, of the vertex's incoming edges
+     */
+    protected int endInEdgeSlot(int vertexId) {
+        return _reverseOffsets[vertexId + 1];
+    }
+
+
+    /**
+     * Returns the source id of the incoming edge at the given position.
+     * Rows have no gaps, so this is never -1.
+     *
+     * @param vertexId id of the vertex the edge enters
+     * @param slot position of the edge
+     * @return id of the edge's source
+     */
+    protected int inEdgeSourceAt(int vertexId, int slot) {
+        return _sources[slot];
+    }
+
+
+    /**
+     * Returns the weight of the incoming edge at the given position.
+     *
+     * @param vertexId id of the vertex the edge enters
+     * @param slot position of the edge
+     * @return weight of the edge
+     */
+    protected int inEdgeWeightAt(int vertexId, int slot) {
+        return _reverseWeights[slot];
+    }
+
+
+    /**
+     * Returns a number no smaller than the weight of any edge in the graph.
+     * This is the weight of the heaviest edge, found when the snapshot
+     * was taken.
+     *
+     * @return upper bound on the edge weights
+     */
+    protected int getMaxEdgeWeight() {
+        return _maxEdgeWeight;
+    }
+
+
+    /**
+     * Returns the number of changes made to the graph so far, which is
+     * always 0 as a snapshot cannot be changed.
+     *
+     * @return 0
+     */
+    protected long getChangeCount() {
+        return 0;
+    }
+
+
+    /**
+     * Returns the number of the last change that could have made some path
+     * shorter, which is always 0 as a snapshot cannot be changed.
+     *
+     * @return 0
+     */
+    protected long getLastShorteningChange() {
+        return 0;
+    }
+
+
+    /**
+     * Returns the number of the last change that could have made a path
+     * through the given vertex longer, which is always 0 as a snapshot
+     * cannot be changed.
+     *
+     * @param vertexId id of the vertex
+     * @return 0
+     */
+    protected long getLastLengtheningChange(int vertexId) {
+        return 0;
+    }
+
+
+    /**
+     * Lays out the rows of incoming edges from the outgoing ones. Walking
+     * the sources in id order leaves every row sorted by source id.
+     */
+    private void buildReverseRows() {
+        int numVertices = _vertices.length;
+        int[] nextSlot;
+
+        // count the edges coming into each vertex to lay out the offsets
+        _reverseOffsets = new int[numVertices + 1];
+        for (int target : _targets) {
+            _reverseOffsets[target + 1]++;
+        }
+        for (int i = 0; i < numVertices; i++) {
+            _reverseOffsets[i + 1] += _reverseOffsets[i];
+        }
+
+        _sources = new int[_targets.length];
+        _reverseWeights = new int[_targets.length];
+        nextSlot = Arrays.copyOf(_reverseOffsets, numVertices);
+
+        for (int source = 0; source < numVertices; source++) {
+            for (int i = _offsets[source]; i < _offsets[source + 1]; i++) {
+                int slot = nextSlot[_targets[i]]++;
+                _sources[slot] = source;
+                _reverseWeights[slot] = _weights[i];
+            }
+        }
+    }
+
+
+    /**
+     * Finds the position of the given edge in the targets and weights
+     * arrays.
+     *
+     * @param source id of the vertex that the edge begins from
+     * @param destination id of the vertex that the edge ends at
+     * @return index of the edge, or a negative number if it does not exist
+     */
+    private int findEdge(int source, int destination) {
+        int edgeIndex = -1;
+
+        // both vertices have to exist before there is a row to search
+        if (vertexOf(source) != null && vertexOf(destination) != null) {
+            edgeIndex = Arrays.binarySearch(_targets, _offsets[source],
+                    _offsets[source + 1], destination);
+        }
+
+        return edgeIndex;
+    }
+}
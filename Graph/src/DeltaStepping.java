@@ -0,0 +1,351 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Delta-stepping single source shortest paths, which relaxes many vertices'
+ * edges at once across all cores instead of settling one vertex at a time.
+ *
+ * Vertices are kept in buckets of width delta by tentative distance, and
+ * the lowest non-empty bucket is worked on until it stays empty. Edges no
+ * heavier than delta, the light edges, can put a vertex back into the same
+ * bucket, so the light edges of everything in the bucket are relaxed in
+ * parallel rounds until no distance in the bucket changes. The heavy edges
+ * can only reach later buckets, so they are relaxed once, in parallel, for
+ * every vertex the bucket ended up holding. Distances are lowered with a
+ * compare-and-set, so two threads relaxing edges into the same vertex
+ * always leave the smaller distance.
+ *
+ * The distances found are exactly the ones Dijkstra's algorithm finds.
+ * Predecessors are not tracked during the search, where racing updates
+ * would make them depend on thread timing; they are picked afterward from
+ * each vertex's incoming edges instead. A small delta does little work per
+ * round but needs many rounds; a delta around the largest edge weight
+ * divided by the average degree is a good place to start.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class DeltaStepping<T> {
+    private static final long UNREACHED = DijkstraSearch.UNREACHED;
+    private static final int NO_PREDECESSOR = DijkstraSearch.NO_PREDECESSOR;
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private AbstractGraph<T> _graph;
+    private long _delta;
+    private AtomicLongArray _distances;
+    private AtomicIntegerArray _isUpdated;
+    private int[] _updated;
+    private AtomicInteger _updatedCount;
+    private int[] _bucketStamps;
+    private int _bucketStamp;
+    private TreeMap<Long, Bucket> _buckets;
+
+    /**
+     * Constructs a search over the given graph with the given bucket width.
+     *
+     * @param graph graph to search
+     * @param delta width of each bucket of distances
+     */
+    DeltaStepping(AbstractGraph<T> graph, int delta) {
+        int idBound = graph.getVertexIdBound();
+
+        _graph = graph;
+        _delta = delta;
+        _distances = new AtomicLongArray(idBound);
+        _isUpdated = new AtomicIntegerArray(idBound);
+        _updated = new int[idBound];
+        _updatedCount = new AtomicInteger();
+        _bucketStamps = new int[idBound];
+        _buckets = new TreeMap<>();
+    }
+
+
+    /**
+     * Finds the distance from the source to every vertex it can reach.
+     *
+     * @param source id of the vertex to search from
+     */
+    void search(int source) {
+        int idBound = _distances.length();
+        int[] frontier = new int[idBound];
+        int[] bucketVertices = new int[idBound];
+
+        for (int i = 0; i < idBound; i++) {
+            _distances.set(i, UNREACHED);
+        }
+        _distances.set(source, 0);
+        _buckets.put(0L, new Bucket(source));
+
+        while (!_buckets.isEmpty()) {
+            Map.Entry<Long, Bucket> entry = _buckets.pollFirstEntry();
+            long bucket = entry.getKey();
+            int bucketSize = 0;
+            int frontierSize = 0;
+            _bucketStamp++;
+
+            // a vertex may have been put in this bucket more than once, or
+            // have moved to an earlier one since
+            Bucket pending = entry.getValue();
+            for (int i = 0; i < pending._size; i++) {
+                int vertex = pending._vertices[i];
+                if (_distances.get(vertex) / _delta == bucket &&
+                        _bucketStamps[vertex] != _bucketStamp) {
+                    _bucketStamps[vertex] = _bucketStamp;
+                    bucketVertices[bucketSize++] = vertex;
+                    frontier[frontierSize++] = vertex;
+                }
+            }
+
+            // relax light edges until nothing new lands in this bucket
+            while (frontierSize > 0) {
+                relaxAll(frontier, frontierSize, true);
+                frontierSize = 0;
+                for (int i = 0, end = collectUpdated(bucket); i < end; i++) {
+                    int vertex = _updated[i];
+                    frontier[frontierSize++] = vertex;
+                    if (_bucketStamps[vertex] != _bucketStamp) {
+                        _bucketStamps[vertex] = _bucketStamp;
+                        bucketVertices[bucketSize++] = vertex;
+                    }
+                }
+            }
+
+            // the bucket's distances are final, and its heavy edges all
+            // lead to later buckets
+            relaxAll(bucketVertices, bucketSize, false);
+            collectUpdated(bucket);
+        }
+    }
+
+
+    /**
+     * Returns the distances found by the last search, indexed by vertex id.
+     * Unreached vertices have {@link DijkstraSearch#UNREACHED}.
+     *
+     * @return distance from the source to every vertex
+     */
+    long[] getDistances() {
+        long[] distances = new long[_distances.length()];
+
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = _distances.get(i);
+        }
+
+        return distances;
+    }
+
+
+    /**
+     * Picks a predecessor for every vertex the last search reached: a
+     * vertex with an edge into it whose distance plus the edge weight is
+     * its own distance. Edges of positive weight are tried first, in
+     * parallel, since following them can never loop. A vertex reachable at
+     * its distance only over edges of weight zero is then given one by a
+     * breadth-first pass over those edges from the vertices already
+     * handled, so that zero weight cycles cannot leave a vertex pointing
+     * around in a circle.
+     *
+     * @param source id of the vertex the last search started from
+     * @return predecessor of every vertex on a shortest path, or
+     * {@link DijkstraSearch#NO_PREDECESSOR} for the source and unreached
+     * vertices
+     */
+    int[] getPredecessors(final int source) {
+        final long[] distances = getDistances();
+        final int[] predecessors = new int[distances.length];
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+
+        Arrays.fill(predecessors, NO_PREDECESSOR);
+        IntStream.range(0, distances.length).parallel().forEach(vertex -> {
+            if (vertex != source && distances[vertex] != UNREACHED) {
+                for (int slot = _graph.firstInEdgeSlot(vertex),
+                     end = _graph.endInEdgeSlot(vertex); slot < end;
+                     slot++) {
+                    int neighbor = _graph.inEdgeSourceAt(vertex, slot);
+                    int weight = _graph.inEdgeWeightAt(vertex, slot);
+                    if (neighbor >= 0 && weight > 0 &&
+                            distances[neighbor] != UNREACHED &&
+                            distances[neighbor] + weight ==
+                                    distances[vertex]) {
+                        predecessors[vertex] = neighbor;
+                        break;
+                    }
+                }
+            }
+        });
+
+        for (int vertex = 0; vertex < distances.length; vertex++) {
+            if (distances[vertex] != UNREACHED && (vertex == source ||
+                    predecessors[vertex] != NO_PREDECESSOR)) {
+                queue[tail++] = vertex;
+            }
+        }
+
+        // only needed when some vertex is still without a predecessor
+        if (tail < countReached(distances)) {
+            while (head < tail) {
+                int vertex = queue[head++];
+                for (int slot = _graph.firstEdgeSlot(vertex),
+                     end = _graph.endEdgeSlot(vertex); slot < end; slot++) {
+                    int neighbor = _graph.edgeTargetAt(vertex, slot);
+                    if (neighbor >= 0 && neighbor != source &&
+                            predecessors[neighbor] == NO_PREDECESSOR &&
+                            _graph.edgeWeightAt(vertex, slot) == 0 &&
+                            distances[neighbor] == distances[vertex]) {
+                        predecessors[neighbor] = vertex;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+
+        return predecessors;
+    }
+
+
+    /**
+     * Relaxes either the light or the heavy edges leaving each of the given
+     * vertices, in parallel if there are enough of them. Every vertex whose
+     * distance goes down is recorded once in the updated list.
+     *
+     * @param vertices ids of the vertices whose edges to relax
+     * @param count number of vertices in the array
+     * @param isLight true for edges no heavier than delta, false for the
+     *                rest
+     */
+    private void relaxAll(final int[] vertices, int count,
+                          final boolean isLight) {
+        IntStream indices = IntStream.range(0, count);
+
+        if (count >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+
+        indices.forEach(i -> {
+            int vertex = vertices[i];
+            long distance = _distances.get(vertex);
+            for (int slot = _graph.firstEdgeSlot(vertex),
+                 end = _graph.endEdgeSlot(vertex); slot < end; slot++) {
+                int neighbor = _graph.edgeTargetAt(vertex, slot);
+                int weight = _graph.edgeWeightAt(vertex, slot);
+                if (neighbor >= 0 && (weight <= _delta) == isLight) {
+                    lower(neighbor, distance + weight);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Lowers the distance of the given vertex if the new one is smaller,
+     * retrying if another thread changes it first.
+     *
+     * @param vertex id of the vertex
+     * @param distance new distance to the vertex
+     */
+    private void lower(int vertex, long distance) {
+        long current = _distances.get(vertex);
+
+        while (distance < current) {
+            if (_distances.compareAndSet(vertex, current, distance)) {
+                if (_isUpdated.compareAndSet(vertex, 0, 1)) {
+                    _updated[_updatedCount.getAndIncrement()] = vertex;
+                }
+                break;
+            }
+            current = _distances.get(vertex);
+        }
+    }
+
+
+    /**
+     * Files every vertex updated since the last call into the bucket for
+     * its new distance. Those that belong in the current bucket are moved
+     * to the front of the updated list instead.
+     *
+     * @param bucket index of the bucket being worked on
+     * @return number of updated vertices in the current bucket, at the
+     * front of the updated list
+     */
+    private int collectUpdated(long bucket) {
+        int count = _updatedCount.get();
+        int inBucket = 0;
+
+        for (int i = 0; i < count; i++) {
+            int vertex = _updated[i];
+            long vertexBucket = _distances.get(vertex) / _delta;
+            _isUpdated.set(vertex, 0);
+            if (vertexBucket == bucket) {
+                _updated[inBucket++] = vertex;
+            }
+            else {
+                Bucket later = _buckets.get(vertexBucket);
+                if (later == null) {
+                    later = new Bucket(vertex);
+                    _buckets.put(vertexBucket, later);
+                }
+                else {
+                    later.add(vertex);
+                }
+            }
+        }
+        _updatedCount.set(0);
+
+        return inBucket;
+    }
+
+
+    /**
+     * Returns the number of vertices the given distances reach.
+     *
+     * @param distances distance to each vertex id
+     * @return number of reached vertices
+     */
+    private static int countReached(long[] distances) {
+        int count = 0;
+
+        for (long distance : distances) {
+            if (distance != UNREACHED) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Growable list of the vertex ids put in one bucket.
+     */
+    private static class Bucket {
+        private int[] _vertices;
+        private int _size;
+
+        /**
+         * Constructs a bucket holding the given vertex.
+         *
+         * @param vertex id of the first vertex in the bucket
+         */
+        Bucket(int vertex) {
+            _vertices = new int[4];
+            _vertices[_size++] = vertex;
+        }
+
+
+        /**
+         * Adds the given vertex to the bucket.
+         *
+         * @param vertex id of the vertex to add
+         */
+        void add(int vertex) {
+            if (_size == _vertices.length) {
+                _vertices = Arrays.copyOf(_vertices, _size * 2);
+            }
+            _vertices[_size++] = vertex;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm over the vertex ids of a graph. The frontier is a
+ * {@link DistanceQueue}, an {@link IndexedMinHeap} unless another is given,
+ * so each vertex sits in it at most once and a shorter route to a vertex
+ * lowers its key in place. Distances and predecessors are kept in arrays
+ * indexed by vertex id, and the same search can be run again from other
+ * sources without reallocating them.
+ *
+ * A backward search follows edges against their direction, finding the
+ * distance from every vertex to the source instead of from it. Its
+ * "predecessor" of a vertex is then the next vertex on the way to the
+ * source.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class DijkstraSearch<T> {
+    static final long UNREACHED = Long.MAX_VALUE;
+    static final int NO_PREDECESSOR = -1;
+
+    private AbstractGraph<T> _graph;
+    private boolean _isBackward;
+    private long[] _distances;
+    private int[] _predecessors;
+    private DistanceQueue _frontier;
+    private int[] _touched;
+    private int _touchedCount;
+    private boolean[] _isTarget;
+    private int _settledCount;
+
+    /**
+     * Constructs a search over the given graph.
+     *
+     * @param graph graph to search
+     */
+    DijkstraSearch(AbstractGraph<T> graph) {
+        this(graph, false);
+    }
+
+
+    /**
+     * Constructs a search over the given graph that runs either along the
+     * edges or against them.
+     *
+     * @param graph graph to search
+     * @param isBackward true to follow edges from their destination to
+     *                   their source
+     */
+    DijkstraSearch(AbstractGraph<T> graph, boolean isBackward) {
+        this(graph, isBackward, new IndexedMinHeap(graph.getVertexIdBound()));
+    }
+
+
+    /**
+     * Constructs a search over the given graph that keeps its frontier in
+     * the given queue.
+     *
+     * @param graph graph to search
+     * @param isBackward true to follow edges from their destination to
+     *                   their source
+     * @param frontier empty queue with room for every vertex id
+     */
+    DijkstraSearch(AbstractGraph<T> graph, boolean isBackward,
+                   DistanceQueue frontier) {
+        int idBound = graph.getVertexIdBound();
+
+        _graph = graph;
+        _isBackward = isBackward;
+        _distances = new long[idBound];
+        _predecessors = new int[idBound];
+        _frontier = frontier;
+        _touched = new int[idBound];
+        Arrays.fill(_distances, UNREACHED);
+        Arrays.fill(_predecessors, NO_PREDECESSOR);
+    }
+
+
+    /**
+     * Runs the search from the given source until the target is settled, or
+     * until every reachable vertex is settled if the target is -1.
+     *
+     * @param source id of the vertex to search from
+     * @param target id of the vertex to stop at, or -1 to search everything
+     * @return true if the target was reached, or true if there was no target
+     */
+    boolean search(int source, int target) {
+        start(source);
+
+        // the closest vertex on the frontier is settled; stop once that is
+        // the target
+        while (!_frontier.isEmpty()) {
+            if (settleNext() == target) {
+                break;
+            }
+        }
+
+        return target < 0 || _distances[target] != UNREACHED;
+    }
+
+
+    /**
+     * Runs the search from the given source until every one of the targets
+     * is settled, or until every reachable vertex is settled if some of
+     * them cannot be reached.
+     *
+     * @param source id of the vertex to search from
+     * @param targets ids of the vertices to stop once all are settled
+     */
+    void search(int source, int[] targets) {
+        int remainingTargets = 0;
+
+        if (_isTarget == null) {
+            _isTarget = new boolean[_distances.length];
+        }
+        for (int target : targets) {
+            if (!_isTarget[target]) {
+                _isTarget[target] = true;
+                remainingTargets++;
+            }
+        }
+
+        start(source);
+        while (remainingTargets > 0 && !_frontier.isEmpty()) {
+            int currentVertex = settleNext();
+            if (_isTarget[currentVertex]) {
+                _isTarget[currentVertex] = false;
+                remainingTargets--;
+            }
+        }
+
+        // unreached targets are still marked
+        for (int target : targets) {
+            _isTarget[target] = false;
+        }
+    }
+
+
+    /**
+     * Clears what the last search left behind and puts the source on the
+     * frontier. Only the vertices the last search reached are cleared, so
+     * a search that stays local costs nothing in proportion to the size of
+     * the graph.
+     *
+     * @param source id of the vertex to search from
+     */
+    private void start(int source) {
+        for (int i = 0; i < _touchedCount; i++) {
+            _distances[_touched[i]] = UNREACHED;
+            _predecessors[_touched[i]] = NO_PREDECESSOR;
+        }
+        _touchedCount = 0;
+        _frontier.clear();
+        _settledCount = 0;
+
+        _touched[_touchedCount++] = source;
+        _distances[source] = 0;
+        _frontier.offer(source, 0);
+    }
+
+
+    /**
+     * Settles the closest vertex on the frontier and relaxes its edges.
+     *
+     * @return id of the vertex settled
+     */
+    private int settleNext() {
+        int currentVertex = _frontier.poll();
+        _settledCount++;
+
+        // relax every edge leaving the newly settled vertex, or every edge
+        // coming into it when searching backward
+        if (!_isBackward) {
+            for (int slot = _graph.firstEdgeSlot(currentVertex),
+                 end = _graph.endEdgeSlot(currentVertex); slot < end;
+                 slot++) {
+                relax(currentVertex, _graph.edgeTargetAt(currentVertex,
+                        slot), _graph.edgeWeightAt(currentVertex, slot));
+            }
+        }
+        else {
+            for (int slot = _graph.firstInEdgeSlot(currentVertex),
+                 end = _graph.endInEdgeSlot(currentVertex); slot < end;
+                 slot++) {
+                relax(currentVertex, _graph.inEdgeSourceAt(currentVertex,
+                        slot), _graph.inEdgeWeightAt(currentVertex, slot));
+            }
+        }
+
+        return currentVertex;
+    }
+
+
+    /**
+     * Lowers the distance of the neighbor if going through the settled
+     * vertex is shorter.
+     *
+     * @param settledVertex id of the vertex just settled
+     * @param neighbor id of the vertex at the other end of the edge, or -1
+     *                 for an empty slot
+     * @param weight weight of the edge
+     */
+    private void relax(int settledVertex, int neighbor, int weight) {
+        if (neighbor >= 0) {
+            long pathWeight = _distances[settledVertex] + weight;
+            if (pathWeight < _distances[neighbor]) {
+                if (_distances[neighbor] == UNREACHED) {
+                    _touched[_touchedCount++] = neighbor;
+                }
+                _distances[neighbor] = pathWeight;
+                _predecessors[neighbor] = settledVertex;
+                _frontier.offer(neighbor, pathWeight);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the distance found to the given vertex, or
+     * {@link #UNREACHED} if the search did not reach it.
+     *
+     * @param vertex id of the vertex
+     * @return distance from the source to the vertex
+     */
+    long distanceTo(int vertex) {
+        return _distances[vertex];
+    }
+
+
+    /**
+     * Returns the distances found by the last search, indexed by vertex id.
+     * Unreached vertices have {@link #UNREACHED}.
+     *
+     * @return distance from the source to every vertex
+     */
+    long[] getDistances() {
+        return _distances;
+    }
+
+
+    /**
+     * Returns the number of vertices settled by the last search.
+     *
+     * @return vertices settled by the last search
+     */
+    int getSettledCount() {
+        return _settledCount;
+    }
+
+
+    /**
+     * Returns the predecessors found by the last search, indexed by vertex
+     * id. The source and unreached vertices have {@link #NO_PREDECESSOR}.
+     *
+     * @return predecessor of every vertex on its shortest path
+     */
+    int[] getPredecessors() {
+        return _predecessors;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Disjoint sets over the ints 0 through n-1, joined by union by rank and
+ * searched with path compression, so that any sequence of operations takes
+ * close to constant time per operation. Each set is named by one of its
+ * members, its root.
+ */
+class DisjointSet {
+    private int[] _parents;
+    private byte[] _ranks;
+
+    /**
+     * Constructs n sets, each holding just one of the ints 0 through n-1.
+     *
+     * @param n number of ints
+     */
+    DisjointSet(int n) {
+        _parents = new int[n];
+        _ranks = new byte[n];
+
+        for (int i = 0; i < n; i++) {
+            _parents[i] = i;
+        }
+    }
+
+
+    /**
+     * Returns the root of the set holding the given int, pointing every int
+     * on the way straight at the root.
+     *
+     * @param element int to look up
+     * @return root of its set
+     */
+    int find(int element) {
+        int root = element;
+
+        while (_parents[root] != root) {
+            root = _parents[root];
+        }
+
+        // second pass to compress the path just walked
+        while (_parents[element] != root) {
+            int parent = _parents[element];
+            _parents[element] = root;
+            element = parent;
+        }
+
+        return root;
+    }
+
+
+    /**
+     * Joins the sets holding the two ints, hanging the shallower tree under
+     * the root of the deeper one.
+     *
+     * @param first an int
+     * @param second another int
+     * @return true if they were in different sets, false if they were
+     * already together
+     */
+    boolean union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        boolean isJoined = firstRoot != secondRoot;
+
+        if (isJoined) {
+            if (_ranks[firstRoot] < _ranks[secondRoot]) {
+                _parents[firstRoot] = secondRoot;
+            }
+            else if (_ranks[firstRoot] > _ranks[secondRoot]) {
+                _parents[secondRoot] = firstRoot;
+            }
+            else {
+                _parents[secondRoot] = firstRoot;
+                _ranks[firstRoot]++;
+            }
+        }
+
+        return isJoined;
+    }
+}
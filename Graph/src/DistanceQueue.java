@@ -0,0 +1,45 @@
+/**
+ * Frontier of a shortest path search: vertex ids waiting to be settled,
+ * each with the length of the best path to it found so far. A vertex is in
+ * the queue at most once, and offering it again with a shorter distance
+ * moves it up in place.
+ *
+ * Dijkstra's algorithm only ever offers distances at least as large as the
+ * last one polled, so implementations are free to rely on that, as
+ * {@link BucketQueue} and {@link RadixHeap} do.
+ */
+abstract class DistanceQueue {
+
+    /**
+     * Returns true if the queue has no entries.
+     *
+     * @return true if the queue is empty
+     */
+    abstract boolean isEmpty();
+
+
+    /**
+     * Adds the id with the given distance, or lowers its distance if it is
+     * already in the queue with a larger one. A distance larger than the
+     * current one is ignored.
+     *
+     * @param id id to add or update
+     * @param distance new distance of the id
+     */
+    abstract void offer(int id, long distance);
+
+
+    /**
+     * Removes and returns the id with the smallest distance. The queue must
+     * not be empty.
+     *
+     * @return the id with the smallest distance
+     */
+    abstract int poll();
+
+
+    /**
+     * Removes every entry from the queue.
+     */
+    abstract void clear();
+}
@@ -0,0 +1,165 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Shortest path lengths between every pair of vertices in a graph, as found
+ * by {@link AbstractGraph#allPairsShortestPaths()}. The vertices are
+ * numbered 0 through n-1 in the order of {@link #getVertices()}, and the
+ * lengths are kept as an n by n matrix of ints, a row per source, so a
+ * table takes 4n&sup2; bytes.
+ *
+ * A table can be written to a file with {@link #save(File)} and opened again
+ * with {@link #map(File, List)}, which maps the file into memory instead of
+ * reading it in. The operating system then pages the matrix in as it is
+ * used and can share it between processes. The file holds only the matrix,
+ * so the vertices have to be supplied again, in the same order, when it is
+ * mapped.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public class DistanceTable<T> {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int MAGIC = 0x47445442;
+    private static final int HEADER_BYTES = 8;
+
+    private List<T> _vertices;
+    private HashMap<T, Integer> _indices;
+    private IntBuffer _distances;
+
+    /**
+     * Constructs a table over the given matrix of distances, with
+     * {@link #UNREACHABLE} where there is no path.
+     *
+     * @param vertices vertices in the order of the matrix rows and columns
+     * @param distances row-major matrix of the distances
+     * @throws IllegalArgumentException if the matrix would have more than
+     * Integer.MAX_VALUE entries
+     */
+    DistanceTable(List<T> vertices, IntBuffer distances)
+            throws IllegalArgumentException {
+        if ((long) vertices.size() * vertices.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+
+        _vertices = Collections.unmodifiableList(new ArrayList<>(vertices));
+        _indices = new HashMap<>();
+        _distances = distances;
+
+        for (int i = 0; i < vertices.size(); i++) {
+            _indices.put(vertices.get(i), i);
+        }
+    }
+
+
+    /**
+     * Maps a table written by {@link #save(File)} into memory, read-only.
+     *
+     * @param file file holding the table
+     * @param vertices vertices of the table, in the order
+     *                 {@link #getVertices()} gave when it was saved
+     * @param <T> type of the vertices in the graph
+     * @return the mapped table
+     * @throws IOException if the file cannot be read, is not a saved table,
+     * or was saved with a different number of vertices
+     */
+    public static <T> DistanceTable<T> map(File file, List<T> vertices)
+            throws IOException {
+        MappedByteBuffer buffer;
+
+        // the mapping stays valid after the channel is closed
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a distance table: " + file);
+        }
+        else if (buffer.getInt(4) != vertices.size() ||
+                buffer.capacity() != HEADER_BYTES +
+                        4L * vertices.size() * vertices.size()) {
+            throw new IOException("table has " + buffer.getInt(4) +
+                    " vertices, not " + vertices.size());
+        }
+
+        buffer.position(HEADER_BYTES);
+        return new DistanceTable<>(vertices, buffer.slice().asIntBuffer());
+    }
+
+
+    /**
+     * Returns the vertices of the table, in the order of its rows and
+     * columns.
+     *
+     * @return the vertices of the table
+     */
+    public List<T> getVertices() {
+        return _vertices;
+    }
+
+
+    /**
+     * Returns the length of the shortest path from the source to the
+     * destination, or -1 if there is no path.
+     *
+     * @param source vertex the path starts from
+     * @param destination vertex the path ends at
+     * @return length of the shortest path, or -1 if there is none
+     * @throws NoSuchElementException if either vertex is not in the table
+     */
+    public long distanceBetween(T source, T destination)
+            throws NoSuchElementException {
+        Integer row = _indices.get(source);
+        Integer column = _indices.get(destination);
+
+        if (row == null || column == null) {
+            throw new NoSuchElementException();
+        }
+
+        int distance = _distances.get(row * _vertices.size() + column);
+
+        return distance == UNREACHABLE ? -1 : distance;
+    }
+
+
+    /**
+     * Writes the table to the given file, replacing anything already there.
+     *
+     * @param file file to write the table to
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        // the constructor made sure this fits in an int
+        int cellCount = _vertices.size() * _vertices.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw");
+             FileChannel channel = output.getChannel()) {
+            channel.truncate(0);
+            buffer.putInt(MAGIC).putInt(_vertices.size());
+
+            // copy the matrix out a buffer's worth at a time
+            for (int i = 0; i < cellCount; i++) {
+                if (buffer.remaining() < 4) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.putInt(_distances.get(i));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,832 @@
+import java.util.*;
+
+/**
+ * Minimum spanning forest of an undirected {@link Graph}, kept up to date
+ * as the graph changes instead of being rebuilt with
+ * {@link AbstractGraph#minimumSpanningForest()} after every change. It
+ * listens to the graph from construction until {@link #detach()}.
+ *
+ * The forest is held in a link-cut tree, in which every tree edge is a
+ * node of its own between the nodes of its two ends, so that the heaviest
+ * edge on the path between any two vertices can be found in amortized
+ * O(log n) time. An added edge between two trees links them. An added edge
+ * within a tree closes a cycle, and it replaces the heaviest edge on that
+ * cycle if it is lighter. Both cost amortized O(log n).
+ *
+ * Alongside the link-cut tree, every vertex keeps two lists of the edges
+ * at it, one of those in the forest and one of the rest, each edge knowing
+ * its place in the lists at both its ends so it can be moved between them
+ * in O(1). Removing an edge outside the forest just drops it from its
+ * lists.
+ *
+ * Removing a forest edge splits its tree in two, and the lightest edge
+ * between the two halves, if any, takes its place. The halves are walked
+ * over forest edges only, one edge at a time from each in turn, until the
+ * smaller one is done, and then only the non-forest edges at the smaller
+ * half are searched. That costs O(k + d + log n) for k vertices in the
+ * smaller half and d non-forest edges at them: cheap when a small piece
+ * breaks off, which is the common case, however big the rest is. It is not
+ * polylogarithmic, though. Splitting a tree near its middle costs time
+ * linear in the size of the tree, and bounding that needs the leveled
+ * Euler-tour forests of Holm, de Lichtenberg and Thorup.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public class DynamicSpanningForest<T> implements Graph.Listener<T> {
+    private static final int NIL = -1;
+    private static final int VERTEX_WEIGHT = -1;
+
+    private Graph<T> _graph;
+
+    // the link-cut tree's nodes, a node per vertex and per forest edge
+    private int[] _left;
+    private int[] _right;
+    private int[] _parents;
+    private boolean[] _isFlipped;
+    private int[] _weights;
+    private int[] _maxNodes;
+    private int[] _nodeEdges;
+    private int[] _splayStack;
+    private int _nodeCount;
+    private ArrayDeque<Integer> _freeNodes;
+    private int[] _vertexNodes;
+
+    // every edge of the graph, with its node if it is in the forest
+    private int[] _edgeSources;
+    private int[] _edgeTargets;
+    private int[] _edgeWeights;
+    private int[] _edgeNodes;
+    private int[] _sourceSlots;
+    private int[] _targetSlots;
+    private int _edgeCount;
+    private ArrayDeque<Integer> _freeEdges;
+    private HashMap<Long, Integer> _edges;
+
+    // each vertex's forest edges and other edges
+    private int[][] _treeEdgeLists;
+    private int[] _treeDegrees;
+    private int[][] _otherEdgeLists;
+    private int[] _otherDegrees;
+
+    // scratch for walking the two halves of a split tree
+    private int[][] _sides;
+    private int[] _visits;
+    private int _visitStamp;
+
+    private int _treeEdgeCount;
+    private long _totalWeight;
+
+    /**
+     * Finds the minimum spanning forest of the graph and starts listening
+     * to it.
+     *
+     * @param graph undirected graph to span
+     * @throws IllegalStateException if the graph is directed
+     */
+    public DynamicSpanningForest(Graph<T> graph) throws IllegalStateException {
+        // cannot be directed
+        if (graph.isDirected()) {
+            throw new IllegalStateException();
+        }
+
+        _graph = graph;
+        _left = new int[16];
+        _right = new int[16];
+        _parents = new int[16];
+        _isFlipped = new boolean[16];
+        _weights = new int[16];
+        _maxNodes = new int[16];
+        _nodeEdges = new int[16];
+        _splayStack = new int[16];
+        _freeNodes = new ArrayDeque<>();
+        _vertexNodes = new int[0];
+        _edgeSources = new int[16];
+        _edgeTargets = new int[16];
+        _edgeWeights = new int[16];
+        _edgeNodes = new int[16];
+        _sourceSlots = new int[16];
+        _targetSlots = new int[16];
+        _freeEdges = new ArrayDeque<>();
+        _edges = new HashMap<>();
+        _treeEdgeLists = new int[0][];
+        _treeDegrees = new int[0];
+        _otherEdgeLists = new int[0][];
+        _otherDegrees = new int[0];
+        _sides = new int[2][0];
+        _visits = new int[0];
+
+        // adding the edges one by one keeps the forest minimal throughout
+        for (T vertex : graph.getVertices()) {
+            vertexAdded(vertex);
+        }
+        for (T vertex : graph.getVertices()) {
+            int source = graph.idOf(vertex);
+            for (int slot = graph.firstEdgeSlot(source),
+                 end = graph.endEdgeSlot(source); slot < end; slot++) {
+                int target = graph.edgeTargetAt(source, slot);
+                if (target > source) {
+                    insertEdge(source, target, graph.edgeWeightAt(source,
+                            slot));
+                }
+            }
+        }
+
+        graph.addListener(this);
+    }
+
+
+    /**
+     * Stops following the graph. The forest stays as it was.
+     */
+    public void detach() {
+        _graph.removeListener(this);
+    }
+
+
+    /**
+     * Returns the total weight of the edges in the forest.
+     *
+     * @return weight of the forest
+     */
+    public long getTotalWeight() {
+        return _totalWeight;
+    }
+
+
+    /**
+     * Returns the number of edges in the forest.
+     *
+     * @return number of edges in the forest
+     */
+    public int getEdgeCount() {
+        return _treeEdgeCount;
+    }
+
+
+    /**
+     * Returns true if the forest is a single tree joining every vertex of
+     * the graph, which is then its minimum spanning tree.
+     *
+     * @return true if the graph is connected
+     */
+    public boolean isSpanningTree() {
+        return _treeEdgeCount >= _graph.getVertexCount() - 1;
+    }
+
+
+    /**
+     * Returns true if the edge between the two vertices is in the forest.
+     *
+     * @param source vertex at one end of the edge
+     * @param destination vertex at the other end of the edge
+     * @return true if the edge is in the forest
+     */
+    public boolean isForestEdge(T source, T destination) {
+        int sourceId = _graph.idOf(source);
+        int destinationId = _graph.idOf(destination);
+        Integer edge = sourceId >= 0 && destinationId >= 0 ?
+                _edges.get(edgeKey(sourceId, destinationId)) : null;
+
+        return edge != null && _edgeNodes[edge] != NIL;
+    }
+
+
+    /**
+     * Returns a copy of the forest as a graph, with every vertex of the
+     * graph and the edges of the forest.
+     *
+     * @return the forest
+     */
+    public Graph<T> getForest() {
+        Graph<T> forest = new Graph<>(false);
+
+        for (T vertex : _graph.getVertices()) {
+            forest.addVertex(vertex);
+        }
+        for (int edge : _edges.values()) {
+            if (_edgeNodes[edge] != NIL) {
+                forest.addEdge(_graph.vertexOf(_edgeSources[edge]),
+                        _graph.vertexOf(_edgeTargets[edge]),
+                        _edgeWeights[edge]);
+            }
+        }
+
+        return forest;
+    }
+
+
+    /**
+     * Gives a new vertex its node, alone in a tree of its own.
+     *
+     * @param vertex the new vertex
+     */
+    public void vertexAdded(T vertex) {
+        int vertexId = _graph.idOf(vertex);
+
+        if (vertexId >= _vertexNodes.length) {
+            int oldLength = _vertexNodes.length;
+            int length = Math.max(16, 2 * vertexId);
+            _vertexNodes = Arrays.copyOf(_vertexNodes, length);
+            _treeEdgeLists = Arrays.copyOf(_treeEdgeLists, length);
+            _treeDegrees = Arrays.copyOf(_treeDegrees, length);
+            _otherEdgeLists = Arrays.copyOf(_otherEdgeLists, length);
+            _otherDegrees = Arrays.copyOf(_otherDegrees, length);
+            _sides[0] = Arrays.copyOf(_sides[0], length);
+            _sides[1] = Arrays.copyOf(_sides[1], length);
+            _visits = Arrays.copyOf(_visits, length);
+            Arrays.fill(_vertexNodes, oldLength, length, NIL);
+        }
+
+        // a reused id keeps its node and lists, which lost all their edges
+        // along with the vertex before it
+        if (_vertexNodes[vertexId] == NIL) {
+            _vertexNodes[vertexId] = newNode(VERTEX_WEIGHT);
+        }
+    }
+
+
+    /**
+     * Adds a new edge, or an edge with a new weight, to the forest if it
+     * belongs there.
+     *
+     * @param source vertex the edge begins from
+     * @param destination vertex the edge ends at
+     * @param weight weight of the edge
+     */
+    public void edgeAdded(T source, T destination, int weight) {
+        insertEdge(_graph.idOf(source), _graph.idOf(destination), weight);
+    }
+
+
+    /**
+     * Drops a removed edge, and if it was in the forest, joins the two trees
+     * left behind with the lightest edge between them.
+     *
+     * @param source vertex the edge began from
+     * @param destination vertex the edge ended at
+     * @param weight weight the edge had
+     */
+    public void edgeRemoved(T source, T destination, int weight) {
+        int sourceId = _graph.idOf(source);
+        int destinationId = _graph.idOf(destination);
+        Integer edge = _edges.remove(edgeKey(sourceId, destinationId));
+
+        if (edge != null) {
+            if (_edgeNodes[edge] != NIL) {
+                removeTreeEdge(edge);
+                reconnect(sourceId, destinationId);
+            }
+            else {
+                unlistEdge(edge);
+            }
+            _freeEdges.push(edge);
+        }
+    }
+
+
+    /**
+     * Adds an edge between the vertices with the given ids to the forest if
+     * they are in different trees, or in place of the heaviest edge on the
+     * path between them if it is lighter, and otherwise keeps it outside.
+     *
+     * @param source id of one end
+     * @param destination id of the other end
+     * @param weight weight of the edge
+     */
+    private void insertEdge(int source, int destination, int weight) {
+        int sourceNode = _vertexNodes[source];
+        int destinationNode = _vertexNodes[destination];
+        int edge = newEdge(source, destination, weight);
+
+        _edges.put(edgeKey(source, destination), edge);
+        if (findRoot(sourceNode) != findRoot(destinationNode)) {
+            addTreeEdge(edge);
+        }
+        else {
+            int heaviest = pathMax(sourceNode, destinationNode);
+            if (weight < _weights[heaviest]) {
+                int replaced = _nodeEdges[heaviest];
+                removeTreeEdge(replaced);
+                listEdge(replaced);
+                addTreeEdge(edge);
+            }
+            else {
+                listEdge(edge);
+            }
+        }
+    }
+
+
+    /**
+     * Looks for the lightest edge in the graph between the trees of the two
+     * vertices, which were just split apart, and adds it to the forest.
+     *
+     * @param first id of a vertex in one tree
+     * @param second id of a vertex in the other tree
+     */
+    private void reconnect(int first, int second) {
+        int[] stamps = {++_visitStamp, ++_visitStamp};
+        int[] sizes = {1, 1};
+        int[] heads = {0, 0};
+        int[] positions = {0, 0};
+        int small = NIL;
+
+        // walk the two trees over forest edges, taking one step in each in
+        // turn, where a step follows an edge or finishes with a vertex. The
+        // first to run out is no bigger than the other, and the other has
+        // been walked no further than it
+        _sides[0][0] = first;
+        _sides[1][0] = second;
+        _visits[first] = stamps[0];
+        _visits[second] = stamps[1];
+        while (small == NIL) {
+            for (int side = 0; side < 2 && small == NIL; side++) {
+                if (heads[side] == sizes[side]) {
+                    small = side;
+                }
+                else {
+                    int vertexId = _sides[side][heads[side]];
+                    if (positions[side] < _treeDegrees[vertexId]) {
+                        int next = otherEnd(_treeEdgeLists[vertexId]
+                                [positions[side]++], vertexId);
+                        if (_visits[next] != stamps[side]) {
+                            _visits[next] = stamps[side];
+                            _sides[side][sizes[side]++] = next;
+                        }
+                    }
+                    else {
+                        heads[side]++;
+                        positions[side] = 0;
+                    }
+                }
+            }
+        }
+
+        // every other edge leaving the smaller tree goes to the other one
+        int best = NIL;
+        for (int i = 0; i < sizes[small]; i++) {
+            int vertexId = _sides[small][i];
+            for (int j = 0; j < _otherDegrees[vertexId]; j++) {
+                int edge = _otherEdgeLists[vertexId][j];
+                if (_visits[otherEnd(edge, vertexId)] != stamps[small] &&
+                        (best == NIL ||
+                         _edgeWeights[edge] < _edgeWeights[best])) {
+                    best = edge;
+                }
+            }
+        }
+
+        if (best != NIL) {
+            unlistEdge(best);
+            addTreeEdge(best);
+        }
+    }
+
+
+    /**
+     * Links an unlisted edge into the forest, with a new node between the
+     * nodes of its two ends, and lists it among their forest edges.
+     *
+     * @param edge edge to add
+     */
+    private void addTreeEdge(int edge) {
+        int node = newNode(_edgeWeights[edge]);
+
+        _nodeEdges[node] = edge;
+        _edgeNodes[edge] = node;
+        link(_vertexNodes[_edgeSources[edge]], node);
+        link(node, _vertexNodes[_edgeTargets[edge]]);
+        listEdge(edge);
+        _treeEdgeCount++;
+        _totalWeight += _edgeWeights[edge];
+    }
+
+
+    /**
+     * Cuts a forest edge's node away from the nodes of its two ends, frees
+     * it, and unlists the edge, leaving it in no lists at all.
+     *
+     * @param edge edge to remove
+     */
+    private void removeTreeEdge(int edge) {
+        int node = _edgeNodes[edge];
+
+        unlistEdge(edge);
+        cut(_vertexNodes[_edgeSources[edge]], node);
+        cut(node, _vertexNodes[_edgeTargets[edge]]);
+        _edgeNodes[edge] = NIL;
+        _freeNodes.push(node);
+        _treeEdgeCount--;
+        _totalWeight -= _edgeWeights[edge];
+    }
+
+
+    /**
+     * Adds an edge to the lists at both its ends, the forest edge lists if
+     * it has a node and the other lists if not.
+     *
+     * @param edge edge to list
+     */
+    private void listEdge(int edge) {
+        boolean isTree = _edgeNodes[edge] != NIL;
+        int[][] lists = isTree ? _treeEdgeLists : _otherEdgeLists;
+        int[] degrees = isTree ? _treeDegrees : _otherDegrees;
+
+        _sourceSlots[edge] = append(lists, degrees, _edgeSources[edge], edge);
+        _targetSlots[edge] = append(lists, degrees, _edgeTargets[edge], edge);
+    }
+
+
+    /**
+     * Takes an edge out of the lists at both its ends.
+     *
+     * @param edge edge to unlist
+     */
+    private void unlistEdge(int edge) {
+        boolean isTree = _edgeNodes[edge] != NIL;
+        int[][] lists = isTree ? _treeEdgeLists : _otherEdgeLists;
+        int[] degrees = isTree ? _treeDegrees : _otherDegrees;
+
+        removeAt(lists, degrees, _edgeSources[edge], _sourceSlots[edge]);
+        removeAt(lists, degrees, _edgeTargets[edge], _targetSlots[edge]);
+    }
+
+
+    /**
+     * Appends an edge to a vertex's list, growing it if it is full.
+     *
+     * @param lists lists of edges per vertex
+     * @param degrees length of each vertex's list
+     * @param vertexId id of the vertex
+     * @param edge edge to append
+     * @return slot of the edge in the list
+     */
+    private static int append(int[][] lists, int[] degrees, int vertexId,
+                              int edge) {
+        if (lists[vertexId] == null) {
+            lists[vertexId] = new int[4];
+        }
+        else if (degrees[vertexId] == lists[vertexId].length) {
+            lists[vertexId] = Arrays.copyOf(lists[vertexId],
+                    2 * degrees[vertexId]);
+        }
+        lists[vertexId][degrees[vertexId]] = edge;
+
+        return degrees[vertexId]++;
+    }
+
+
+    /**
+     * Removes the edge in the given slot of a vertex's list by moving the
+     * last edge of the list into it.
+     *
+     * @param lists lists of edges per vertex
+     * @param degrees length of each vertex's list
+     * @param vertexId id of the vertex
+     * @param slot slot to empty
+     */
+    private void removeAt(int[][] lists, int[] degrees, int vertexId,
+                          int slot) {
+        int last = lists[vertexId][--degrees[vertexId]];
+
+        lists[vertexId][slot] = last;
+        if (_edgeSources[last] == vertexId) {
+            _sourceSlots[last] = slot;
+        }
+        else {
+            _targetSlots[last] = slot;
+        }
+    }
+
+
+    /**
+     * Returns the id of the vertex at the other end of an edge.
+     *
+     * @param edge an edge
+     * @param vertexId id of the vertex at one end
+     * @return id of the vertex at the other end
+     */
+    private int otherEnd(int edge, int vertexId) {
+        return _edgeSources[edge] == vertexId ? _edgeTargets[edge] :
+                _edgeSources[edge];
+    }
+
+
+    /**
+     * Returns a key for the edge between two vertices that is the same in
+     * both directions.
+     *
+     * @param first id of one end
+     * @param second id of the other end
+     * @return key of the edge
+     */
+    private static long edgeKey(int first, int second) {
+        return (long) Math.min(first, second) << 32 | Math.max(first, second);
+    }
+
+
+    /**
+     * Returns a fresh edge between two vertices, outside the forest and in
+     * no lists.
+     *
+     * @param source id of one end
+     * @param destination id of the other end
+     * @param weight weight of the edge
+     * @return index of the edge
+     */
+    private int newEdge(int source, int destination, int weight) {
+        int edge;
+
+        if (!_freeEdges.isEmpty()) {
+            edge = _freeEdges.pop();
+        }
+        else {
+            edge = _edgeCount++;
+            if (edge == _edgeSources.length) {
+                int length = 2 * edge;
+                _edgeSources = Arrays.copyOf(_edgeSources, length);
+                _edgeTargets = Arrays.copyOf(_edgeTargets, length);
+                _edgeWeights = Arrays.copyOf(_edgeWeights, length);
+                _edgeNodes = Arrays.copyOf(_edgeNodes, length);
+                _sourceSlots = Arrays.copyOf(_sourceSlots, length);
+                _targetSlots = Arrays.copyOf(_targetSlots, length);
+            }
+        }
+
+        _edgeSources[edge] = source;
+        _edgeTargets[edge] = destination;
+        _edgeWeights[edge] = weight;
+        _edgeNodes[edge] = NIL;
+
+        return edge;
+    }
+
+
+    /**
+     * Returns a fresh node with the given weight, alone in its own tree.
+     *
+     * @param weight weight of the edge the node stands for, or
+     *               VERTEX_WEIGHT for a vertex
+     * @return index of the node
+     */
+    private int newNode(int weight) {
+        int node;
+
+        if (!_freeNodes.isEmpty()) {
+            node = _freeNodes.pop();
+        }
+        else {
+            node = _nodeCount++;
+            if (node == _left.length) {
+                int length = 2 * node;
+                _left = Arrays.copyOf(_left, length);
+                _right = Arrays.copyOf(_right, length);
+                _parents = Arrays.copyOf(_parents, length);
+                _isFlipped = Arrays.copyOf(_isFlipped, length);
+                _weights = Arrays.copyOf(_weights, length);
+                _maxNodes = Arrays.copyOf(_maxNodes, length);
+                _nodeEdges = Arrays.copyOf(_nodeEdges, length);
+                _splayStack = Arrays.copyOf(_splayStack, length);
+            }
+        }
+
+        _left[node] = NIL;
+        _right[node] = NIL;
+        _parents[node] = NIL;
+        _isFlipped[node] = false;
+        _weights[node] = weight;
+        _maxNodes[node] = node;
+
+        return node;
+    }
+
+
+    // The link-cut tree. Each tree of the forest is split into paths, each
+    // held in a splay tree ordered from the root of the forest tree down.
+    // The root of each splay tree points up to the forest parent of its
+    // path's top, and only the other nodes' parents are splay parents. A
+    // flipped node has its whole splay subtree reversed, pushed down as it
+    // is walked, which is how a tree is rerooted.
+
+    /**
+     * Returns true if the node is the root of its splay tree.
+     *
+     * @param node node to check
+     * @return true if its parent, if any, is a path parent
+     */
+    private boolean isSplayRoot(int node) {
+        int parent = _parents[node];
+
+        return parent == NIL ||
+                (_left[parent] != node && _right[parent] != node);
+    }
+
+
+    /**
+     * Passes a pending reversal on to the node's children.
+     *
+     * @param node node to push down from
+     */
+    private void pushDown(int node) {
+        if (_isFlipped[node]) {
+            int left = _left[node];
+            _left[node] = _right[node];
+            _right[node] = left;
+            if (_left[node] != NIL) {
+                _isFlipped[_left[node]] = !_isFlipped[_left[node]];
+            }
+            if (_right[node] != NIL) {
+                _isFlipped[_right[node]] = !_isFlipped[_right[node]];
+            }
+            _isFlipped[node] = false;
+        }
+    }
+
+
+    /**
+     * Recomputes the heaviest node in the node's splay subtree from its
+     * children.
+     *
+     * @param node node to update
+     */
+    private void update(int node) {
+        int max = node;
+
+        if (_left[node] != NIL && _weights[_maxNodes[_left[node]]] >
+                _weights[max]) {
+            max = _maxNodes[_left[node]];
+        }
+        if (_right[node] != NIL && _weights[_maxNodes[_right[node]]] >
+                _weights[max]) {
+            max = _maxNodes[_right[node]];
+        }
+        _maxNodes[node] = max;
+    }
+
+
+    /**
+     * Rotates the node above its splay parent.
+     *
+     * @param node node to rotate up
+     */
+    private void rotate(int node) {
+        int parent = _parents[node];
+        int grandparent = _parents[parent];
+        boolean isParentRoot = isSplayRoot(parent);
+
+        if (_left[parent] == node) {
+            _left[parent] = _right[node];
+            if (_right[node] != NIL) {
+                _parents[_right[node]] = parent;
+            }
+            _right[node] = parent;
+        }
+        else {
+            _right[parent] = _left[node];
+            if (_left[node] != NIL) {
+                _parents[_left[node]] = parent;
+            }
+            _left[node] = parent;
+        }
+        _parents[parent] = node;
+        _parents[node] = grandparent;
+
+        // a path parent stays pointed at, but does not point back
+        if (!isParentRoot) {
+            if (_left[grandparent] == parent) {
+                _left[grandparent] = node;
+            }
+            else {
+                _right[grandparent] = node;
+            }
+        }
+
+        update(parent);
+        update(node);
+    }
+
+
+    /**
+     * Moves the node to the root of its splay tree.
+     *
+     * @param node node to splay
+     */
+    private void splay(int node) {
+        int stackSize = 0;
+
+        // reversals pending above the node have to be pushed down first
+        _splayStack[stackSize++] = node;
+        for (int i = node; !isSplayRoot(i); i = _parents[i]) {
+            _splayStack[stackSize++] = _parents[i];
+        }
+        while (stackSize > 0) {
+            pushDown(_splayStack[--stackSize]);
+        }
+
+        while (!isSplayRoot(node)) {
+            int parent = _parents[node];
+            if (!isSplayRoot(parent)) {
+                int grandparent = _parents[parent];
+                boolean isZigZig = (_left[grandparent] == parent) ==
+                        (_left[parent] == node);
+                rotate(isZigZig ? parent : node);
+            }
+            rotate(node);
+        }
+    }
+
+
+    /**
+     * Makes the path from the root of the node's tree down to the node a
+     * single splay tree, with the node at its root.
+     *
+     * @param node node to reach
+     */
+    private void access(int node) {
+        int last = NIL;
+
+        for (int i = node; i != NIL; i = _parents[i]) {
+            splay(i);
+            _right[i] = last;
+            update(i);
+            last = i;
+        }
+        splay(node);
+    }
+
+
+    /**
+     * Makes the node the root of its tree.
+     *
+     * @param node node to reroot at
+     */
+    private void makeRoot(int node) {
+        access(node);
+        _isFlipped[node] = !_isFlipped[node];
+    }
+
+
+    /**
+     * Returns the root of the node's tree.
+     *
+     * @param node node to look up
+     * @return root of its tree
+     */
+    private int findRoot(int node) {
+        int root = node;
+
+        access(node);
+        pushDown(root);
+        while (_left[root] != NIL) {
+            root = _left[root];
+            pushDown(root);
+        }
+        splay(root);
+
+        return root;
+    }
+
+
+    /**
+     * Joins the trees of two nodes with an edge between them.
+     *
+     * @param child node to hang below the other
+     * @param parent node in a different tree
+     */
+    private void link(int child, int parent) {
+        makeRoot(child);
+        _parents[child] = parent;
+    }
+
+
+    /**
+     * Removes the edge between two adjacent nodes.
+     *
+     * @param first one node
+     * @param second a node next to it
+     */
+    private void cut(int first, int second) {
+        makeRoot(first);
+        access(second);
+        // the path is just the two nodes, with the first above
+        _left[second] = NIL;
+        _parents[first] = NIL;
+        update(second);
+    }
+
+
+    /**
+     * Returns the heaviest edge node on the path between two nodes in the
+     * same tree.
+     *
+     * @param first node at one end of the path
+     * @param second node at the other end
+     * @return heaviest node on the path
+     */
+    private int pathMax(int first, int second) {
+        makeRoot(first);
+        access(second);
+
+        return _maxNodes[second];
+    }
+}
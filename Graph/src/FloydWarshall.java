@@ -0,0 +1,153 @@
+import java.util.stream.IntStream;
+
+/**
+ * Blocked, multithreaded Floyd-Warshall over a flat n by n matrix of int
+ * distances, with {@link DistanceTable#UNREACHABLE} for no path.
+ *
+ * The plain algorithm sweeps the whole matrix once per intermediate vertex,
+ * which streams it through the cache n times over. Here the matrix is cut
+ * into square blocks small enough to sit in cache together, and the
+ * intermediate vertices are taken a block at a time. For each such block
+ * the diagonal block is finished first, then the other blocks in its row
+ * and column, which only need the diagonal, and then every remaining block,
+ * which only needs the row and column. The blocks within each of the last
+ * two steps do not depend on each other, so they run in parallel.
+ *
+ * A path through a pivot that is too long to store is simply skipped, as a
+ * later pivot may still give a shorter one. Whether any pair is left with
+ * a real path too long to store is only checked once the matrix is done.
+ */
+class FloydWarshall {
+    private static final int BLOCK_SIZE = 64;
+    private static final long UNREACHABLE = DistanceTable.UNREACHABLE;
+
+    /**
+     * Replaces the edge weights in the matrix by shortest path lengths.
+     *
+     * @param distances row-major matrix holding the weight of the edge
+     *                  between each pair, 0 on the diagonal and
+     *                  {@link DistanceTable#UNREACHABLE} where there is no
+     *                  edge
+     * @param n number of rows and columns
+     * @throws IllegalStateException if a shortest path is too long to be
+     * held in an int
+     */
+    static void run(final int[] distances, final int n)
+            throws IllegalStateException {
+        final int blockCount = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        for (int k = 0; k < blockCount; k++) {
+            final int pivot = k;
+
+            relaxBlock(distances, n, pivot, pivot, pivot);
+
+            // the rest of the pivot row and column; the first blockCount
+            // tasks take the row, the rest the column
+            IntStream.range(0, 2 * blockCount).parallel().forEach(task -> {
+                int other = task % blockCount;
+                if (other != pivot) {
+                    if (task < blockCount) {
+                        relaxBlock(distances, n, pivot, other, pivot);
+                    }
+                    else {
+                        relaxBlock(distances, n, other, pivot, pivot);
+                    }
+                }
+            });
+
+            // everything else
+            IntStream.range(0, blockCount * blockCount).parallel()
+                    .forEach(task -> {
+                        int row = task / blockCount;
+                        int column = task % blockCount;
+                        if (row != pivot && column != pivot) {
+                            relaxBlock(distances, n, row, column, pivot);
+                        }
+                    });
+        }
+
+        checkReachability(distances, n);
+    }
+
+
+    /**
+     * Checks that every vertex reachable from each source has a distance.
+     * Whatever a source reaches, it also reaches whatever that reaches, so
+     * the set of columns with a distance in its row must hold the sets of
+     * every row it has a distance to. Where a set does not, some path was
+     * too long to store. The sets are held as bits, so this takes n&sup3;/64
+     * steps against the n&sup3; of the search itself.
+     *
+     * @param distances row-major matrix of shortest path lengths
+     * @param n number of rows and columns
+     * @throws IllegalStateException if a shortest path is too long to be
+     * held in an int
+     */
+    private static void checkReachability(final int[] distances, final int n)
+            throws IllegalStateException {
+        final int words = (n + 63) / 64;
+        final long[] reached = new long[n * words];
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            for (int j = 0; j < n; j++) {
+                if (distances[i * n + j] != UNREACHABLE) {
+                    reached[i * words + j / 64] |= 1L << j;
+                }
+            }
+        });
+
+        boolean isTooLong = IntStream.range(0, n).parallel().anyMatch(i -> {
+            for (int m = 0; m < n; m++) {
+                if (distances[i * n + m] != UNREACHABLE) {
+                    for (int word = 0; word < words; word++) {
+                        if ((reached[m * words + word] &
+                                ~reached[i * words + word]) != 0) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        if (isTooLong) {
+            throw new IllegalStateException();
+        }
+    }
+
+
+    /**
+     * Shortens the paths in one block through each intermediate vertex of
+     * the pivot block in turn.
+     *
+     * @param distances row-major distance matrix
+     * @param n number of rows and columns
+     * @param rowBlock block row of the block to update
+     * @param columnBlock block column of the block to update
+     * @param pivotBlock block of intermediate vertices
+     */
+    private static void relaxBlock(int[] distances, int n, int rowBlock,
+                                   int columnBlock, int pivotBlock) {
+        int rowEnd = Math.min(n, (rowBlock + 1) * BLOCK_SIZE);
+        int columnStart = columnBlock * BLOCK_SIZE;
+        int columnEnd = Math.min(n, columnStart + BLOCK_SIZE);
+        int pivotEnd = Math.min(n, (pivotBlock + 1) * BLOCK_SIZE);
+
+        for (int k = pivotBlock * BLOCK_SIZE; k < pivotEnd; k++) {
+            int pivotRow = k * n;
+            for (int i = rowBlock * BLOCK_SIZE; i < rowEnd; i++) {
+                int row = i * n;
+                long toPivot = distances[row + k];
+                if (toPivot != UNREACHABLE) {
+                    for (int j = columnStart; j < columnEnd; j++) {
+                        // a sum too long to store is never less than
+                        // UNREACHABLE, so it is skipped here
+                        long throughPivot = toPivot + distances[pivotRow + j];
+                        if (throughPivot < distances[row + j]) {
+                            distances[row + j] = (int) throughPivot;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
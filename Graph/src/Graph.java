@@ -8,12 +8,29 @@ import java.util.*;
 /**
  * Simple templated graph with some basic functionality, such as adding and
  * removing edges or vertices. Works with non-negative weights for edges
- * between vertices.
+ * between vertices. Call {@link #freeze()} to take a compact, read-only
+ * snapshot of the graph once it is done changing.
+ *
+ * Every vertex is interned to a small integer id when it is added, and the
+ * query methods have overloads that take those ids directly so that callers
+ * can resolve their vertices once and skip hashing afterwards. Ids stay
+ * fixed for as long as their vertex is in the graph; the id of a removed
+ * vertex may be handed out again to a later one. Note that for a
+ * Graph&lt;Integer&gt;, passing an int primitive selects the id overload.
  *
  * @param <T>
  */
-public class Graph<T> {
-    private HashMap<T, HashMap<T, Integer>> _graph;
+public class Graph<T> extends AbstractGraph<T> {
+    private ArrayList<AdjacencyMap> _graph;
+    private ArrayList<AdjacencyMap> _reverseGraph;
+    private ArrayList<T> _vertices;
+    private HashMap<T, Integer> _vertexIds;
+    private ArrayDeque<Integer> _freeIds;
+    private int _maxEdgeWeight;
+    private long _changeCount;
+    private long _lastShorteningChange;
+    private long[] _lastLengtheningChanges;
+    private ArrayList<Listener<T>> _listeners;
     private boolean _isDirected;
 
     /**
@@ -26,7 +43,15 @@ public class Graph<T> {
      * @param isDirected
      */
     public Graph(boolean isDirected) {
-        _graph = new HashMap<>();
+        _graph = new ArrayList<>();
+        // edges into each vertex. An undirected graph already stores every
+        // edge both ways, so it can share its own maps
+        _reverseGraph = isDirected ? new ArrayList<>() : _graph;
+        _vertices = new ArrayList<>();
+        _vertexIds = new HashMap<>();
+        _freeIds = new ArrayDeque<>();
+        _lastLengtheningChanges = new long[16];
+        _listeners = new ArrayList<>();
         _isDirected = isDirected;
     }
 
@@ -111,86 +136,120 @@ public class Graph<T> {
 
 
 
+    /**
+     * Returns true if this graph is directed, false if it is undirected.
+     *
+     * @return directedness of the graph
+     */
+    public boolean isDirected() {
+        return _isDirected;
+    }
+
+
     /**
      * Returns a sequence of the graph's vertices.
      *
      * @return a sequence of the graph's vertices.
      */
     public List<T> getVertices() {
-        return new ArrayList<>(_graph.keySet());
+        List<T> vertices = new ArrayList<>(_vertexIds.size());
+
+        // skip over the ids that are waiting to be reused
+        for (T vertex : _vertices) {
+            if (vertex != null) {
+                vertices.add(vertex);
+            }
+        }
+
+        return vertices;
     }
 
 
     /**
-     * Returns the weight of the edge that goes from the given source vertex
-     * to the given destination vertex, or -1 if no such edge is present.
+     * Returns the number of vertices in the graph.
      *
-     * @param source vertex that the given edge begins from
-     * @param destination vertex that the given edge ends at
-     * @return integer weight of the given edge, or -1 if it does not exist
+     * @return the number of vertices in the graph
      */
-    public int getEdgeWeight(T source, T destination) {
-        final int NONEXISTENT_EDGE = -1;
-        int returnWeight = NONEXISTENT_EDGE;
+    public int getVertexCount() {
+        return _vertexIds.size();
+    }
 
-        // get the edge's weight if it exists. Since undirected graphs only
-        // store one side
-        if (edgeExists(source, destination)) {
-            returnWeight = _graph.get(source).get(destination);
-        }
 
-        return returnWeight;
+    /**
+     * Returns the id of the given vertex, or -1 if it is not in the graph.
+     *
+     * @param vertex vertex to look up
+     * @return the id of the vertex, or -1 if it does not exist
+     */
+    public int idOf(T vertex) {
+        final int NONEXISTENT_VERTEX = -1;
+        Integer vertexId = _vertexIds.get(vertex);
+
+        return vertexId == null ? NONEXISTENT_VERTEX : vertexId;
     }
 
 
     /**
-     * Returns the edge from the given edge than the given destination.
+     * Returns the vertex with the given id, or null if no vertex has it.
      *
-     * @param source source of the edge to return
-     * @param destination destination of the edge to return
-     * @return null if no such edge exists, otherwise returns an edge object
+     * @param vertexId id to look up
+     * @return the vertex with that id, or null if it does not exist
      */
-    public Edge<T> getEdge(T source, T destination) {
-        Edge<T> returnEdge = null;
+    public T vertexOf(int vertexId) {
+        T vertex = null;
 
-        // if the edge exists, create an edge from the source and destination
-        // given.
-        if (edgeExists(source, destination)) {
-            returnEdge = new Edge<>(source, destination,
-                    getEdgeWeight(source, destination));
+        if (vertexId >= 0 && vertexId < _vertices.size()) {
+            vertex = _vertices.get(vertexId);
         }
 
-        // returns null if no edge exists
-        return returnEdge;
+        return vertex;
     }
 
 
     /**
-     * Returns a list of all the edges in the graph. For an undirected graph,
-     * this only returns one direction instead of both.
+     * Returns one more than the largest id any vertex has had.
      *
-     * @return list of the edges in the graph.
+     * @return upper bound, exclusive, on the ids in the graph
      */
-    public List<Edge<T>> getEdges() {
-        HashSet<Edge<T>> edgeList = new HashSet<>();
-
-        // for every source vertex
-        for (T source : _graph.keySet()) {
-            // for every destination vertex
-            for (T dest : _graph.get(source).keySet()) {
-                // if this is a directed graph or this edge's reverse hasn't
-                // been added already
-                if (_isDirected || !edgeList.contains(new Edge<>(dest, source,
-                        getEdgeWeight(dest, source)))) {
-                    // add edge to edge list
-                    edgeList.add(new Edge<>(source, dest,
-                            getEdgeWeight(source, dest)));
-                }
-            }
+    public int getVertexIdBound() {
+        return _vertices.size();
+    }
+
+
+    /**
+     * Returns the weight of the edge that goes from the given source vertex
+     * to the given destination vertex, or -1 if no such edge is present.
+     *
+     * @param source vertex that the given edge begins from
+     * @param destination vertex that the given edge ends at
+     * @return integer weight of the given edge, or -1 if it does not exist
+     */
+    public int getEdgeWeight(T source, T destination) {
+        return getEdgeWeight(idOf(source), idOf(destination));
+    }
+
+
+    /**
+     * Returns the weight of the edge that goes from the vertex with the
+     * given source id to the vertex with the given destination id, or -1 if
+     * no such edge is present.
+     *
+     * @param source id of the vertex that the given edge begins from
+     * @param destination id of the vertex that the given edge ends at
+     * @return integer weight of the given edge, or -1 if it does not exist
+     */
+    public int getEdgeWeight(int source, int destination) {
+        final int NONEXISTENT_EDGE = -1;
+        int returnWeight = NONEXISTENT_EDGE;
+
+        // get the edge's weight if it exists. Since undirected graphs only
+        // store one side
+        if (edgeExists(source, destination)) {
+            AdjacencyMap edges = _graph.get(source);
+            returnWeight = edges.weightAt(edges.indexOf(destination));
         }
 
-        // now turn that hashSet into a List
-        return new ArrayList<>(edgeList);
+        return returnWeight;
     }
 
 
@@ -202,10 +261,23 @@ public class Graph<T> {
      * @return boolean representing existence
      */
     public boolean edgeExists(T source, T destination) {
+        return edgeExists(idOf(source), idOf(destination));
+    }
+
+
+    /**
+     * Returns true if the edge between the vertices with the given ids
+     * exists, false if not.
+     *
+     * @param source id of the vertex that the given edge begins from
+     * @param destination id of the vertex that the given edge ends at
+     * @return boolean representing existence
+     */
+    public boolean edgeExists(int source, int destination) {
         boolean edgeExists = false;
 
         // check to ensure that both vertices exist
-        if (_graph.containsKey(source) && _graph.containsKey(destination)) {
+        if (vertexOf(source) != null && vertexOf(destination) != null) {
             // if there is an edge from source to destination, the edge exists
             if (_graph.get(source).containsKey(destination)) {
                 edgeExists = true;
@@ -225,17 +297,44 @@ public class Graph<T> {
      * or if a duplicate vertex is added.
      */
     public void addVertex(T vertex) throws IllegalArgumentException {
+        int vertexId;
+
         // if the vertex is null, throw an exception
         if (vertex == null) {
             throw new IllegalArgumentException();
         }
         // if the graph already contains the vertex, throw an exception
-        else if (_graph.containsKey(vertex)) {
+        else if (_vertexIds.containsKey(vertex)) {
             throw new IllegalArgumentException();
         }
 
-        // add vertex to the first level of hashMap
-        _graph.put(vertex, new HashMap<>());
+        // reuse the id of a removed vertex if there is one, otherwise hand
+        // out the next new id
+        if (!_freeIds.isEmpty()) {
+            vertexId = _freeIds.pop();
+            _vertices.set(vertexId, vertex);
+            _graph.set(vertexId, new AdjacencyMap());
+            if (_isDirected) {
+                _reverseGraph.set(vertexId, new AdjacencyMap());
+            }
+        }
+        else {
+            vertexId = _vertices.size();
+            _vertices.add(vertex);
+            _graph.add(new AdjacencyMap());
+            if (_isDirected) {
+                _reverseGraph.add(new AdjacencyMap());
+            }
+            if (vertexId == _lastLengtheningChanges.length) {
+                _lastLengtheningChanges = Arrays.copyOf(
+                        _lastLengtheningChanges, 2 * vertexId);
+            }
+        }
+
+        _vertexIds.put(vertex, vertexId);
+        for (Listener<T> listener : _listeners) {
+            listener.vertexAdded(vertex);
+        }
     }
 
 
@@ -247,24 +346,34 @@ public class Graph<T> {
      * @throws NoSuchElementException if the vertex is not found in the graph
      */
     public void removeVertex(T vertex) throws NoSuchElementException {
+        int vertexId = idOf(vertex);
+
         // if vertex not in graph, throw exception
-        if (!_graph.containsKey(vertex)) {
+        if (vertexId < 0) {
             throw new NoSuchElementException();
         }
 
-        // check every vertex to see if it has an edge going to this vertex
-        for (T source : _graph.keySet()) {
-            // checks the vertex's hashMap of edges to see if any connect
-            // to the vertex we are removing
-            if (_graph.get(source).containsKey(vertex)) {
-                // removes the edge
-                removeEdge(source, vertex);
-            }
+        // remove every edge going to this vertex, which its map of incoming
+        // edges lists, and then every edge originating from it
+        for (int source : neighborIds(_reverseGraph.get(vertexId))) {
+            removeEdge(source, vertexId);
+        }
+        for (int destination : neighborIds(_graph.get(vertexId))) {
+            removeEdge(vertexId, destination);
         }
 
-        // remove the vertex itself, along with any edges originating
-        // from it
-        _graph.remove(vertex);
+        // remove the vertex itself and free up its id. A reused id keeps
+        // this change, so nothing recorded about the old vertex carries over
+        // to the new one
+        _lastLengtheningChanges[vertexId] = ++_changeCount;
+        _vertexIds.remove(vertex);
+        _vertices.set(vertexId, null);
+        _graph.set(vertexId, null);
+        _reverseGraph.set(vertexId, null);
+        _freeIds.push(vertexId);
+        for (Listener<T> listener : _listeners) {
+            listener.vertexRemoved(vertex);
+        }
     }
 
 
@@ -283,31 +392,42 @@ public class Graph<T> {
      */
     public void addEdge(T source, T destination, int weight)
             throws IllegalArgumentException, NoSuchElementException {
+        int sourceId = idOf(source);
+        int destinationId = idOf(destination);
 
         // if this would be a loop or the source or destination is null,
         // throw an exception
-        if (!_graph.containsKey(source) ||
-                !_graph.containsKey(destination)) {
+        if (sourceId < 0 || destinationId < 0) {
             throw new NoSuchElementException();
         }
-        else if (source.equals(destination)) {
+        else if (sourceId == destinationId) {
             throw new IllegalArgumentException();
         }
 
-        // if the edge does not yet exist
-        if (!edgeExists(source, destination)) {
-            _graph.get(source).put(destination, weight);
-            if (!_isDirected) {
-                _graph.get(destination).put(source, weight);
-            }
+        // a new or lighter edge can shorten paths anywhere, while a heavier
+        // one can only lengthen paths through its ends
+        int oldWeight = getEdgeWeight(sourceId, destinationId);
+        if (oldWeight < 0 || weight < oldWeight) {
+            _lastShorteningChange = ++_changeCount;
         }
-        // if the edge does exist, update the weight
-        else {
-            // update the source->destination edge, vice-versa as well if
-            // undirected
-            _graph.get(source).replace(destination, weight);
-            if (!_isDirected) {
-                _graph.get(destination).replace(source, weight);
+        else if (weight > oldWeight) {
+            recordLengthening(sourceId, destinationId);
+        }
+
+        // put adds the edge if it does not yet exist and updates the weight
+        // if it does. Record it among the destination's incoming edges too,
+        // which for an undirected graph is the destination->source edge
+        _graph.get(sourceId).put(destinationId, weight);
+        _reverseGraph.get(destinationId).put(sourceId, weight);
+        _maxEdgeWeight = Math.max(_maxEdgeWeight, weight);
+
+        // a new weight is told as the old edge going and the new one coming
+        if (oldWeight != weight) {
+            for (Listener<T> listener : _listeners) {
+                if (oldWeight >= 0) {
+                    listener.edgeRemoved(source, destination, oldWeight);
+                }
+                listener.edgeAdded(source, destination, weight);
             }
         }
     }
@@ -324,459 +444,47 @@ public class Graph<T> {
      */
     public void removeEdge(T source, T destination) throws
             NoSuchElementException {
-
-        // if the graph doesn't contain the source, destination, or edge
-        // between them, throw an exception
-        if (!_graph.containsKey(source) || !_graph.containsKey(destination)
-                || !edgeExists(source, destination)) {
-            throw new NoSuchElementException();
-        }
-
-        // remove destination vertex from source in base hashMap. If
-        // undirected, check the other direction to remove that one as well
-        _graph.get(source).remove(destination);
-        if (!_isDirected) {
-            _graph.get(destination).remove(source);
-        }
-    }
-
-
-    /**
-     * Returns the length of the given set of vertices if they are a path
-     * through the graph. If they are not a path or the list is empty, then
-     * this returns -1.
-     *
-     * @param pathList list of vertices
-     * @return -1 for an empty list or a nonexistent path, length of path
-     * otherwise
-     */
-    public long pathLength(List<T> pathList) {
-        final long NO_PATH_EXISTS = -1;
-        long length = 0;
-        boolean isPath = true;
-        int pathIndex = 0;
-        T currentVertex = null;
-        T lastVertex = null;
-
-        // skips the check if an empty set is given
-        if (pathList.size() == 0) {
-            isPath = false;
-        }
-        // initializes the lastVertex to the first vertex in the array.
-        else {
-            lastVertex = pathList.get(0);
-        }
-
-        // for each element in the path list
-        while (isPath && pathIndex < pathList.size()) {
-            currentVertex = pathList.get(pathIndex);
-
-            // if the vertex does not exist in the graph
-            if (!_graph.containsKey(currentVertex)) {
-                isPath = false;
-            }
-            // if an edge exists from the last vertex to this one, add its
-            // weight to the length
-            else if (_graph.get(lastVertex).containsKey(currentVertex)) {
-                length += getEdgeWeight(lastVertex, currentVertex);
-            }
-
-            pathIndex++;
-            lastVertex = currentVertex;
-        }
-
-        if (!isPath) {
-            length = NO_PATH_EXISTS;
-        }
-
-        return length;
-    }
-
-
-    /**
-     * Finds the shortest path between the source and the destination
-     * vertices. Returns null if no path exists.
-     *
-     * @param source vertex to try to find the shortest path from
-     * @param destination vertex to try to find the shortest path to
-     * @return null if no path exists, otherwise list of edges that
-     * constitute the shortest path from the given source to the given
-     * destination
-     * @throws NoSuchElementException
-     */
-    public List<Edge<T>> shortestPathBetween(T source, T destination)
-            throws NoSuchElementException {
-        // set up variables
-        List<Edge<T>> shortestPath = new ArrayList<>();
-        HashMap<T, Edge<T>> connectedElements = new HashMap<>();
-        PriorityQueue<Edge<T>> frontier = new PriorityQueue<>();
-        T currentVertex = null;
-        Edge<T> currentEdge = new Edge<>(null, source, 0);
-        int pathWeight;
-
-        // if source and destination vertices not in graph, throw exception
-        if (!_graph.containsKey(source) || !_graph.containsKey(destination)) {
-            throw new NoSuchElementException();
-        }
-
-
-        // otherwise, start with the source and begin finding neighbors.
-        connectedElements.put(source, currentEdge);
-
-        // this allows the special case of an empty set, given source ==
-        // destination
-        if (source != destination) {
-            // find the neighbors of the source and add them to the frontier
-            for (T vertex : _graph.get(source).keySet()) {
-                if (!connectedElements.containsKey(vertex)) {
-                    // add the weight of the nearest edge added to the
-                    // weight of the path taken to reach this point
-                    pathWeight = getEdgeWeight(source, vertex) +
-                            connectedElements.get(source).getWeight();
-
-                    // add the edge to the frontier with the correct weight
-                    frontier.offer(new Edge<>(source, vertex,
-                            pathWeight));
-                }
-            }
-
-            // this loops until the graph has been searched or the
-            // destination has been found.
-            do {
-                // the edge with the least total pathWeight is the next to add
-                // to connectedVertices
-                do {
-                    // define it as the next edge to work with
-                    currentEdge = frontier.poll();
-                }
-                while (!frontier.isEmpty() && connectedElements.containsKey(
-                        currentEdge.getDestination()));
-
-                // add the edge and its destination vertex to the
-                // connectedElements set
-                currentVertex = currentEdge.getDestination();
-                connectedElements.put(currentVertex, currentEdge);
-
-                // add every edge connected to the recent new addition to the
-                // connectedElements set
-                for (T vertex : _graph.get(currentVertex).keySet()) {
-                    if (!connectedElements.containsKey(vertex)) {
-                        // add the weight of the nearest edge added to the
-                        // weight of the path taken to reach this point
-                        pathWeight = getEdgeWeight(currentVertex, vertex) +
-                                connectedElements.get(currentVertex).getWeight();
-
-                        // add the edge to the frontier with the correct weight
-                        frontier.offer(new Edge<>(currentVertex, vertex,
-                                pathWeight));
-                    }
-                }
-            }
-            // if the frontier has had no new elements added and is empty,
-            // then the graph is unconnected. If the destination has been
-            // found, then the shortest path has been found and this can exit.
-            while (!frontier.isEmpty() &&
-                    !connectedElements.containsKey(destination));
-
-
-            // when we first hit this, the current vertex will be the destination
-            // and the current edge will be the path taken to get there.
-            while (currentEdge.getSource() != null &&
-                    connectedElements.containsKey(destination)) {
-                // add the current edge to shortest path, but with the proper
-                // weight from the graph itself.
-                shortestPath.add(new Edge<>(currentEdge.getSource(), currentVertex,
-                        getEdgeWeight(currentEdge.getSource(), currentVertex)));
-
-                // reset current edge as the edge connecting to it
-                currentVertex = currentEdge.getSource();
-                currentEdge = connectedElements.get(currentVertex);
-            }
-
-            // the shortest path was just built in reverse, and now it needs
-            // to be reversed back to look proper.
-            Collections.reverse(shortestPath);
-
-            // if no destination was ever found, then return null
-            if (!connectedElements.containsKey(destination)) {
-                shortestPath = null;
-            }
-        }
-
-        return shortestPath;
+        removeEdge(idOf(source), idOf(destination));
     }
 
 
     /**
-     * Returns the minimum spanning tree of this graph, if undirected. If
-     * directed, it throws an IllegalStateException. This uses Prim's
-     * Algorithm, and as such is better for dense graphs. Returns null if no
-     * spanning tree exists.
+     * String representation of the graph.
      *
-     * @return a graph representation of a minimum spanning tree of this
-     * graph. null if no spanning tree exists
-     * @throws IllegalStateException if this graph is directed.
+     * @return representation of graph in string form
      */
-    public Graph<T> minimumSpanningTree() throws IllegalStateException {
-        // cannot be directed
-        if (_isDirected) {
-            throw new IllegalStateException();
-        }
-
-        Graph<T> minSpanTree = new Graph<>(false);
-        PriorityQueue<Edge<T>> edgeQueue = new PriorityQueue<>();
-        T currentVertex = null;
-        Edge<T> currentEdge = null;
-        boolean graphUnconnected = false;
-
-        // if the graph isn't empty
-        if (_graph.size() > 0) {
-            // pick a vertex to add to the min span tree
-            currentVertex = getVertices().get(0);
-            // add that vertex to the minimum spanning tree
-            minSpanTree.addVertex(currentVertex);
-
-            // for every edge connected to the first vertex
-            for (T destination : _graph.get(currentVertex).keySet()) {
-                // if the destination of the edge coming from the first
-                // vertex is not already in the minimum spanning tree
-                if (!minSpanTree.vertexExists(destination)) {
-                    // add the edge from the first vertex to a vertex not in
-                    // the minSpanTree to the priority queue.
-                    edgeQueue.offer(new Edge<>(currentVertex, destination,
-                            getEdgeWeight(currentVertex, destination)));
-                }
-            }
-
-            // for as many vertices as there are in the graph
-            for (int i = 0; i < _graph.keySet().size()-1; i++) {
-
-                // the next edge to add to the minimum spanning tree is the edge
-                // currently connected to the min span tree by only one vertex
-                // that also has the lowest weight.
-                do {
-                    currentEdge = edgeQueue.poll();
+    public String toString() {
+        StringBuilder graphString = new StringBuilder();
+        boolean firstVertex = true;
+
+        graphString.append("Directed: ").append(_isDirected).append(" {");
+        for (int source = 0; source < _vertices.size(); source++) {
+            if (_vertices.get(source) != null) {
+                if (!firstVertex) {
+                    graphString.append(", ");
                 }
-                while (!edgeQueue.isEmpty() && minSpanTree.vertexExists(
-                        currentEdge.getDestination()));
-
-                // if the edgeQueue had anything in it, and the min span tree
-                // doesn't already contain the destination of the new edge
-
-                // add this edge to the min span tree
-                minSpanTree.addVertex(currentEdge.getDestination());
-                minSpanTree.addEdge(currentEdge);
-
-                // the most recently added vertex to the min span tree is now the
-                // destination of the recently added edge.
-                currentVertex = currentEdge.getDestination();
-
-                // for every edge connected to the most recently added vertex
-                for (T destination : _graph.get(currentVertex).keySet()) {
-                    // if the destination of the edge coming from the current
-                    // vertex is not already in the minimum spanning tree
-                    if (!minSpanTree.vertexExists(destination)) {
-                        // add the edge from the most recently added vertex to a
-                        // vertex not in the minSpanTree to the priority queue.
-                        edgeQueue.offer(new Edge<>(currentVertex, destination,
-                                getEdgeWeight(currentVertex, destination)));
+                firstVertex = false;
+
+                // list each vertex's edges by the name of the destination
+                graphString.append(_vertices.get(source)).append("={");
+                AdjacencyMap edges = _graph.get(source);
+                boolean firstEdge = true;
+                for (int slot = 0; slot < edges.capacity(); slot++) {
+                    if (edges.keyAt(slot) >= 0) {
+                        if (!firstEdge) {
+                            graphString.append(", ");
+                        }
+                        firstEdge = false;
+                        graphString.append(_vertices.get(edges.keyAt(slot)))
+                                .append('=').append(edges.weightAt(slot));
                     }
                 }
-
-                // if there are no edges in the edgeQueue even after the most
-                // recently added vertex should have added some new ones, then
-                // this must be a disconnected graph
-                if (edgeQueue.isEmpty()) {
-                    graphUnconnected = true;
-                }
-            }
-        }
-
-        // if the graph is unconnected, return null.
-        if (graphUnconnected) {
-            minSpanTree = null;
-        }
-
-        return minSpanTree;
-    }
-
-
-    /**
-     * Implements Tao and Michalewicz' Inver-Over genetic algorithm to find
-     * the optimal tour in this graph.
-     *
-     * The paper describing this algorithm can be found at:
-     * http://dl.acm.org/citation.cfm?id=668606
-     *
-     * N.B. This implementation of the Inver-Over algorithm only accepts
-     * fully connected graphs.
-     *
-     * @param populationSize number of solutions to maintain at a time
-     * @param inversionProbability probability that a current child will
-     *                             attempt to find new connections within the
-     *                             same solution tour.
-     * @param terminationIterations how many iterations to run before
-     *                              terminating
-     *
-     * @return a list of vertices that constitute the optimal tour through
-     * the graph.
-     */
-    public List<T> getOptimalTour(int populationSize,
-                                  float inversionProbability,
-                                  int terminationIterations) {
-        List<ArrayList<T>> population = new ArrayList<>();
-        ArrayList<T> solution = null;
-        ArrayList<T> childSolution = null;
-        ArrayList<T> compSolution = null;
-
-        T childVertex;
-        T compVertex;
-
-        int vertIndex = 0;
-        int tempIndex = 0;
-        int compIndex = 0;
-
-        int numInversions = 0;
-
-        long shortestPathLength = -1;
-        long compPathLength = -1;
-        List<T> shortestPath = null;
-
-        boolean compareCities = true;
-
-        // initialize population randomly
-        for (int i = 0; i < populationSize; i++) {
-            // create an arraylist with each element of the graph
-            solution = new ArrayList<>(_graph.keySet());
-            // shuffle that solution
-            Collections.shuffle(solution);
-            // add the solution to the population
-            population.add(solution);
-            // if this is the first solution, make it the shortest path
-            if (shortestPathLength == -1) {
-                shortestPathLength = pathLength(solution);
-                shortestPath = solution;
-            }
-            // if this is the new shortest path, make it the new shortest path
-            else if (shortestPathLength > pathLength(solution)) {
-                shortestPathLength = pathLength(solution);
-                shortestPath = solution;
+                graphString.append('}');
             }
         }
+        graphString.append('}');
 
-        // while the termination condition is not satisfied
-        for (int i = 0; i < terminationIterations; i++) {
-            // for each element of the population
-            for (int j = 0; j < populationSize; j++) {
-                solution = population.get(j);
-                // create childSolution as a clone of the current solution
-                childSolution = (ArrayList<T>) solution.clone();
-                // randomly select a city vertex from childSolution
-                vertIndex = (int) Math.round(Math.random()*(solution.size()-1));
-                childVertex = childSolution.get(vertIndex);
-                compareCities = true;
-                // repeat until the flag is tripped
-                while (compareCities) {
-                    // if a random number is less than the inversionProb
-                    if (Math.random() < inversionProbability) {
-                        // select comparison solution randomly from the other
-                        // cities in childSolution
-                        compSolution = childSolution;
-                        do {
-                            compIndex = (int) Math.round(Math.random()*
-                                    (solution.size()-1));
-                        }
-                        while (childSolution.get(vertIndex).equals
-                                (childSolution.get(compIndex)));
-                    }
-                    else {
-                        do {
-                            // randomly select an individual comparison
-                            // solution from the population
-                            compSolution = population.get((int) Math.round(
-                                    Math.random() * (populationSize - 1)));
-                        }
-                        while (compSolution.equals(solution));
-                        // assign the comparison city as the city following
-                        // the child city in the comparison solution
-                        if (compSolution.indexOf(childVertex) ==
-                                compSolution.size() - 1) {
-                            // if this is the last element, the 'next'
-                            // element is the first one
-                            compIndex = 0;
-                        }
-                        else {
-                            // otherwise it's the next element
-                            compIndex = compSolution.indexOf(childVertex) + 1;
-                        }
-                    }
-
-                    // temp index is the location of the comparison city in
-                    // the original child solution
-                    tempIndex = childSolution.indexOf(compSolution.get
-                            (compIndex));
-                    // if the original city and the comparison city are
-                    // adjacent in the original child solution, then end the
-                    // iteration
-                    if (vertIndex != 0 &&
-                            Math.abs(vertIndex - tempIndex) == 1) {
-                        compareCities = false;
-                    }
-                    else if (vertIndex == 0 && (tempIndex == childSolution
-                            .size() - 1 || tempIndex == vertIndex + 1)) {
-                        compareCities = false;
-                    }
-
-                    // invert the sequence between the child city and the
-                    // comparison city in the child solution
-                    if (vertIndex < tempIndex) {
-                        // this inverts if the child city is before the
-                        // comparison city in the child solution.
-                        Collections.reverse(childSolution.subList(vertIndex + 1,
-                                tempIndex + 1));
-                        numInversions++;
-                    }
-                    else if (vertIndex > tempIndex) {
-                        // this inverts if the child city is after the
-                        // comparison city in the child solution.
-                        Collections.reverse(childSolution.subList(tempIndex,
-                                vertIndex));
-                        numInversions++;
-                    }
-
-                    // set the child city to equal the comparison city
-                    vertIndex = childSolution.indexOf
-                            (compSolution.get(compIndex));
-                    childVertex = childSolution.get(vertIndex);
-                } // end repeat
-
-                // if the child solution is a shorter path than the original
-                // solution, replace the original solution with the child
-                compPathLength = pathLength(childSolution);
-                if (compPathLength < pathLength(solution)) {
-                    // sets the original solution to equal the child
-                    population.set(j, childSolution);
-                    // if this child is shorter than the current shortest path,
-                    // remember it as the new shortest path.
-                    if (compPathLength < shortestPathLength) {
-                        shortestPathLength = compPathLength;
-                        shortestPath = childSolution;
-                    }
-                }
-            } // end for
-        } // end for
-
-        return shortestPath;
-    }
-
-
-    /**
-     * String representation of the graph.
-     *
-     * @return representation of graph in string form
-     */
-    public String toString() {
-        return "Directed: " + _isDirected + " " + _graph.toString();
+        return graphString.toString();
     }
 
 
@@ -968,8 +676,298 @@ public class Graph<T> {
      * @param vertex vertex to check existence of
      * @return true if vertex is in the graph, false otherwise.
      */
-    private boolean vertexExists(T vertex) {
-        return _graph.containsKey(vertex);
+    protected boolean vertexExists(T vertex) {
+        return _vertexIds.containsKey(vertex);
+    }
+
+
+    /**
+     * Returns the destinations of every edge leaving the given vertex. The
+     * vertex is assumed to be in the graph.
+     *
+     * @param vertex vertex whose neighbors to return
+     * @return the vertices that the given vertex has an edge going to
+     */
+    protected Collection<T> getNeighbors(T vertex) {
+        final AdjacencyMap edges = _graph.get(idOf(vertex));
+
+        // present the occupied slots as the vertices they stand for
+        return new AbstractCollection<T>() {
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    private int _slot = nextSlot(0);
+
+                    public boolean hasNext() {
+                        return _slot < edges.capacity();
+                    }
+
+                    public T next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        T neighbor = _vertices.get(edges.keyAt(_slot));
+                        _slot = nextSlot(_slot + 1);
+                        return neighbor;
+                    }
+
+                    private int nextSlot(int slot) {
+                        while (slot < edges.capacity() &&
+                                edges.keyAt(slot) < 0) {
+                            slot++;
+                        }
+                        return slot;
+                    }
+                };
+            }
+
+            public int size() {
+                return edges.size();
+            }
+        };
+    }
+
+
+    /**
+     * Returns the first slot of the vertex's map of edges.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return first slot of the vertex's edges
+     */
+    protected int firstEdgeSlot(int vertexId) {
+        return 0;
+    }
+
+
+    /**
+     * Returns the number of slots in the vertex's map of edges.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return end slot, exclusive, of the vertex's edges
+     */
+    protected int endEdgeSlot(int vertexId) {
+        return _graph.get(vertexId).capacity();
+    }
+
+
+    /**
+     * Returns the destination id held in the given slot of the vertex's map
+     * of edges, or -1 if the slot is empty.
+     *
+     * @param vertexId id of the vertex the edge leaves
+     * @param slot slot of the edge
+     * @return id of the edge's destination, or -1 for an empty slot
+     */
+    protected int edgeTargetAt(int vertexId, int slot) {
+        return _graph.get(vertexId).keyAt(slot);
+    }
+
+
+    /**
+     * Returns the weight held in the given slot of the vertex's map of
+     * edges.
+     *
+     * @param vertexId id of the vertex the edge leaves
+     * @param slot slot of the edge
+     * @return weight of the edge
+     */
+    protected int edgeWeightAt(int vertexId, int slot) {
+        return _graph.get(vertexId).weightAt(slot);
+    }
+
+
+    /**
+     * Returns the first slot of the vertex's map of incoming edges.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return first slot of the vertex's incoming edges
+     */
+    protected int firstInEdgeSlot(int vertexId) {
+        return 0;
+    }
+
+
+    /**
+     * Returns the number of slots in the vertex's map of incoming edges.
+     *
+     * @param vertexId id of a vertex in the graph
+     * @return end slot, exclusive, of the vertex's incoming edges
+     */
+    protected int endInEdgeSlot(int vertexId) {
+        return _reverseGraph.get(vertexId).capacity();
+    }
+
+
+    /**
+     * Returns the source id held in the given slot of the vertex's map of
+     * incoming edges, or -1 if the slot is empty.
+     *
+     * @param vertexId id of the vertex the edge enters
+     * @param slot slot of the edge
+     * @return id of the edge's source, or -1 for an empty slot
+     */
+    protected int inEdgeSourceAt(int vertexId, int slot) {
+        return _reverseGraph.get(vertexId).keyAt(slot);
+    }
+
+
+    /**
+     * Returns the weight held in the given slot of the vertex's map of
+     * incoming edges.
+     *
+     * @param vertexId id of the vertex the edge enters
+     * @param slot slot of the edge
+     * @return weight of the edge
+     */
+    protected int inEdgeWeightAt(int vertexId, int slot) {
+        return _reverseGraph.get(vertexId).weightAt(slot);
+    }
+
+
+    /**
+     * Returns a number no smaller than the weight of any edge in the graph.
+     * It only ever goes up, so after edges are removed it may be larger
+     * than the heaviest edge left.
+     *
+     * @return upper bound on the edge weights
+     */
+    protected int getMaxEdgeWeight() {
+        return _maxEdgeWeight;
+    }
+
+
+    /**
+     * Returns the number of changes made to the graph so far. Adding a
+     * vertex is not counted, as it cannot change any path.
+     *
+     * @return number of changes to the graph
+     */
+    protected long getChangeCount() {
+        return _changeCount;
+    }
+
+
+    /**
+     * Returns the number of the last change that could have made some path
+     * shorter or joined two vertices that had no path between them, which
+     * is adding an edge or lowering its weight.
+     *
+     * @return number of the last such change, or 0 if there has been none
+     */
+    protected long getLastShorteningChange() {
+        return _lastShorteningChange;
+    }
+
+
+    /**
+     * Returns the number of the last change that could have made a path
+     * through the given vertex longer or broken it, which is removing an
+     * edge at the vertex, raising its weight, or removing the vertex.
+     *
+     * @param vertexId id of the vertex
+     * @return number of the last such change, or 0 if there has been none
+     */
+    protected long getLastLengtheningChange(int vertexId) {
+        return _lastLengtheningChanges[vertexId];
+    }
+
+
+    /**
+     * Copies out the vertex ids held in a map of edges, so that the edges
+     * can be removed while walking over them.
+     *
+     * @param edges map of edges to read
+     * @return the ids of the other end of every edge in the map
+     */
+    private static int[] neighborIds(AdjacencyMap edges) {
+        int[] neighborIds = new int[edges.size()];
+        int neighborIndex = 0;
+
+        for (int slot = 0; slot < edges.capacity(); slot++) {
+            if (edges.keyAt(slot) >= 0) {
+                neighborIds[neighborIndex++] = edges.keyAt(slot);
+            }
+        }
+
+        return neighborIds;
+    }
+
+
+    /**
+     * Removes the edge between the vertices with the given ids, along with
+     * its reverse if this is an undirected graph.
+     *
+     * @param source id of the vertex that the edge to remove begins from
+     * @param destination id of the vertex that the edge to remove ends at
+     * @throws NoSuchElementException if the edge is not found
+     */
+    private void removeEdge(int source, int destination)
+            throws NoSuchElementException {
+
+        // if the graph doesn't contain the source, destination, or edge
+        // between them, throw an exception
+        if (!edgeExists(source, destination)) {
+            throw new NoSuchElementException();
+        }
+
+        int weight = getEdgeWeight(source, destination);
+
+        // remove destination vertex from source's map of edges, and the
+        // source from the destination's incoming edges. If undirected, that
+        // removes the other direction as well
+        _graph.get(source).remove(destination);
+        _reverseGraph.get(destination).remove(source);
+        recordLengthening(source, destination);
+        for (Listener<T> listener : _listeners) {
+            listener.edgeRemoved(_vertices.get(source),
+                    _vertices.get(destination), weight);
+        }
+    }
+
+
+    /**
+     * Records a change to the edge between the given vertices that can only
+     * make paths using it longer.
+     *
+     * @param source id of the vertex the edge begins from
+     * @param destination id of the vertex the edge ends at
+     */
+    private void recordLengthening(int source, int destination) {
+        _changeCount++;
+        _lastLengtheningChanges[source] = _changeCount;
+        _lastLengtheningChanges[destination] = _changeCount;
+    }
+
+
+    /**
+     * Registers a listener to be told of every change to the graph from now
+     * on, just after it is made.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(Listener<T> listener) {
+        _listeners.add(listener);
+    }
+
+
+    /**
+     * Stops telling the given listener of changes to the graph. Does
+     * nothing if it was not registered.
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(Listener<T> listener) {
+        _listeners.remove(listener);
+    }
+
+
+    /**
+     * Builds a read-only snapshot of this graph in compressed sparse row
+     * form. Later changes to this graph are not seen by the snapshot.
+     *
+     * @return a frozen copy of this graph
+     */
+    public CsrGraph<T> freeze() {
+        return new CsrGraph<>(this);
     }
 
 
@@ -979,7 +977,7 @@ public class Graph<T> {
      * @param edgeToAdd Edge<T> to add
      * @throws IllegalArgumentException when null is given as the edge to add
      */
-    private void addEdge(Edge<T> edgeToAdd) throws IllegalArgumentException{
+    void addEdge(Edge<T> edgeToAdd) throws IllegalArgumentException{
         if (edgeToAdd == null) {
             throw new IllegalArgumentException();
         }
@@ -989,6 +987,56 @@ public class Graph<T> {
         }
     }
 
+    /**
+     * Receives the changes made to a graph, for structures that are kept up
+     * to date alongside it rather than rebuilt after every change. Each
+     * method is called just after the change is made, and does nothing
+     * unless overridden. For an undirected graph, an edge is told once, in
+     * the direction it was added or removed.
+     *
+     * @param <E> type of the vertices in the graph
+     */
+    public interface Listener<E> {
+        /**
+         * Called when a vertex is added.
+         *
+         * @param vertex the new vertex
+         */
+        default void vertexAdded(E vertex) {}
+
+
+        /**
+         * Called when a vertex is removed, after each of its edges has been
+         * removed and told of.
+         *
+         * @param vertex the removed vertex
+         */
+        default void vertexRemoved(E vertex) {}
+
+
+        /**
+         * Called when an edge is added, or when an existing edge is given
+         * a new weight, just after its removal at the old weight is told.
+         *
+         * @param source vertex the edge begins from
+         * @param destination vertex the edge ends at
+         * @param weight weight of the edge
+         */
+        default void edgeAdded(E source, E destination, int weight) {}
+
+
+        /**
+         * Called when an edge is removed, or is about to be told as added
+         * again with a new weight.
+         *
+         * @param source vertex the edge began from
+         * @param destination vertex the edge ended at
+         * @param weight weight the edge had
+         */
+        default void edgeRemoved(E source, E destination, int weight) {}
+    }
+
+
     /**
      * Inner class that simplifies the external representation of edges.
      * Originally intended for use with the Graph class.
@@ -0,0 +1,86 @@
+import java.util.Map;
+
+/**
+ * Lower bound on the length of the shortest path between two vertices,
+ * used to steer {@link AbstractGraph#aStar(Object, Object, Heuristic)}
+ * toward the destination. An estimate must never be more than the true
+ * shortest path length, or A* may return a path that is not the shortest.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public interface Heuristic<T> {
+
+    /**
+     * Returns a lower bound on the length of the shortest path from the
+     * given vertex to the destination.
+     *
+     * @param vertex vertex the path starts from
+     * @param destination vertex the path ends at
+     * @return non-negative lower bound on the path length
+     */
+    long estimate(T vertex, T destination);
+
+
+    /**
+     * Returns a heuristic that always estimates zero. A* with this heuristic
+     * settles vertices in the same order as Dijkstra's algorithm.
+     *
+     * @param <T> type of the vertices in the graph
+     * @return the zero heuristic
+     */
+    static <T> Heuristic<T> zero() {
+        return new Heuristic<T>() {
+            public long estimate(T vertex, T destination) {
+                return 0;
+            }
+        };
+    }
+
+
+    /**
+     * Returns a heuristic that estimates the straight-line distance between
+     * two vertices from their coordinates. It is a lower bound as long as
+     * no edge weighs less than the distance between its ends. A vertex
+     * without coordinates is estimated at zero.
+     *
+     * @param coordinates x and y coordinates of each vertex
+     * @param <T> type of the vertices in the graph
+     * @return the Euclidean heuristic
+     */
+    static <T> Heuristic<T> euclidean(Map<T, double[]> coordinates) {
+        return euclidean(coordinates, 1.0);
+    }
+
+
+    /**
+     * Returns a heuristic that estimates the straight-line distance between
+     * two vertices from their coordinates, multiplied by the given scale to
+     * bring it into the units of the edge weights. It is a lower bound as
+     * long as no edge weighs less than the scaled distance between its
+     * ends. A vertex without coordinates is estimated at zero.
+     *
+     * @param coordinates x and y coordinates of each vertex
+     * @param scale edge weight per unit of distance
+     * @param <T> type of the vertices in the graph
+     * @return the scaled Euclidean heuristic
+     */
+    static <T> Heuristic<T> euclidean(final Map<T, double[]> coordinates,
+                                      final double scale) {
+        return new Heuristic<T>() {
+            public long estimate(T vertex, T destination) {
+                double[] from = coordinates.get(vertex);
+                double[] to = coordinates.get(destination);
+                long estimate = 0;
+
+                // rounding down keeps the estimate from overshooting the
+                // integer path lengths
+                if (from != null && to != null) {
+                    estimate = (long) Math.floor(scale *
+                            Math.hypot(from[0] - to[0], from[1] - to[1]));
+                }
+
+                return estimate;
+            }
+        };
+    }
+}
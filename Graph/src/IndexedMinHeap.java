@@ -0,0 +1,183 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over vertex ids with a key per vertex. Every id has a
+ * fixed spot in a position index, so a vertex already in the heap can have
+ * its key lowered in place rather than being pushed a second time. The heap
+ * therefore never holds more than one entry per vertex and never allocates
+ * after construction.
+ */
+class IndexedMinHeap extends DistanceQueue {
+    private static final int NOT_IN_HEAP = -1;
+
+    private int[] _heap;
+    private int[] _positions;
+    private long[] _keys;
+    private int _size;
+
+    /**
+     * Constructs an empty heap for the ids 0 through capacity-1.
+     *
+     * @param capacity one more than the largest id the heap will hold
+     */
+    IndexedMinHeap(int capacity) {
+        _heap = new int[capacity];
+        _positions = new int[capacity];
+        _keys = new long[capacity];
+        _size = 0;
+        Arrays.fill(_positions, NOT_IN_HEAP);
+    }
+
+
+    /**
+     * Returns true if the heap has no entries.
+     *
+     * @return true if the heap is empty
+     */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+
+    /**
+     * Returns the number of entries in the heap.
+     *
+     * @return the number of entries in the heap
+     */
+    int size() {
+        return _size;
+    }
+
+
+    /**
+     * Returns true if the given id is in the heap.
+     *
+     * @param id id to check
+     * @return true if the id is in the heap
+     */
+    boolean contains(int id) {
+        return _positions[id] != NOT_IN_HEAP;
+    }
+
+
+    /**
+     * Returns the smallest key in the heap without removing it. The heap
+     * must not be empty.
+     *
+     * @return the smallest key
+     */
+    long peekKey() {
+        return _keys[_heap[0]];
+    }
+
+
+    /**
+     * Adds the id with the given key, or lowers its key if it is already in
+     * the heap with a larger one. A key larger than the current one is
+     * ignored.
+     *
+     * @param id id to add or update
+     * @param key new key of the id
+     */
+    void offer(int id, long key) {
+        if (_positions[id] == NOT_IN_HEAP) {
+            _heap[_size] = id;
+            _positions[id] = _size;
+            _keys[id] = key;
+            siftUp(_size++);
+        }
+        else if (key < _keys[id]) {
+            _keys[id] = key;
+            siftUp(_positions[id]);
+        }
+    }
+
+
+    /**
+     * Removes and returns the id with the smallest key. The heap must not be
+     * empty.
+     *
+     * @return the id with the smallest key
+     */
+    int poll() {
+        int minimum = _heap[0];
+
+        // move the last entry to the root and let it sink into place
+        _size--;
+        _positions[minimum] = NOT_IN_HEAP;
+        if (_size > 0) {
+            _heap[0] = _heap[_size];
+            _positions[_heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return minimum;
+    }
+
+
+    /**
+     * Removes every entry from the heap. Runs in time proportional to the
+     * number of entries, not the capacity.
+     */
+    void clear() {
+        for (int i = 0; i < _size; i++) {
+            _positions[_heap[i]] = NOT_IN_HEAP;
+        }
+        _size = 0;
+    }
+
+
+    /**
+     * Moves the entry at the given position up until its parent's key is no
+     * larger than its own.
+     *
+     * @param position position of the entry to move
+     */
+    private void siftUp(int position) {
+        int id = _heap[position];
+        long key = _keys[id];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (_keys[_heap[parent]] <= key) {
+                break;
+            }
+            _heap[position] = _heap[parent];
+            _positions[_heap[position]] = position;
+            position = parent;
+        }
+
+        _heap[position] = id;
+        _positions[id] = position;
+    }
+
+
+    /**
+     * Moves the entry at the given position down until neither child has a
+     * smaller key.
+     *
+     * @param position position of the entry to move
+     */
+    private void siftDown(int position) {
+        int id = _heap[position];
+        long key = _keys[id];
+        int half = _size >>> 1;
+
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < _size &&
+                    _keys[_heap[child + 1]] < _keys[_heap[child]]) {
+                child++;
+            }
+            if (key <= _keys[_heap[child]]) {
+                break;
+            }
+            _heap[position] = _heap[child];
+            _positions[_heap[position]] = position;
+            position = child;
+        }
+
+        _heap[position] = id;
+        _positions[id] = position;
+    }
+}
@@ -0,0 +1,356 @@
+import java.util.*;
+
+/**
+ * Tao and Michalewicz' Inver-Over genetic algorithm for short tours
+ * through every vertex of a graph, as run by
+ * {@link AbstractGraph#getOptimalTour(int, float, int)}.
+ *
+ * The cities are numbered 0 through n-1 in the order of
+ * {@link TourDistances#getCities()}, and each tour is an int[] of city
+ * numbers with an inverse int[] giving the position of each city in it.
+ * Finding a city in a tour is then a single array read rather than a scan,
+ * and an inversion only has to fix up the positions of the cities it
+ * moves.
+ *
+ * A tour is scored by the length of the path through its cities in order,
+ * without the edge back to the start. A missing edge adds nothing, as in
+ * {@link AbstractGraph#pathLength(List)}. Each tour's length is worked out
+ * once and kept with it. A child's length starts from its parent's and is
+ * adjusted as each inversion is made, which in an undirected graph only
+ * changes the two edges at the ends of the inverted stretch, so scoring a
+ * child costs O(1) per inversion instead of a walk along the whole tour.
+ *
+ * Every random choice comes from the population's own generator, so the
+ * same seed always evolves the same tours, and populations evolving on
+ * different threads never contend for a shared one. A population must only
+ * be evolved by one thread at a time.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class InverOver<T> {
+    private TourDistances<T> _distances;
+    private List<T> _cities;
+    private float _inversionProbability;
+    private SplittableRandom _random;
+    private int[][] _tours;
+    private int[][] _positions;
+    private long[] _lengths;
+    private boolean _isSymmetric;
+    private int[] _bestTour;
+    private long _bestLength;
+
+    /**
+     * Constructs a population of random tours.
+     *
+     * @param distances distances between the cities to tour
+     * @param populationSize number of tours to keep, at least one
+     * @param inversionProbability probability that a step takes its next
+     *                             city from the child's own tour rather
+     *                             than another one
+     * @param random generator for the population's random choices
+     */
+    InverOver(TourDistances<T> distances, int populationSize,
+              float inversionProbability, SplittableRandom random) {
+        _distances = distances;
+        _cities = distances.getCities();
+        _inversionProbability = inversionProbability;
+        _random = random;
+        _tours = new int[populationSize][];
+        _positions = new int[populationSize][];
+        _lengths = new long[populationSize];
+        _isSymmetric = distances.isSymmetric();
+        _bestLength = -1;
+
+        // initialize population randomly
+        int cityCount = _cities.size();
+        for (int i = 0; i < populationSize; i++) {
+            _tours[i] = new int[cityCount];
+            _positions[i] = new int[cityCount];
+            for (int position = 0; position < cityCount; position++) {
+                _tours[i][position] = position;
+            }
+            // Fisher-Yates shuffle
+            for (int position = cityCount - 1; position > 0; position--) {
+                int other = _random.nextInt(position + 1);
+                int city = _tours[i][position];
+                _tours[i][position] = _tours[i][other];
+                _tours[i][other] = city;
+            }
+            for (int position = 0; position < cityCount; position++) {
+                _positions[i][_tours[i][position]] = position;
+            }
+            _lengths[i] = tourLength(_tours[i]);
+            if (_bestLength == -1 || _lengths[i] < _bestLength) {
+                _bestLength = _lengths[i];
+                _bestTour = _tours[i].clone();
+            }
+        }
+    }
+
+
+    /**
+     * Runs the given number of generations, in each of which every tour
+     * breeds one child and is replaced by it if the child is shorter.
+     *
+     * @param generations number of generations to run
+     */
+    void evolve(int generations) {
+        int cityCount = _cities.size();
+        int[] childTour = new int[cityCount];
+        int[] childPositions = new int[cityCount];
+
+        // a tour of one city has nothing to invert, and nothing to compare
+        // a city with
+        if (cityCount < 2) {
+            return;
+        }
+
+        for (int generation = 0; generation < generations; generation++) {
+            for (int j = 0; j < _tours.length; j++) {
+                System.arraycopy(_tours[j], 0, childTour, 0, cityCount);
+                System.arraycopy(_positions[j], 0, childPositions, 0,
+                        cityCount);
+                long childLength = breed(j, childTour, childPositions);
+
+                // if the child solution is a shorter path than the original
+                // solution, swap it in, and reuse the old arrays for the
+                // next child
+                if (childLength < _lengths[j]) {
+                    int[] oldTour = _tours[j];
+                    int[] oldPositions = _positions[j];
+                    _tours[j] = childTour;
+                    _positions[j] = childPositions;
+                    _lengths[j] = childLength;
+                    childTour = oldTour;
+                    childPositions = oldPositions;
+                    if (childLength < _bestLength) {
+                        _bestLength = childLength;
+                        _bestTour = _tours[j].clone();
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the shortest tour found so far.
+     *
+     * @return vertices in the order of the tour
+     */
+    List<T> getBestTour() {
+        List<T> tour = new ArrayList<>(_bestTour.length);
+
+        for (int city : _bestTour) {
+            tour.add(_cities.get(city));
+        }
+
+        return tour;
+    }
+
+
+    /**
+     * Returns the length of the shortest tour found so far.
+     *
+     * @return length of the best tour
+     */
+    long getBestLength() {
+        return _bestLength;
+    }
+
+
+    /**
+     * Returns a copy of the shortest tour found so far, as city numbers.
+     *
+     * @return cities in the order of the best tour
+     */
+    int[] getBestCities() {
+        return _bestTour.clone();
+    }
+
+
+    /**
+     * Takes in a tour from elsewhere in place of the longest tour in the
+     * population, if it is shorter.
+     *
+     * @param tour cities in the order of the tour
+     * @param length length of the tour
+     */
+    void immigrate(int[] tour, long length) {
+        int worst = 0;
+
+        for (int i = 1; i < _tours.length; i++) {
+            if (_lengths[i] > _lengths[worst]) {
+                worst = i;
+            }
+        }
+
+        if (length < _lengths[worst]) {
+            System.arraycopy(tour, 0, _tours[worst], 0, tour.length);
+            for (int position = 0; position < tour.length; position++) {
+                _positions[worst][tour[position]] = position;
+            }
+            _lengths[worst] = length;
+            if (length < _bestLength) {
+                _bestLength = length;
+                _bestTour = tour.clone();
+            }
+        }
+    }
+
+
+    /**
+     * Applies a run of inversions to a copy of one tour, each bringing the
+     * current city next to a city that follows it in the child itself or
+     * in another tour, until the two are already next to each other.
+     *
+     * @param parent index of the tour the child was copied from
+     * @param tour the child's tour
+     * @param positions position of each city in the child's tour
+     * @return length of the child's tour
+     */
+    private long breed(int parent, int[] tour, int[] positions) {
+        int cityCount = tour.length;
+        long length = _lengths[parent];
+        int cityIndex = _random.nextInt(cityCount);
+        boolean compareCities = true;
+
+        while (compareCities) {
+            int compCity;
+
+            // with the inversion probability, or if there is no other tour
+            // to take from, the comparison city is another random city
+            if (_tours.length == 1 ||
+                    _random.nextDouble() < _inversionProbability) {
+                int compIndex;
+                do {
+                    compIndex = _random.nextInt(cityCount);
+                }
+                while (compIndex == cityIndex);
+                compCity = tour[compIndex];
+            }
+            else {
+                int other;
+                do {
+                    other = _random.nextInt(_tours.length);
+                }
+                while (other == parent);
+                // the city following the current one in the other tour,
+                // where the first city follows the last
+                int nextIndex = _positions[other][tour[cityIndex]] + 1;
+                compCity = _tours[other][nextIndex == cityCount ? 0 :
+                        nextIndex];
+            }
+
+            // if the two cities are already adjacent in the child, this is
+            // the last inversion
+            int compIndex = positions[compCity];
+            if (cityIndex != 0 && Math.abs(cityIndex - compIndex) == 1) {
+                compareCities = false;
+            }
+            else if (cityIndex == 0 && (compIndex == cityCount - 1 ||
+                    compIndex == 1)) {
+                compareCities = false;
+            }
+
+            // invert the sequence between the current city and the
+            // comparison city, so that they end up side by side
+            if (cityIndex < compIndex) {
+                length += reversalDelta(tour, cityIndex + 1, compIndex);
+                reverse(tour, positions, cityIndex + 1, compIndex);
+            }
+            else if (cityIndex > compIndex) {
+                length += reversalDelta(tour, compIndex, cityIndex - 1);
+                reverse(tour, positions, compIndex, cityIndex - 1);
+            }
+
+            // carry on from the comparison city
+            cityIndex = positions[compCity];
+        }
+
+        return length;
+    }
+
+
+    /**
+     * Returns how much reversing the cities between two positions of a
+     * tour, inclusive, would change its length. Only the edges into and out
+     * of the stretch change, unless the edges within it weigh differently
+     * in each direction.
+     *
+     * @param tour tour before the reversal
+     * @param from first position to reverse
+     * @param to last position to reverse
+     * @return change in length
+     */
+    private long reversalDelta(int[] tour, int from, int to) {
+        long delta = 0;
+
+        if (from > 0) {
+            delta += cost(tour[from - 1], tour[to]) -
+                    cost(tour[from - 1], tour[from]);
+        }
+        if (to < tour.length - 1) {
+            delta += cost(tour[from], tour[to + 1]) -
+                    cost(tour[to], tour[to + 1]);
+        }
+        if (!_isSymmetric) {
+            for (int i = from; i < to; i++) {
+                delta += cost(tour[i + 1], tour[i]) -
+                        cost(tour[i], tour[i + 1]);
+            }
+        }
+
+        return delta;
+    }
+
+
+    /**
+     * Reverses the cities between two positions of a tour, inclusive, and
+     * updates their positions.
+     *
+     * @param tour tour to change
+     * @param positions position of each city in the tour
+     * @param from first position to reverse
+     * @param to last position to reverse
+     */
+    private static void reverse(int[] tour, int[] positions, int from,
+                                int to) {
+        for (; from < to; from++, to--) {
+            int city = tour[from];
+            tour[from] = tour[to];
+            tour[to] = city;
+            positions[tour[from]] = from;
+            positions[tour[to]] = to;
+        }
+    }
+
+
+    /**
+     * Returns the length of the path through a tour's cities in order.
+     *
+     * @param tour cities in the order visited
+     * @return length of the path
+     */
+    private long tourLength(int[] tour) {
+        long length = 0;
+
+        for (int i = 1; i < tour.length; i++) {
+            length += cost(tour[i - 1], tour[i]);
+        }
+
+        return length;
+    }
+
+
+    /**
+     * Returns the distance between two cities.
+     *
+     * @param from city to start from
+     * @param to city to end at
+     * @return distance between them
+     */
+    private int cost(int from, int to) {
+        return _distances.distance(from, to);
+    }
+}
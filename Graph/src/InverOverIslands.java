@@ -0,0 +1,122 @@
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The island model of Inver-Over, as run by
+ * {@link AbstractGraph#getOptimalTour(int, float, int, TourDistances, int,
+ * int)}. Rather than one big population, there are several small ones,
+ * the islands, which evolve side by side on separate threads, each drawing
+ * on its own generator split off from the one it was given.
+ *
+ * Every so many generations the islands stop and each sends a copy of its
+ * best tour to the next island in a ring, where it takes the place of that
+ * island's longest tour. Between migrations the islands share nothing, so
+ * they need no locks, and each wanders off towards its own good tours;
+ * the migrants then spread the best of them around, and the ring means a
+ * good tour takes a few migrations to reach every island rather than
+ * taking over all of them at once.
+ *
+ * The generators are split off in island order before any island starts,
+ * and the migrations happen between the islands' runs in a fixed order, so
+ * which thread runs which island never changes the outcome. The same seed
+ * and number of islands always give the same tour.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class InverOverIslands<T> {
+    private List<InverOver<T>> _islands;
+
+    /**
+     * Constructs the islands, each with a population of random tours.
+     *
+     * @param distances distances between the cities to tour
+     * @param islandCount number of islands, at least one
+     * @param populationSize number of tours on each island, at least one
+     * @param inversionProbability probability that a step takes its next
+     *                             city from the child's own tour rather
+     *                             than another one
+     * @param random generator to split the islands' generators from
+     */
+    InverOverIslands(final TourDistances<T> distances, int islandCount,
+                     final int populationSize,
+                     final float inversionProbability,
+                     SplittableRandom random) {
+        final SplittableRandom[] randoms = new SplittableRandom[islandCount];
+
+        for (int i = 0; i < islandCount; i++) {
+            randoms[i] = random.split();
+        }
+
+        _islands = IntStream.range(0, islandCount).parallel()
+                .mapToObj(island -> new InverOver<>(distances, populationSize,
+                        inversionProbability, randoms[island]))
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Runs the given number of generations on every island, with a
+     * migration after every migration interval of them.
+     *
+     * @param generations number of generations to run
+     * @param migrationInterval number of generations between migrations,
+     *                          at least one
+     */
+    void evolve(int generations, int migrationInterval) {
+        int remaining = generations;
+
+        while (remaining > 0) {
+            final int epoch = Math.min(migrationInterval, remaining);
+            _islands.parallelStream().forEach(island -> island.evolve(epoch));
+            remaining -= epoch;
+
+            // no point migrating after the last generation
+            if (remaining > 0) {
+                migrate();
+            }
+        }
+    }
+
+
+    /**
+     * Returns the shortest tour found so far on any island.
+     *
+     * @return vertices in the order of the tour
+     */
+    List<T> getBestTour() {
+        InverOver<T> best = _islands.get(0);
+
+        for (InverOver<T> island : _islands) {
+            if (island.getBestLength() < best.getBestLength()) {
+                best = island;
+            }
+        }
+
+        return best.getBestTour();
+    }
+
+
+    /**
+     * Sends a copy of each island's best tour to the next island around
+     * the ring. The migrants are all picked before any arrive, so a tour
+     * moves on by only one island per migration.
+     */
+    private void migrate() {
+        int islandCount = _islands.size();
+        int[][] migrants = new int[islandCount][];
+        long[] lengths = new long[islandCount];
+
+        if (islandCount > 1) {
+            for (int i = 0; i < islandCount; i++) {
+                migrants[i] = _islands.get(i).getBestCities();
+                lengths[i] = _islands.get(i).getBestLength();
+            }
+            for (int i = 0; i < islandCount; i++) {
+                _islands.get((i + 1) % islandCount).immigrate(migrants[i],
+                        lengths[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,433 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Yen's algorithm for the k shortest loopless paths to one destination.
+ *
+ * The shortest path is found first. Each path after that is the shortest
+ * among the candidates made by branching off the previous one: for every
+ * vertex along it, the spur, a new path keeps the previous path up to the
+ * spur and then finds its own way to the destination, without going back
+ * through the vertices before the spur and without leaving the spur along
+ * an edge that an already chosen path with the same beginning took.
+ *
+ * Rather than a fresh Dijkstra search per spur, every search shares one
+ * backward search from the destination, done once up front. Its distances
+ * are the exact remaining distance from every vertex, which makes them a
+ * perfect A* heuristic: a spur search heads straight for the destination
+ * and only spreads out where the blocked vertices and edges get in the way.
+ * If the spur's own shortest path to the destination is not blocked at
+ * all, it is taken from the backward search without searching. The spurs
+ * along a path are searched in parallel, each thread with its own arrays.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class KShortestPaths<T> {
+    private static final long UNREACHED = DijkstraSearch.UNREACHED;
+    private static final int NO_VERTEX = DijkstraSearch.NO_PREDECESSOR;
+
+    private AbstractGraph<T> _graph;
+    private int _destination;
+    private long[] _remaining;
+    private int[] _successors;
+    private ThreadLocal<SpurSearch> _searches;
+
+    /**
+     * Prepares to find paths to the given destination, searching backward
+     * from it once.
+     *
+     * @param graph graph to search
+     * @param destination id of the vertex the paths end at
+     */
+    KShortestPaths(AbstractGraph<T> graph, int destination) {
+        DijkstraSearch<T> backward = new DijkstraSearch<>(graph, true);
+
+        backward.search(destination, -1);
+        _graph = graph;
+        _destination = destination;
+        // the search is not used again, so its arrays can be kept as they
+        // are; a backward search's predecessors lead toward the destination
+        _remaining = backward.getDistances();
+        _successors = backward.getPredecessors();
+        _searches = ThreadLocal.withInitial(() -> new SpurSearch());
+    }
+
+
+    /**
+     * Finds up to the given number of shortest loopless paths from the
+     * source, shortest first.
+     *
+     * @param source id of the vertex the paths start from
+     * @param count largest number of paths to find
+     * @return ids along each path found, fewer than asked for if there are
+     * no more paths
+     */
+    List<int[]> find(int source, int count) {
+        final List<int[]> paths = new ArrayList<>();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        HashSet<List<Integer>> seen = new HashSet<>();
+        long sequence = 0;
+
+        if (_remaining[source] != UNREACHED) {
+            paths.add(treePath(source));
+            seen.add(asList(paths.get(0)));
+        }
+
+        while (!paths.isEmpty() && paths.size() < count) {
+            final int[] last = paths.get(paths.size() - 1);
+            final long[] rootLengths = new long[last.length];
+            final Candidate[] spurCandidates = new Candidate[last.length - 1];
+
+            for (int i = 1; i < last.length; i++) {
+                rootLengths[i] = rootLengths[i - 1] +
+                        _graph.getEdgeWeight(last[i - 1], last[i]);
+            }
+
+            // every vertex but the destination can be a spur
+            IntStream.range(0, last.length - 1).parallel().forEach(spur ->
+                    spurCandidates[spur] = branch(paths, last, rootLengths,
+                            spur));
+
+            // candidates are taken in order of spur, and ties go to the one
+            // found first, so the result does not depend on thread timing
+            for (Candidate candidate : spurCandidates) {
+                if (candidate != null && seen.add(asList(candidate._path))) {
+                    candidate._sequence = sequence++;
+                    candidates.add(candidate);
+                }
+            }
+
+            if (candidates.isEmpty()) {
+                break;
+            }
+            paths.add(candidates.poll()._path);
+        }
+
+        return paths;
+    }
+
+
+    /**
+     * Returns the path that follows the previous path up to the given spur
+     * and then takes the shortest way to the destination that the earlier
+     * paths allow, or null if there is none.
+     *
+     * @param paths paths already chosen
+     * @param last path most recently chosen
+     * @param rootLengths length of the last path up to each of its vertices
+     * @param spurIndex position of the spur in the last path
+     * @return the new path with its length, or null
+     */
+    private Candidate branch(List<int[]> paths, int[] last,
+                             long[] rootLengths, int spurIndex) {
+        SpurSearch search = _searches.get();
+        int[] blockedNext = new int[paths.size()];
+        int blockedCount = 0;
+        Candidate candidate = null;
+
+        // any chosen path sharing this root has claimed the edge it leaves
+        // the spur by
+        for (int[] path : paths) {
+            if (path.length > spurIndex + 1 &&
+                    sharesRoot(path, last, spurIndex)) {
+                blockedNext[blockedCount++] = path[spurIndex + 1];
+            }
+        }
+
+        int[] spurPath = search.search(last, spurIndex, blockedNext,
+                blockedCount);
+        if (spurPath != null) {
+            int[] path = new int[spurIndex + spurPath.length];
+            System.arraycopy(last, 0, path, 0, spurIndex);
+            System.arraycopy(spurPath, 0, path, spurIndex, spurPath.length);
+            candidate = new Candidate(path, rootLengths[spurIndex] +
+                    search.getLength());
+        }
+
+        return candidate;
+    }
+
+
+    /**
+     * Returns the shortest path from the given vertex to the destination,
+     * read off the backward search.
+     *
+     * @param vertex id of a vertex that can reach the destination
+     * @return ids along the path
+     */
+    private int[] treePath(int vertex) {
+        int length = 1;
+
+        for (int i = vertex; i != _destination; i = _successors[i]) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int i = 0; i < length; i++) {
+            path[i] = vertex;
+            vertex = _successors[vertex];
+        }
+
+        return path;
+    }
+
+
+    /**
+     * Returns true if the two paths start with the same vertices up to and
+     * including the given position.
+     *
+     * @param path one path
+     * @param other another path at least as long as the position
+     * @param end last position to compare
+     * @return true if the paths agree up to the position
+     */
+    private static boolean sharesRoot(int[] path, int[] other, int end) {
+        boolean isShared = true;
+
+        for (int i = 0; isShared && i <= end; i++) {
+            isShared = path[i] == other[i];
+        }
+
+        return isShared;
+    }
+
+
+    /**
+     * Returns the ids of a path as a list, for comparing whole paths.
+     *
+     * @param path ids along the path
+     * @return the same ids as a list
+     */
+    private static List<Integer> asList(int[] path) {
+        List<Integer> list = new ArrayList<>(path.length);
+
+        for (int vertex : path) {
+            list.add(vertex);
+        }
+
+        return list;
+    }
+
+
+    /**
+     * A path waiting to be chosen, ordered by length and then by when it
+     * was found.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        private int[] _path;
+        private long _length;
+        private long _sequence;
+
+        /**
+         * Constructs a candidate.
+         *
+         * @param path ids along the path
+         * @param length length of the path
+         */
+        Candidate(int[] path, long length) {
+            _path = path;
+            _length = length;
+        }
+
+
+        public int compareTo(Candidate other) {
+            int comparison = Long.compare(_length, other._length);
+
+            return comparison != 0 ? comparison :
+                    Long.compare(_sequence, other._sequence);
+        }
+    }
+
+
+    /**
+     * One thread's working arrays for A* searches from spurs, steered by
+     * the exact distances of the shared backward search.
+     */
+    private class SpurSearch {
+        private long[] _distances;
+        private int[] _predecessors;
+        private boolean[] _isBlocked;
+        private IndexedMinHeap _frontier;
+        private int[] _touched;
+        private int _touchedCount;
+        private long _length;
+
+        /**
+         * Constructs the working arrays.
+         */
+        SpurSearch() {
+            int idBound = _graph.getVertexIdBound();
+
+            _distances = new long[idBound];
+            _predecessors = new int[idBound];
+            _isBlocked = new boolean[idBound];
+            _frontier = new IndexedMinHeap(idBound);
+            _touched = new int[idBound];
+            Arrays.fill(_distances, UNREACHED);
+        }
+
+
+        /**
+         * Finds the shortest path from the spur to the destination that
+         * avoids the vertices before the spur and does not leave the spur
+         * toward any of the blocked next vertices.
+         *
+         * @param last path the spur lies on
+         * @param spurIndex position of the spur in the path
+         * @param blockedNext ids the spur may not go to directly
+         * @param blockedCount number of ids in blockedNext
+         * @return ids from the spur to the destination, or null if there
+         * is no such path
+         */
+        int[] search(int[] last, int spurIndex, int[] blockedNext,
+                     int blockedCount) {
+            int spur = last[spurIndex];
+            int[] spurPath;
+
+            for (int i = 0; i < spurIndex; i++) {
+                _isBlocked[last[i]] = true;
+            }
+
+            if (isTreePathOpen(spur, blockedNext, blockedCount)) {
+                spurPath = treePath(spur);
+                _length = _remaining[spur];
+            }
+            else {
+                spurPath = aStar(spur, blockedNext, blockedCount);
+            }
+
+            for (int i = 0; i < spurIndex; i++) {
+                _isBlocked[last[i]] = false;
+            }
+
+            return spurPath;
+        }
+
+
+        /**
+         * Returns the length of the path last found.
+         *
+         * @return length of the spur path
+         */
+        long getLength() {
+            return _length;
+        }
+
+
+        /**
+         * Returns true if the spur's shortest path to the destination is
+         * still allowed.
+         *
+         * @param spur id of the spur
+         * @param blockedNext ids the spur may not go to directly
+         * @param blockedCount number of ids in blockedNext
+         * @return true if the path avoids everything blocked
+         */
+        private boolean isTreePathOpen(int spur, int[] blockedNext,
+                                       int blockedCount) {
+            boolean isOpen = _remaining[spur] != UNREACHED &&
+                    !contains(blockedNext, blockedCount, _successors[spur]);
+
+            for (int i = spur; isOpen && i != _destination;
+                 i = _successors[i]) {
+                isOpen = !_isBlocked[i];
+            }
+
+            return isOpen;
+        }
+
+
+        /**
+         * Runs A* from the spur to the destination around the blocked
+         * vertices and edges.
+         *
+         * @param spur id of the spur
+         * @param blockedNext ids the spur may not go to directly
+         * @param blockedCount number of ids in blockedNext
+         * @return ids from the spur to the destination, or null if there
+         * is no path
+         */
+        private int[] aStar(int spur, int[] blockedNext, int blockedCount) {
+            int[] spurPath = null;
+
+            for (int i = 0; i < _touchedCount; i++) {
+                _distances[_touched[i]] = UNREACHED;
+            }
+            _touchedCount = 0;
+            _frontier.clear();
+
+            _touched[_touchedCount++] = spur;
+            _distances[spur] = 0;
+            _predecessors[spur] = NO_VERTEX;
+            _frontier.offer(spur, _remaining[spur]);
+
+            // the heuristic is exact on the whole graph and blocking only
+            // makes paths longer, so it stays consistent and a vertex is
+            // final once it comes off the frontier
+            while (!_frontier.isEmpty()) {
+                int currentVertex = _frontier.poll();
+                if (currentVertex == _destination) {
+                    break;
+                }
+
+                for (int slot = _graph.firstEdgeSlot(currentVertex),
+                     end = _graph.endEdgeSlot(currentVertex); slot < end;
+                     slot++) {
+                    int neighbor = _graph.edgeTargetAt(currentVertex, slot);
+                    // vertices that cannot reach the destination at all are
+                    // never worth a visit
+                    if (neighbor >= 0 && !_isBlocked[neighbor] &&
+                            _remaining[neighbor] != UNREACHED &&
+                            (currentVertex != spur || !contains(blockedNext,
+                                    blockedCount, neighbor))) {
+                        long pathWeight = _distances[currentVertex] +
+                                _graph.edgeWeightAt(currentVertex, slot);
+                        if (pathWeight < _distances[neighbor]) {
+                            if (_distances[neighbor] == UNREACHED) {
+                                _touched[_touchedCount++] = neighbor;
+                            }
+                            _distances[neighbor] = pathWeight;
+                            _predecessors[neighbor] = currentVertex;
+                            _frontier.offer(neighbor,
+                                    pathWeight + _remaining[neighbor]);
+                        }
+                    }
+                }
+            }
+
+            if (_distances[_destination] != UNREACHED) {
+                int length = 1;
+                for (int i = _destination; i != spur; i = _predecessors[i]) {
+                    length++;
+                }
+                spurPath = new int[length];
+                for (int i = length - 1, vertex = _destination; i >= 0;
+                     i--, vertex = _predecessors[vertex]) {
+                    spurPath[i] = vertex;
+                }
+                _length = _distances[_destination];
+            }
+
+            return spurPath;
+        }
+
+
+        /**
+         * Returns true if the id is among the first count entries.
+         *
+         * @param ids ids to look through
+         * @param count number of ids in use
+         * @param id id to look for
+         * @return true if the id is there
+         */
+        private boolean contains(int[] ids, int count, int id) {
+            boolean isFound = false;
+
+            for (int i = 0; !isFound && i < count; i++) {
+                isFound = ids[i] == id;
+            }
+
+            return isFound;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Landmark distance tables for goal-directed search without coordinates,
+ * known as ALT (A*, landmarks and the triangle inequality). A handful of
+ * landmark vertices are picked, and the distance from each landmark to
+ * every vertex, and from every vertex to each landmark, is computed ahead
+ * of time. For any vertex v, target t and landmark L the triangle
+ * inequality gives
+ *
+ * dist(v, t) &gt;= dist(L, t) - dist(L, v)
+ * dist(v, t) &gt;= dist(v, L) - dist(t, L)
+ *
+ * and the largest of these bounds over all landmarks is used as the A*
+ * estimate, so an index can be passed straight to
+ * {@link AbstractGraph#aStar(Object, Object, Heuristic)}.
+ *
+ * Landmarks are spread out by repeatedly picking the vertex the most hops
+ * away from every landmark chosen so far, which also puts a landmark in
+ * every part of a disconnected graph. The distance tables are then filled
+ * in parallel, one Dijkstra search per landmark and direction.
+ *
+ * The index is Serializable, as long as the vertices are, so it can be
+ * saved with {@link #save(OutputStream)} and loaded with
+ * {@link #load(InputStream)} instead of being rebuilt on every start. It
+ * describes the graph as it was when built and must be rebuilt after the
+ * graph changes.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public class LandmarkIndex<T> implements Heuristic<T>, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private ArrayList<T> _vertices;
+    private int[] _landmarks;
+    private int[] _fromLandmarks;
+    private int[] _toLandmarks;
+    private transient HashMap<T, Integer> _vertexIds;
+
+    /**
+     * Picks the given number of landmarks in the graph and computes their
+     * distance tables. Fewer landmarks are used if the graph has fewer
+     * vertices.
+     *
+     * @param graph graph to index
+     * @param landmarkCount number of landmarks to pick
+     * @throws IllegalArgumentException if the landmark count is not positive
+     */
+    public LandmarkIndex(final AbstractGraph<T> graph, int landmarkCount)
+            throws IllegalArgumentException {
+        if (landmarkCount <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        final int idBound = graph.getVertexIdBound();
+        _vertices = new ArrayList<>(idBound);
+        for (int i = 0; i < idBound; i++) {
+            _vertices.add(graph.vertexOf(i));
+        }
+        _landmarks = pickLandmarks(graph, Math.min(landmarkCount,
+                graph.getVertexCount()));
+        _fromLandmarks = new int[_landmarks.length * idBound];
+        // an undirected graph's distances are the same both ways
+        _toLandmarks = graph.isDirected() ?
+                new int[_landmarks.length * idBound] : _fromLandmarks;
+
+        // one search per landmark and direction, each with its own scratch
+        // arrays and its own part of the tables
+        final int searchesPerLandmark = graph.isDirected() ? 2 : 1;
+        IntStream.range(0, _landmarks.length * searchesPerLandmark)
+                .parallel().forEach(task -> {
+                    int landmark = task / searchesPerLandmark;
+                    boolean isBackward = task % searchesPerLandmark == 1;
+                    DijkstraSearch<T> search =
+                            new DijkstraSearch<>(graph, isBackward);
+                    search.search(_landmarks[landmark], -1);
+                    fillTable(isBackward ? _toLandmarks : _fromLandmarks,
+                            landmark * idBound, search, idBound);
+                });
+
+        _vertexIds = buildVertexIds();
+    }
+
+
+    /**
+     * Reads an index written by {@link #save(OutputStream)}.
+     *
+     * @param input stream to read the index from
+     * @param <T> type of the vertices in the graph
+     * @return the index read
+     * @throws IOException if the stream cannot be read or does not hold an
+     * index
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> LandmarkIndex<T> load(InputStream input)
+            throws IOException {
+        try {
+            return (LandmarkIndex<T>) new ObjectInputStream(input)
+                    .readObject();
+        }
+        catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(e);
+        }
+    }
+
+
+    /**
+     * Writes this index to the given stream.
+     *
+     * @param output stream to write the index to
+     * @throws IOException if the stream cannot be written
+     */
+    public void save(OutputStream output) throws IOException {
+        ObjectOutputStream objectOutput = new ObjectOutputStream(output);
+        objectOutput.writeObject(this);
+        objectOutput.flush();
+    }
+
+
+    /**
+     * Returns the landmarks this index picked.
+     *
+     * @return list of the landmark vertices
+     */
+    public List<T> getLandmarks() {
+        List<T> landmarks = new ArrayList<>();
+
+        for (int landmark : _landmarks) {
+            landmarks.add(_vertices.get(landmark));
+        }
+
+        return landmarks;
+    }
+
+
+    /**
+     * Returns the best lower bound the landmarks give on the distance from
+     * the vertex to the destination. Vertices the index does not know are
+     * estimated at zero.
+     *
+     * @param vertex vertex the path starts from
+     * @param destination vertex the path ends at
+     * @return non-negative lower bound on the path length
+     */
+    public long estimate(T vertex, T destination) {
+        Integer vertexId = _vertexIds.get(vertex);
+        Integer destinationId = _vertexIds.get(destination);
+        long estimate = 0;
+
+        if (vertexId != null && destinationId != null) {
+            int idBound = _vertices.size();
+            for (int i = 0; i < _landmarks.length; i++) {
+                int offset = i * idBound;
+                // dist(v, t) >= dist(L, t) - dist(L, v)
+                estimate = Math.max(estimate, difference(
+                        _fromLandmarks[offset + destinationId],
+                        _fromLandmarks[offset + vertexId]));
+                // dist(v, t) >= dist(v, L) - dist(t, L)
+                estimate = Math.max(estimate, difference(
+                        _toLandmarks[offset + vertexId],
+                        _toLandmarks[offset + destinationId]));
+            }
+        }
+
+        return estimate;
+    }
+
+
+    /**
+     * Returns the first distance minus the second, or zero if either of
+     * them is unknown, since the triangle inequality then gives no bound.
+     *
+     * @param larger distance to subtract from
+     * @param smaller distance to subtract
+     * @return the bound the two distances give
+     */
+    private static long difference(int larger, int smaller) {
+        long bound = 0;
+
+        if (larger != UNREACHABLE && smaller != UNREACHABLE) {
+            bound = (long) larger - smaller;
+        }
+
+        return bound;
+    }
+
+
+    /**
+     * Copies the distances found by a search into a landmark's part of a
+     * table. Distances too large for an int are left out as unreachable,
+     * which only weakens the estimate.
+     *
+     * @param table table to fill
+     * @param offset start of the landmark's part of the table
+     * @param search finished search from the landmark
+     * @param idBound number of vertex ids in the graph
+     */
+    private static void fillTable(int[] table, int offset,
+                                  DijkstraSearch<?> search, int idBound) {
+        for (int i = 0; i < idBound; i++) {
+            long distance = search.distanceTo(i);
+            table[offset + i] = distance < UNREACHABLE ? (int) distance :
+                    UNREACHABLE;
+        }
+    }
+
+
+    /**
+     * Picks landmarks one at a time, each the vertex the most hops away
+     * from all of the landmarks before it. Vertices no landmark can reach
+     * count as infinitely far, so they are picked first.
+     *
+     * @param graph graph to pick landmarks in
+     * @param landmarkCount number of landmarks to pick
+     * @return ids of the landmarks
+     */
+    private static int[] pickLandmarks(AbstractGraph<?> graph,
+                                       int landmarkCount) {
+        int idBound = graph.getVertexIdBound();
+        int[] landmarks = new int[landmarkCount];
+        int[] hopsToLandmarks = new int[idBound];
+        int[] queue = new int[idBound];
+        int[] hops = new int[idBound];
+        int firstVertex = 0;
+
+        if (landmarkCount == 0) {
+            return landmarks;
+        }
+
+        while (graph.vertexOf(firstVertex) == null) {
+            firstVertex++;
+        }
+
+        // the first landmark is the farthest vertex from an arbitrary one,
+        // which puts it out on the edge of the graph
+        Arrays.fill(hopsToLandmarks, Integer.MAX_VALUE);
+        countHops(graph, firstVertex, hopsToLandmarks, queue, hops);
+
+        for (int i = 0; i < landmarkCount; i++) {
+            int farthest = -1;
+            for (int vertex = 0; vertex < idBound; vertex++) {
+                if (graph.vertexOf(vertex) != null && (farthest < 0 ||
+                        hopsToLandmarks[vertex] >
+                                hopsToLandmarks[farthest])) {
+                    farthest = vertex;
+                }
+            }
+            landmarks[i] = farthest;
+
+            // the first pass only served to find the edge of the graph
+            if (i == 0) {
+                Arrays.fill(hopsToLandmarks, Integer.MAX_VALUE);
+            }
+            countHops(graph, farthest, hopsToLandmarks, queue, hops);
+        }
+
+        return landmarks;
+    }
+
+
+    /**
+     * Breadth-first search from the given vertex, lowering each reached
+     * vertex's entry in the closest-landmark hop counts.
+     *
+     * @param graph graph to search
+     * @param start id of the vertex to start from
+     * @param hopsToLandmarks fewest hops from any landmark to each vertex
+     * @param queue scratch space for the search queue
+     * @param hops scratch space for the hop counts of this search
+     */
+    private static void countHops(AbstractGraph<?> graph, int start,
+                                  int[] hopsToLandmarks, int[] queue,
+                                  int[] hops) {
+        int head = 0;
+        int tail = 0;
+
+        Arrays.fill(hops, -1);
+        hops[start] = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int vertex = queue[head++];
+            hopsToLandmarks[vertex] = Math.min(hopsToLandmarks[vertex],
+                    hops[vertex]);
+            for (int slot = graph.firstEdgeSlot(vertex),
+                 end = graph.endEdgeSlot(vertex); slot < end; slot++) {
+                int neighbor = graph.edgeTargetAt(vertex, slot);
+                if (neighbor >= 0 && hops[neighbor] < 0) {
+                    hops[neighbor] = hops[vertex] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Reads the index's fields and rebuilds the map from each vertex to its
+     * id, which is not saved, so a loaded index is ready to use at once.
+     *
+     * @param input stream to read the fields from
+     * @throws IOException if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream is unknown
+     */
+    private void readObject(ObjectInputStream input)
+            throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+        _vertexIds = buildVertexIds();
+    }
+
+
+    /**
+     * Builds the map from each vertex to its id in the tables. It is built
+     * once, when the index is constructed or loaded, and only read after
+     * that, so estimates need no locking.
+     *
+     * @return map from vertex to id
+     */
+    private HashMap<T, Integer> buildVertexIds() {
+        HashMap<T, Integer> vertexIds = new HashMap<>();
+
+        for (int i = 0; i < _vertices.size(); i++) {
+            if (_vertices.get(i) != null) {
+                vertexIds.put(_vertices.get(i), i);
+            }
+        }
+
+        return vertexIds;
+    }
+}
@@ -0,0 +1,359 @@
+import java.util.*;
+
+/**
+ * 2-opt and Or-opt local search for shortening a tour, as run by
+ * {@link AbstractGraph#improveTour(List, TourDistances)}.
+ *
+ * A 2-opt move takes two edges out of the tour and joins the ends the
+ * other way, which reverses the stretch between them. An Or-opt move takes
+ * a run of up to three cities out and puts it back between two other
+ * neighboring cities, either way round. The search keeps making moves that
+ * shorten the tour until none is left.
+ *
+ * Trying every pair of edges would take O(n^2) per move, so only moves
+ * that join a city to one of its nearest few neighbors are tried, as any
+ * 2-opt move that helps must join some city to a city closer than its old
+ * neighbor. Each city also has a don't-look bit: once no move from a city
+ * helps, it is not looked at again until an edge at it changes. Cities
+ * whose bits are off wait in a queue, so each pass only looks at the part
+ * of the tour that has changed.
+ *
+ * Tours are scored as {@link InverOver} scores them, as open paths with
+ * no edge back to the start. The search adds a dummy city at no distance
+ * from every other city to close the path into a cycle, so the edges at
+ * the dummy are free, and cuts the cycle open there at the end. The cycle
+ * is an int[] of cities with the position of each city in it, and a
+ * reversal flips whichever side of the cycle is shorter.
+ *
+ * Both moves rely on each edge weighing the same both ways.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+class LocalSearch<T> {
+    /**
+     * Number of nearest neighbors each city tries joining to.
+     */
+    static final int NEIGHBOR_COUNT = 10;
+
+    /**
+     * Longest run of cities an Or-opt move takes.
+     */
+    private static final int MAX_SEGMENT_LENGTH = 3;
+
+    private TourDistances<T> _distances;
+    private int _dummy;
+    private int[][] _neighbors;
+    private int[] _tour;
+    private int[] _positions;
+
+    /**
+     * Constructs a search over the given distances, finding each city's
+     * nearest neighbors.
+     *
+     * @param distances symmetric distances between the cities to tour
+     */
+    LocalSearch(TourDistances<T> distances) {
+        _distances = distances;
+        _dummy = distances.getCities().size();
+
+        // every city may join to the dummy, which is nearer than any other
+        // city, to become an end of the path
+        int[][] nearest = distances.nearestNeighbors(NEIGHBOR_COUNT);
+        _neighbors = new int[_dummy + 1][];
+        for (int city = 0; city < _dummy; city++) {
+            _neighbors[city] = new int[nearest[city].length + 1];
+            _neighbors[city][0] = _dummy;
+            System.arraycopy(nearest[city], 0, _neighbors[city], 1,
+                    nearest[city].length);
+        }
+        _neighbors[_dummy] = new int[0];
+    }
+
+
+    /**
+     * Shortens a tour until no 2-opt or Or-opt move among near neighbors
+     * shortens it further.
+     *
+     * @param tour numbers of the cities in the order of the tour
+     * @return numbers of the cities in the order of the improved tour
+     */
+    int[] improve(int[] tour) {
+        int cycleLength = tour.length + 1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>(cycleLength);
+        boolean[] isQueued = new boolean[cycleLength];
+
+        // too few cities for two edges that don't touch
+        if (tour.length < 3) {
+            return tour.clone();
+        }
+
+        _tour = Arrays.copyOf(tour, cycleLength);
+        _tour[tour.length] = _dummy;
+        _positions = new int[cycleLength];
+        for (int position = 0; position < cycleLength; position++) {
+            _positions[_tour[position]] = position;
+            queue.add(_tour[position]);
+            isQueued[_tour[position]] = true;
+        }
+
+        while (!queue.isEmpty()) {
+            int city = queue.poll();
+            isQueued[city] = false;
+            int[] touched = tryTwoOpt(city);
+            if (touched == null) {
+                touched = tryOrOpt(city);
+            }
+            if (touched != null) {
+                for (int other : touched) {
+                    if (!isQueued[other]) {
+                        queue.add(other);
+                        isQueued[other] = true;
+                    }
+                }
+            }
+        }
+
+        // cut the cycle open at the dummy
+        int[] improved = new int[tour.length];
+        for (int i = 0; i < improved.length; i++) {
+            improved[i] = _tour[(_positions[_dummy] + 1 + i) % cycleLength];
+        }
+
+        return improved;
+    }
+
+
+    /**
+     * Makes the first 2-opt move found that shortens the tour and joins the
+     * given city to one of its near neighbors.
+     *
+     * @param first city to join
+     * @return cities at the ends of the edges changed, or null if there was
+     * no such move
+     */
+    private int[] tryTwoOpt(int first) {
+        for (int direction = 0; direction < 2; direction++) {
+            boolean isForward = direction == 0;
+            int second = step(first, isForward);
+            long removed = cost(first, second);
+
+            // the neighbors are nearest first, so once joining to one is no
+            // shorter than the edge it replaces, none further can be
+            for (int third : _neighbors[first]) {
+                long gain = removed - cost(first, third);
+                if (gain <= 0) {
+                    break;
+                }
+                int fourth = step(third, isForward);
+                if (third != second && fourth != first &&
+                        gain + cost(third, fourth) - cost(second, fourth) > 0) {
+                    exchange(first, second, third, fourth);
+                    return new int[] {first, second, third, fourth};
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Makes the first Or-opt move found that shortens the tour by moving a
+     * run of cities starting at the given city in either direction to
+     * between a near neighbor of either of its ends and the city on one
+     * side of it.
+     *
+     * @param start city at one end of the run
+     * @return cities at the ends of the edges changed, or null if there was
+     * no such move
+     */
+    private int[] tryOrOpt(int start) {
+        int cycleLength = _tour.length;
+
+        for (int direction = 0; direction < 2; direction++) {
+            boolean isForward = direction == 0;
+            int end = start;
+            for (int length = 1; length <= MAX_SEGMENT_LENGTH &&
+                    length + 3 <= cycleLength; length++) {
+                if (length > 1) {
+                    end = step(end, isForward);
+                }
+                int before = step(start, !isForward);
+                int after = step(end, isForward);
+                long removed = (long) cost(before, start) + cost(end, after) -
+                        cost(before, after);
+                if (removed <= 0) {
+                    continue;
+                }
+
+                for (int ends = 0; ends < 2; ends++) {
+                    int near = ends == 0 ? start : end;
+                    for (int neighbor : _neighbors[near]) {
+                        // joining to a neighbor already no nearer than
+                        // what the run saves is no help
+                        if (cost(near, neighbor) >= removed) {
+                            break;
+                        }
+                        if (isInRun(neighbor, start, length, isForward)) {
+                            continue;
+                        }
+                        for (int side = 0; side < 2; side++) {
+                            // insert between from and to, where to follows
+                            // from in the run's direction
+                            int from = side == 0 ? neighbor :
+                                    step(neighbor, !isForward);
+                            int to = side == 0 ? step(neighbor, isForward) :
+                                    neighbor;
+                            if (from == end || to == start ||
+                                    isInRun(from, start, length, isForward) ||
+                                    isInRun(to, start, length, isForward)) {
+                                continue;
+                            }
+                            long added = cost(from, to);
+                            long reversed = (long) cost(from, end) +
+                                    cost(start, to);
+                            long kept = (long) cost(from, start) +
+                                    cost(end, to);
+                            if (removed + added - reversed > 0 ||
+                                    removed + added - kept > 0) {
+                                moveRun(before, start, end, after, from, to,
+                                        reversed < kept);
+                                return new int[] {before, start, end, after,
+                                        from, to};
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Moves the run of cities from start to end out from between before and
+     * after and in between from and to, with three 2-opt exchanges, or two
+     * if it goes in reversed.
+     *
+     * @param before city before the run
+     * @param start first city of the run
+     * @param end last city of the run
+     * @param after city after the run
+     * @param from city to come before the run
+     * @param to city to come after the run
+     * @param isReversed true to put the run in from end to start
+     */
+    private void moveRun(int before, int start, int end, int after, int from,
+                         int to, boolean isReversed) {
+        // before from ... after end ... start to
+        exchange(before, start, from, to);
+        // before after ... from end ... start to
+        exchange(before, from, after, end);
+        if (!isReversed) {
+            // before after ... from start ... end to
+            exchange(from, end, start, to);
+        }
+    }
+
+
+    /**
+     * Replaces the edges from a to b and from c to d with edges from a to c
+     * and from b to d, where b follows a and d follows c in the same
+     * direction, by reversing the path between them.
+     *
+     * @param a a city
+     * @param b the city next to a
+     * @param c another city
+     * @param d the city next to c, in the direction b is from a
+     */
+    private void exchange(int a, int b, int c, int d) {
+        if (step(a, true) == b) {
+            reversePath(b, c);
+        }
+        else {
+            reversePath(a, d);
+        }
+    }
+
+
+    /**
+     * Reverses the path going forwards from one city to another, or the
+     * rest of the cycle instead if that is shorter, which makes the same
+     * cycle.
+     *
+     * @param from first city of the path
+     * @param to last city of the path
+     */
+    private void reversePath(int from, int to) {
+        int cycleLength = _tour.length;
+        int i = _positions[from];
+        int j = _positions[to];
+        int length = (j - i + cycleLength) % cycleLength + 1;
+
+        if (2 * length > cycleLength) {
+            i = (j + 1) % cycleLength;
+            j = (_positions[from] - 1 + cycleLength) % cycleLength;
+            length = cycleLength - length;
+        }
+
+        for (int swaps = length / 2; swaps > 0; swaps--) {
+            int city = _tour[i];
+            _tour[i] = _tour[j];
+            _tour[j] = city;
+            _positions[_tour[i]] = i;
+            _positions[_tour[j]] = j;
+            i = (i + 1) % cycleLength;
+            j = (j - 1 + cycleLength) % cycleLength;
+        }
+    }
+
+
+    /**
+     * Returns true if a city is within a run of cities.
+     *
+     * @param city city to look for
+     * @param start first city of the run
+     * @param length number of cities in the run
+     * @param isForward true if the run goes forwards from its start
+     * @return true if the city is in the run
+     */
+    private boolean isInRun(int city, int start, int length,
+                            boolean isForward) {
+        int cycleLength = _tour.length;
+        int offset = isForward ?
+                _positions[city] - _positions[start] :
+                _positions[start] - _positions[city];
+
+        return (offset + cycleLength) % cycleLength < length;
+    }
+
+
+    /**
+     * Returns the city next to the given one in the cycle.
+     *
+     * @param city a city
+     * @param isForward true for the city after it, false for the one before
+     * @return the next city
+     */
+    private int step(int city, boolean isForward) {
+        int cycleLength = _tour.length;
+
+        return _tour[(_positions[city] + (isForward ? 1 : cycleLength - 1)) %
+                cycleLength];
+    }
+
+
+    /**
+     * Returns the distance between two cities, where the dummy city is no
+     * distance from any.
+     *
+     * @param from one city
+     * @param to another city
+     * @return distance between them
+     */
+    private int cost(int from, int to) {
+        return from == _dummy || to == _dummy ? 0 :
+                _distances.distance(from, to);
+    }
+}
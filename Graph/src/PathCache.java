@@ -0,0 +1,303 @@
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of shortest paths in front of
+ * {@link AbstractGraph#shortestPathBetween(Object, Object)}, for callers
+ * that ask for the same pairs of vertices again and again between changes
+ * to the graph. When it is full the least recently used path is evicted,
+ * and paths can also be given a time to live, after which they are found
+ * again.
+ *
+ * Changes to the graph only throw out the paths they could affect. A
+ * change that can make paths longer, such as removing an edge or raising
+ * its weight, only affects paths through the vertices at its ends, so any
+ * other path is still the shortest and stays cached. A change that can
+ * make paths shorter, such as adding an edge or lowering its weight, could
+ * affect any path, so every path cached before it is found again. Adding
+ * a vertex affects nothing.
+ *
+ * The cache may be used from several threads, but the graph must not be
+ * changed while a path is being found.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public class PathCache<T> {
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private AbstractGraph<T> _graph;
+    private long _timeToLive;
+    private LinkedHashMap<Map.Entry<T, T>, CachedPath<T>> _paths;
+    private long _hitCount;
+    private long _missCount;
+    private long _evictionCount;
+    private long _invalidationCount;
+
+    /**
+     * Constructs a cache holding up to the given number of paths, for as
+     * long as the graph allows.
+     *
+     * @param graph graph to find paths in
+     * @param capacity largest number of paths to keep
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public PathCache(AbstractGraph<T> graph, int capacity)
+            throws IllegalArgumentException {
+        this(graph, capacity, NO_EXPIRY);
+    }
+
+
+    /**
+     * Constructs a cache holding up to the given number of paths, each for
+     * no longer than the given time.
+     *
+     * @param graph graph to find paths in
+     * @param capacity largest number of paths to keep
+     * @param timeToLive how long to keep each path
+     * @param unit unit of the time to live
+     * @throws IllegalArgumentException if the capacity or the time to live
+     * is not positive
+     */
+    public PathCache(AbstractGraph<T> graph, int capacity, long timeToLive,
+                     TimeUnit unit) throws IllegalArgumentException {
+        this(graph, capacity, unit.toNanos(timeToLive));
+
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+
+    /**
+     * Constructs a cache with the time to live given in nanoseconds.
+     *
+     * @param graph graph to find paths in
+     * @param capacity largest number of paths to keep
+     * @param timeToLive nanoseconds to keep each path
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    private PathCache(AbstractGraph<T> graph, final int capacity,
+                      long timeToLive) throws IllegalArgumentException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        _graph = graph;
+        _timeToLive = timeToLive;
+        // kept in access order, so the eldest entry is the least recently
+        // used one
+        _paths = new LinkedHashMap<Map.Entry<T, T>, CachedPath<T>>(16, 0.75f,
+                true) {
+            protected boolean removeEldestEntry(
+                    Map.Entry<Map.Entry<T, T>, CachedPath<T>> eldest) {
+                boolean isFull = size() > capacity;
+                if (isFull) {
+                    _evictionCount++;
+                }
+                return isFull;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the shortest path from the source to the destination, from
+     * the cache if it still holds one that is up to date and otherwise by
+     * searching the graph. Returns null if no path exists. The list
+     * returned cannot be modified, as it may be handed out again.
+     *
+     * @param source vertex to find the shortest path from
+     * @param destination vertex to find the shortest path to
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the given source to the given
+     * destination
+     * @throws NoSuchElementException if either vertex is not in the graph
+     */
+    public List<Graph.Edge<T>> shortestPathBetween(T source, T destination)
+            throws NoSuchElementException {
+        Map.Entry<T, T> key = new AbstractMap.SimpleImmutableEntry<>(source,
+                destination);
+        CachedPath<T> cached;
+
+        // if source and destination vertices not in graph, throw exception
+        if (_graph.idOf(source) < 0 || _graph.idOf(destination) < 0) {
+            throw new NoSuchElementException();
+        }
+
+        synchronized (this) {
+            cached = _paths.get(key);
+            if (cached != null && !isCurrent(cached)) {
+                _paths.remove(key);
+                cached = null;
+            }
+            if (cached != null) {
+                _hitCount++;
+            }
+            else {
+                _missCount++;
+            }
+        }
+
+        // search outside the lock so that misses on different threads
+        // search at the same time. The graph cannot change meanwhile, so
+        // the path is current as of this change count
+        if (cached == null) {
+            long changeCount = _graph.getChangeCount();
+            List<Graph.Edge<T>> path = _graph.shortestPathBetween(source,
+                    destination);
+            cached = new CachedPath<>(path, pathIds(source, path),
+                    changeCount, _timeToLive == NO_EXPIRY ? NO_EXPIRY :
+                    System.nanoTime() + _timeToLive);
+            synchronized (this) {
+                _paths.put(key, cached);
+            }
+        }
+
+        return cached._path;
+    }
+
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return number of hits
+     */
+    public synchronized long getHitCount() {
+        return _hitCount;
+    }
+
+
+    /**
+     * Returns the number of lookups that had to search the graph, including
+     * those for paths that were cached but out of date.
+     *
+     * @return number of misses
+     */
+    public synchronized long getMissCount() {
+        return _missCount;
+    }
+
+
+    /**
+     * Returns the number of paths evicted to make room for newer ones.
+     *
+     * @return number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return _evictionCount;
+    }
+
+
+    /**
+     * Returns the number of cached paths thrown out because they had
+     * expired or a change to the graph could have affected them.
+     *
+     * @return number of invalidations
+     */
+    public synchronized long getInvalidationCount() {
+        return _invalidationCount;
+    }
+
+
+    /**
+     * Returns the number of paths in the cache, some of which may be out of
+     * date and not yet thrown out.
+     *
+     * @return number of cached paths
+     */
+    public synchronized int size() {
+        return _paths.size();
+    }
+
+
+    /**
+     * Removes every path from the cache. The counts are kept.
+     */
+    public synchronized void clear() {
+        _paths.clear();
+    }
+
+
+    /**
+     * Returns true if the cached path has not expired and no change since
+     * it was found could have affected it, counting it as invalidated if
+     * not.
+     *
+     * @param cached path to check
+     * @return true if the path is still the shortest
+     */
+    private boolean isCurrent(CachedPath<T> cached) {
+        boolean isCurrent = cached._expiry == NO_EXPIRY ||
+                System.nanoTime() - cached._expiry < 0;
+
+        isCurrent = isCurrent &&
+                _graph.getLastShorteningChange() <= cached._changeCount;
+
+        // a missing path can only appear through a shortening change, but
+        // an existing one breaks if any vertex along it is touched
+        if (cached._pathIds != null) {
+            for (int i = 0; isCurrent && i < cached._pathIds.length; i++) {
+                isCurrent = _graph.getLastLengtheningChange(
+                        cached._pathIds[i]) <= cached._changeCount;
+            }
+        }
+
+        if (!isCurrent) {
+            _invalidationCount++;
+        }
+
+        return isCurrent;
+    }
+
+
+    /**
+     * Returns the ids of the vertices along a path, or null for no path.
+     *
+     * @param source vertex the path starts from
+     * @param path edges along the path, or null
+     * @return ids along the path, or null
+     */
+    private int[] pathIds(T source, List<Graph.Edge<T>> path) {
+        int[] pathIds = null;
+
+        if (path != null) {
+            pathIds = new int[path.size() + 1];
+            pathIds[0] = _graph.idOf(source);
+            for (int i = 0; i < path.size(); i++) {
+                pathIds[i + 1] = _graph.idOf(path.get(i).getDestination());
+            }
+        }
+
+        return pathIds;
+    }
+
+
+    /**
+     * A path as found by a search, with what is needed to tell whether it
+     * is still current.
+     */
+    private static class CachedPath<T> {
+        private List<Graph.Edge<T>> _path;
+        private int[] _pathIds;
+        private long _changeCount;
+        private long _expiry;
+
+        /**
+         * Constructs a cached path.
+         *
+         * @param path edges along the path, or null for no path
+         * @param pathIds ids along the path, or null for no path
+         * @param changeCount number of changes to the graph when the path
+         *                    was found
+         * @param expiry System.nanoTime() after which the path is out of
+         *               date, or NO_EXPIRY
+         */
+        CachedPath(List<Graph.Edge<T>> path, int[] pathIds, long changeCount,
+                   long expiry) {
+            _path = path == null ? null : Collections.unmodifiableList(path);
+            _pathIds = pathIds;
+            _changeCount = changeCount;
+            _expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.Arrays;
+
+/**
+ * Radix heap over vertex ids, for searches whose distances only ever grow
+ * from one poll to the next, as they do in Dijkstra's algorithm. Entries
+ * are kept in buckets by the highest bit in which their distance differs
+ * from the last distance polled: bucket 0 holds that distance itself, and
+ * bucket i distances that first differ from it at bit i-1. Polling empties
+ * the lowest non-empty bucket into the buckets below it, measured against
+ * its smallest distance, and every entry can only move down, so each is
+ * moved at most 64 times however large the weights are.
+ *
+ * Distances are measured from zero after the heap is cleared, so they must
+ * not be negative.
+ *
+ * A shorter distance for a vertex already in the heap is added as a new
+ * entry, and the old one is dropped when it comes up, since it no longer
+ * matches the vertex's distance.
+ */
+class RadixHeap extends DistanceQueue {
+    private static final int BUCKET_COUNT = 65;
+    private static final long NOT_QUEUED = -1;
+
+    private int[][] _bucketIds;
+    private long[][] _bucketDistances;
+    private int[] _bucketSizes;
+    private long[] _distances;
+    private long _last;
+    private int _size;
+
+    /**
+     * Constructs an empty heap for the ids 0 through capacity-1.
+     *
+     * @param capacity one more than the largest id the heap will hold
+     */
+    RadixHeap(int capacity) {
+        _bucketIds = new int[BUCKET_COUNT][4];
+        _bucketDistances = new long[BUCKET_COUNT][4];
+        _bucketSizes = new int[BUCKET_COUNT];
+        _distances = new long[capacity];
+        Arrays.fill(_distances, NOT_QUEUED);
+    }
+
+
+    /**
+     * Returns true if the heap has no entries.
+     *
+     * @return true if the heap is empty
+     */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+
+    /**
+     * Adds the id with the given distance, or lowers its distance if it is
+     * already in the heap with a larger one.
+     *
+     * @param id id to add or update
+     * @param distance new distance of the id
+     */
+    void offer(int id, long distance) {
+        if (_distances[id] == NOT_QUEUED) {
+            _size++;
+            _distances[id] = distance;
+            add(bucketOf(distance), id, distance);
+        }
+        else if (distance < _distances[id]) {
+            _distances[id] = distance;
+            add(bucketOf(distance), id, distance);
+        }
+    }
+
+
+    /**
+     * Removes and returns an id with the smallest distance. The heap must
+     * not be empty.
+     *
+     * @return an id with the smallest distance
+     */
+    int poll() {
+        int id = takeCurrent();
+
+        while (id < 0) {
+            redistribute();
+            id = takeCurrent();
+        }
+
+        _distances[id] = NOT_QUEUED;
+        _size--;
+
+        return id;
+    }
+
+
+    /**
+     * Removes every entry from the heap.
+     */
+    void clear() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            for (int i = 0; i < _bucketSizes[bucket]; i++) {
+                _distances[_bucketIds[bucket][i]] = NOT_QUEUED;
+            }
+            _bucketSizes[bucket] = 0;
+        }
+        _size = 0;
+        _last = 0;
+    }
+
+
+    /**
+     * Takes a live entry out of bucket 0, dropping stale ones on the way.
+     *
+     * @return id of the entry taken, or -1 if bucket 0 has no live entries
+     */
+    private int takeCurrent() {
+        int id = -1;
+
+        while (id < 0 && _bucketSizes[0] > 0) {
+            int index = --_bucketSizes[0];
+            if (_distances[_bucketIds[0][index]] ==
+                    _bucketDistances[0][index]) {
+                id = _bucketIds[0][index];
+            }
+        }
+
+        return id;
+    }
+
+
+    /**
+     * Empties the lowest non-empty bucket into the buckets below it,
+     * measuring from the smallest live distance it holds. That distance
+     * lands in bucket 0.
+     */
+    private void redistribute() {
+        int bucket = 1;
+
+        while (_bucketSizes[bucket] == 0) {
+            bucket++;
+        }
+
+        // the new reference point is the smallest live distance here; stale
+        // entries are dropped rather than moved
+        long minimum = Long.MAX_VALUE;
+        for (int i = 0; i < _bucketSizes[bucket]; i++) {
+            if (_distances[_bucketIds[bucket][i]] ==
+                    _bucketDistances[bucket][i]) {
+                minimum = Math.min(minimum, _bucketDistances[bucket][i]);
+            }
+        }
+
+        int size = _bucketSizes[bucket];
+        _bucketSizes[bucket] = 0;
+        if (minimum != Long.MAX_VALUE) {
+            _last = minimum;
+            for (int i = 0; i < size; i++) {
+                int id = _bucketIds[bucket][i];
+                long distance = _bucketDistances[bucket][i];
+                if (_distances[id] == distance) {
+                    add(bucketOf(distance), id, distance);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the bucket for the given distance, by the highest bit in which
+     * it differs from the last distance polled.
+     *
+     * @param distance distance to place
+     * @return bucket for the distance
+     */
+    private int bucketOf(long distance) {
+        return distance == _last ? 0 :
+                64 - Long.numberOfLeadingZeros(distance ^ _last);
+    }
+
+
+    /**
+     * Appends an entry to a bucket, growing it if full.
+     *
+     * @param bucket bucket to add to
+     * @param id id of the entry
+     * @param distance distance of the entry
+     */
+    private void add(int bucket, int id, long distance) {
+        int size = _bucketSizes[bucket];
+
+        if (size == _bucketIds[bucket].length) {
+            _bucketIds[bucket] = Arrays.copyOf(_bucketIds[bucket], size * 2);
+            _bucketDistances[bucket] = Arrays.copyOf(
+                    _bucketDistances[bucket], size * 2);
+        }
+        _bucketIds[bucket][size] = id;
+        _bucketDistances[bucket][size] = distance;
+        _bucketSizes[bucket] = size + 1;
+    }
+}
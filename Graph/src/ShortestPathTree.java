@@ -0,0 +1,119 @@
+import java.util.*;
+
+/**
+ * Shortest paths from one source to every vertex of a graph, as found by a
+ * single Dijkstra search. Only the distance and the predecessor of each
+ * vertex id are kept; the path to a vertex is only built when asked for, by
+ * walking its predecessors back to the source.
+ *
+ * A tree describes the graph as it was when it was found. The graph must not
+ * be changed while the tree is in use, since vertices are looked up in it by
+ * id.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public class ShortestPathTree<T> {
+    private AbstractGraph<T> _graph;
+    private int _source;
+    private long[] _distances;
+    private int[] _predecessors;
+
+    /**
+     * Constructs a tree from the distances and predecessors found by a
+     * search. The arrays are kept, not copied.
+     *
+     * @param graph graph that was searched
+     * @param source id of the vertex the search started from
+     * @param distances distance to each vertex id, or
+     *                  {@link DijkstraSearch#UNREACHED}
+     * @param predecessors vertex before each vertex id on its path, or
+     *                     {@link DijkstraSearch#NO_PREDECESSOR}
+     */
+    ShortestPathTree(AbstractGraph<T> graph, int source, long[] distances,
+                     int[] predecessors) {
+        _graph = graph;
+        _source = source;
+        _distances = distances;
+        _predecessors = predecessors;
+    }
+
+
+    /**
+     * Returns the vertex all the paths start from.
+     *
+     * @return the source vertex
+     */
+    public T getSource() {
+        return _graph.vertexOf(_source);
+    }
+
+
+    /**
+     * Returns true if the given vertex can be reached from the source.
+     *
+     * @param vertex vertex to check
+     * @return true if a path to the vertex exists
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    public boolean isReachable(T vertex) throws NoSuchElementException {
+        return _distances[vertexId(vertex)] != DijkstraSearch.UNREACHED;
+    }
+
+
+    /**
+     * Returns the length of the shortest path from the source to the given
+     * vertex, or -1 if there is no path.
+     *
+     * @param vertex vertex the path ends at
+     * @return length of the shortest path, or -1 if there is none
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    public long distanceTo(T vertex) throws NoSuchElementException {
+        long distance = _distances[vertexId(vertex)];
+
+        return distance == DijkstraSearch.UNREACHED ? -1 : distance;
+    }
+
+
+    /**
+     * Returns the shortest path from the source to the given vertex, in the
+     * same form as {@link AbstractGraph#shortestPathBetween(Object, Object)}.
+     * Returns null if there is no path, and an empty list for the source
+     * itself.
+     *
+     * @param vertex vertex the path ends at
+     * @return null if no path exists, otherwise list of edges that
+     * constitute the shortest path from the source to the given vertex
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    public List<Graph.Edge<T>> pathTo(T vertex)
+            throws NoSuchElementException {
+        int vertexId = vertexId(vertex);
+        List<Graph.Edge<T>> path = null;
+
+        if (_distances[vertexId] != DijkstraSearch.UNREACHED) {
+            path = _graph.buildPath(_predecessors, vertexId);
+        }
+
+        return path;
+    }
+
+
+    /**
+     * Returns the id of the given vertex.
+     *
+     * @param vertex vertex to look up
+     * @return id of the vertex
+     * @throws NoSuchElementException if the vertex is not in the graph
+     */
+    private int vertexId(T vertex) throws NoSuchElementException {
+        int vertexId = _graph.idOf(vertex);
+
+        // ids given out after the search have no entry in the arrays
+        if (vertexId < 0 || vertexId >= _distances.length) {
+            throw new NoSuchElementException();
+        }
+
+        return vertexId;
+    }
+}
@@ -0,0 +1,417 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Distances between the cities of a tour, for
+ * {@link AbstractGraph#getOptimalTour(int, float, int, TourDistances)}.
+ * The cities are numbered 0 through n-1 in the order of
+ * {@link #getCities()}, and the tour search asks for the distance between
+ * two numbered cities in its innermost loop, so it pays to make that
+ * cheap:
+ *
+ * - {@link #matrix(AbstractGraph)} reads every edge weight into an n by n
+ *   int array once, so each distance is a single array read. It takes
+ *   4n&sup2; bytes.
+ * - {@link #euclidean(List, Map)} works each distance out from the cities'
+ *   coordinates as it is asked for, in no memory beyond the coordinates.
+ * - {@link #edges(AbstractGraph)} looks each distance up in the graph as it
+ *   is asked for.
+ *
+ * {@link #of(AbstractGraph)} picks the matrix unless it would be too big.
+ * As with {@link AbstractGraph#pathLength(List)}, two cities with no edge
+ * between them are 0 apart.
+ *
+ * {@link #nearestNeighbors(int)} gives each city's nearest few others, for
+ * local searches that only try joining a city to cities near it. In
+ * general that means measuring every pair, but straight-line distances
+ * find them by looking in a grid over the plane instead.
+ *
+ * @param <T> type of the vertices in the graph
+ */
+public abstract class TourDistances<T> {
+    /**
+     * Largest number of entries {@link #of(AbstractGraph)} will give a
+     * matrix, which is 64 MB of ints, or about 4000 cities.
+     */
+    static final long MAX_MATRIX_ENTRIES = 1 << 24;
+
+    private List<T> _cities;
+    private boolean _isSymmetric;
+
+    /**
+     * Constructs distances over the given cities.
+     *
+     * @param cities cities in the order they are numbered
+     * @param isSymmetric true if every distance is the same both ways
+     */
+    TourDistances(List<T> cities, boolean isSymmetric) {
+        _cities = Collections.unmodifiableList(new ArrayList<>(cities));
+        _isSymmetric = isSymmetric;
+    }
+
+
+    /**
+     * Returns a matrix of the graph's edge weights if it has no more than
+     * {@link #MAX_MATRIX_ENTRIES} entries, and otherwise looks the weights
+     * up in the graph as they are needed.
+     *
+     * @param graph graph whose vertices are the cities
+     * @param <T> type of the vertices in the graph
+     * @return distances between the graph's vertices
+     */
+    public static <T> TourDistances<T> of(AbstractGraph<T> graph) {
+        long n = graph.getVertexCount();
+
+        return n * n <= MAX_MATRIX_ENTRIES ? matrix(graph) : edges(graph);
+    }
+
+
+    /**
+     * Returns the graph's edge weights, read into a matrix in parallel.
+     *
+     * @param graph graph whose vertices are the cities
+     * @param <T> type of the vertices in the graph
+     * @return distances between the graph's vertices
+     * @throws IllegalArgumentException if the matrix would have more than
+     * Integer.MAX_VALUE entries
+     */
+    public static <T> TourDistances<T> matrix(final AbstractGraph<T> graph)
+            throws IllegalArgumentException {
+        List<T> cities = graph.getVertices();
+        final int n = cities.size();
+        final int[] ids = new int[n];
+        final int[] indices = new int[graph.getVertexIdBound()];
+
+        if ((long) n * n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+
+        for (int i = 0; i < n; i++) {
+            ids[i] = graph.idOf(cities.get(i));
+            indices[ids[i]] = i;
+        }
+
+        // missing edges are left at 0
+        final int[] distances = new int[n * n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            for (int slot = graph.firstEdgeSlot(ids[i]),
+                 end = graph.endEdgeSlot(ids[i]); slot < end; slot++) {
+                int target = graph.edgeTargetAt(ids[i], slot);
+                if (target >= 0) {
+                    distances[i * n + indices[target]] =
+                            graph.edgeWeightAt(ids[i], slot);
+                }
+            }
+        });
+
+        return new MatrixDistances<>(cities, !graph.isDirected(), distances);
+    }
+
+
+    /**
+     * Returns the graph's edge weights, looked up as they are needed.
+     *
+     * @param graph graph whose vertices are the cities
+     * @param <T> type of the vertices in the graph
+     * @return distances between the graph's vertices
+     */
+    public static <T> TourDistances<T> edges(final AbstractGraph<T> graph) {
+        List<T> cities = graph.getVertices();
+        final int[] ids = new int[cities.size()];
+
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.idOf(cities.get(i));
+        }
+
+        return new TourDistances<T>(cities, !graph.isDirected()) {
+            public int distance(int from, int to) {
+                return Math.max(graph.getEdgeWeight(ids[from], ids[to]), 0);
+            }
+        };
+    }
+
+
+    /**
+     * Returns the straight-line distances between the cities, rounded to
+     * the nearest integer as TSPLIB's EUC_2D instances are, and worked out
+     * as they are needed.
+     *
+     * @param cities cities in the order to number them
+     * @param coordinates x and y coordinates of each city
+     * @param <T> type of the vertices in the graph
+     * @return distances between the cities
+     * @throws IllegalArgumentException if a city has no coordinates
+     */
+    public static <T> TourDistances<T> euclidean(List<T> cities,
+                                                 Map<T, double[]> coordinates)
+            throws IllegalArgumentException {
+        final double[] xs = new double[cities.size()];
+        final double[] ys = new double[cities.size()];
+
+        for (int i = 0; i < xs.length; i++) {
+            double[] point = coordinates.get(cities.get(i));
+            if (point == null) {
+                throw new IllegalArgumentException();
+            }
+            xs[i] = point[0];
+            ys[i] = point[1];
+        }
+
+        return new EuclideanDistances<>(cities, xs, ys);
+    }
+
+
+    /**
+     * Returns the cities, in the order they are numbered.
+     *
+     * @return the cities
+     */
+    public List<T> getCities() {
+        return _cities;
+    }
+
+
+    /**
+     * Returns true if the distance between any two cities is the same both
+     * ways.
+     *
+     * @return true if the distances are symmetric
+     */
+    public boolean isSymmetric() {
+        return _isSymmetric;
+    }
+
+
+    /**
+     * Returns the distance from one city to another.
+     *
+     * @param from number of the city to start from
+     * @param to number of the city to end at
+     * @return distance between them
+     */
+    public abstract int distance(int from, int to);
+
+
+    /**
+     * Returns the given number of nearest other cities to each city, or all
+     * of them if there are fewer, nearest first. Ties are broken by city
+     * number. This measures every pair of cities, in parallel.
+     *
+     * @param k number of neighbors to find for each city
+     * @return for each city, the numbers of its nearest cities
+     */
+    public int[][] nearestNeighbors(final int k) {
+        final int n = _cities.size();
+        final int[][] neighbors = new int[n][];
+
+        // the distance in the high half and the city in the low half order
+        // the candidates with no ties; a max-heap keeps the k nearest so far
+        IntStream.range(0, n).parallel().forEach(city -> {
+            PriorityQueue<Long> nearest = new PriorityQueue<>(k + 1,
+                    Collections.reverseOrder());
+            for (int other = 0; other < n; other++) {
+                if (other != city) {
+                    nearest.add((long) distance(city, other) << 32 | other);
+                    if (nearest.size() > k) {
+                        nearest.poll();
+                    }
+                }
+            }
+            neighbors[city] = new int[nearest.size()];
+            for (int i = neighbors[city].length - 1; i >= 0; i--) {
+                neighbors[city][i] = (int) (long) nearest.poll();
+            }
+        });
+
+        return neighbors;
+    }
+
+
+    /**
+     * Distances held in a row-major matrix.
+     */
+    private static class MatrixDistances<T> extends TourDistances<T> {
+        private int _cityCount;
+        private int[] _distances;
+
+        /**
+         * Constructs distances over a filled matrix.
+         *
+         * @param cities cities in the order of the rows and columns
+         * @param isSymmetric true if the matrix is symmetric
+         * @param distances row-major matrix of the distances
+         */
+        MatrixDistances(List<T> cities, boolean isSymmetric,
+                        int[] distances) {
+            super(cities, isSymmetric);
+            _cityCount = cities.size();
+            _distances = distances;
+        }
+
+
+        public int distance(int from, int to) {
+            return _distances[from * _cityCount + to];
+        }
+    }
+
+
+    /**
+     * Straight-line distances between points in the plane, rounded to the
+     * nearest integer.
+     */
+    private static class EuclideanDistances<T> extends TourDistances<T> {
+        private double[] _xs;
+        private double[] _ys;
+
+        /**
+         * Constructs distances between the given points.
+         *
+         * @param cities cities in the order of the points
+         * @param xs x coordinate of each city
+         * @param ys y coordinate of each city
+         */
+        EuclideanDistances(List<T> cities, double[] xs, double[] ys) {
+            super(cities, true);
+            _xs = xs;
+            _ys = ys;
+        }
+
+
+        public int distance(int from, int to) {
+            return (int) (Math.sqrt(exactDistanceSquared(from, to)) + 0.5);
+        }
+
+
+        /**
+         * Finds each city's nearest neighbors by bucketing the cities into a
+         * grid of square cells, about two cities to a cell, and searching
+         * outwards from each city's cell a ring of cells at a time. Every
+         * city beyond ring r is more than r cell widths away, so the search
+         * stops once the k nearest found so far are all that close. For
+         * cities spread over the plane this takes O(k log k) per city
+         * instead of O(n).
+         *
+         * @param k number of neighbors to find for each city
+         * @return for each city, the numbers of its nearest cities
+         */
+        public int[][] nearestNeighbors(final int k) {
+            final int n = _xs.length;
+            final int[][] neighbors = new int[n][];
+            double minX = Double.MAX_VALUE;
+            double minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+
+            if (n == 0) {
+                return neighbors;
+            }
+
+            for (int city = 0; city < n; city++) {
+                minX = Math.min(minX, _xs[city]);
+                minY = Math.min(minY, _ys[city]);
+                maxX = Math.max(maxX, _xs[city]);
+                maxY = Math.max(maxY, _ys[city]);
+            }
+
+            // square cells sized for about two cities each, over the box
+            // around the cities, but no smaller than the longer side over n,
+            // so a thin box, such as cities all in a line, has no more than
+            // about n cells along it rather than a huge number of empty ones
+            double width = maxX - minX;
+            double height = maxY - minY;
+            double size = Math.max(Math.sqrt(2 * width * height / n),
+                    Math.max(width, height) / n);
+            final double cellSize = size > 0 ? size : 1;
+            final int columns = (int) (width / cellSize) + 1;
+            final int rows = (int) (height / cellSize) + 1;
+            final int cellCount = Math.toIntExact((long) columns * rows);
+            final double left = minX;
+            final double bottom = minY;
+
+            // the cities of each cell are contiguous in one array, found
+            // from the cell's offset
+            final int[] cells = new int[n];
+            final int[] offsets = new int[cellCount + 1];
+            final int[] cityCells = new int[n];
+            for (int city = 0; city < n; city++) {
+                cityCells[city] =
+                        (int) ((_ys[city] - bottom) / cellSize) * columns +
+                        (int) ((_xs[city] - left) / cellSize);
+                offsets[cityCells[city] + 1]++;
+            }
+            for (int cell = 0; cell < cellCount; cell++) {
+                offsets[cell + 1] += offsets[cell];
+            }
+            int[] filled = Arrays.copyOf(offsets, offsets.length - 1);
+            for (int city = 0; city < n; city++) {
+                cells[filled[cityCells[city]]++] = city;
+            }
+
+            IntStream.range(0, n).parallel().forEach(city -> {
+                PriorityQueue<double[]> nearest = new PriorityQueue<>(k + 1,
+                        (a, b) -> a[0] != b[0] ? Double.compare(b[0], a[0]) :
+                                Double.compare(b[1], a[1]));
+                int column = cityCells[city] % columns;
+                int row = cityCells[city] / columns;
+                int maxRing = Math.max(columns, rows);
+
+                for (int ring = 0; ring <= maxRing; ring++) {
+                    for (int y = Math.max(row - ring, 0);
+                         y <= Math.min(row + ring, rows - 1); y++) {
+                        // the top and bottom rows of the ring in full, and
+                        // just the two ends of the rows between
+                        int step = y == row - ring || y == row + ring ? 1 :
+                                2 * ring;
+                        for (int x = column - ring; x <= column + ring;
+                             x += step) {
+                            if (x < 0 || x >= columns) {
+                                continue;
+                            }
+                            int cell = y * columns + x;
+                            for (int i = offsets[cell]; i < offsets[cell + 1];
+                                 i++) {
+                                int other = cells[i];
+                                if (other != city) {
+                                    nearest.add(new double[] {
+                                            exactDistanceSquared(city, other),
+                                            other});
+                                    if (nearest.size() > k) {
+                                        nearest.poll();
+                                    }
+                                }
+                            }
+                        }
+                    }
+
+                    double reach = ring * cellSize;
+                    if (nearest.size() == Math.min(k, n - 1) &&
+                            (nearest.isEmpty() ||
+                             nearest.peek()[0] <= reach * reach)) {
+                        break;
+                    }
+                }
+
+                neighbors[city] = new int[nearest.size()];
+                for (int i = neighbors[city].length - 1; i >= 0; i--) {
+                    neighbors[city][i] = (int) nearest.poll()[1];
+                }
+            });
+
+            return neighbors;
+        }
+
+
+        /**
+         * Returns the square of the unrounded distance between two cities.
+         *
+         * @param from one city
+         * @param to another city
+         * @return square of the distance between them
+         */
+        private double exactDistanceSquared(int from, int to) {
+            double dx = _xs[from] - _xs[to];
+            double dy = _ys[from] - _ys[to];
+            return dx * dx + dy * dy;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -381,6 +383,696 @@ public class GraphTester {
         assertEquals(null, shortPath);
     }
 
+    @Test
+    public void testShortestPathFrontiers() throws IOException {
+        Graph<String> campusGraph = Graph.fromCSVFile(false,
+                new Scanner(new File("Campus_Map.csv")));
+
+        // every frontier should find paths of the same length on the campus
+        comparePathLengths(campusGraph, campusGraph.getVertices(),
+                Graph.Frontier.PRIORITY_QUEUE, Graph.Frontier.INDEXED_HEAP);
+
+        // and on a bigger generated grid
+        Graph<String> gridGraph = testGridGraph(150, 150, 7);
+        List<String> corners = Arrays.asList("0,0", "149,149", "0,149",
+                "149,0", "75,75");
+        for (Graph.Frontier frontier : Graph.Frontier.values()) {
+            comparePathLengths(gridGraph, corners,
+                    Graph.Frontier.INDEXED_HEAP, frontier);
+        }
+
+        // weights too heavy for the bucket queue should still work with
+        // the radix heap, which is what AUTO picks for them
+        Graph<String> heavyGraph = testGridGraph(40, 40, 1 << 20);
+        assertTrue(heavyGraph.newDistanceQueue(Graph.Frontier.AUTO)
+                instanceof RadixHeap);
+        assertTrue(gridGraph.newDistanceQueue(Graph.Frontier.AUTO)
+                instanceof BucketQueue);
+        comparePathLengths(heavyGraph, Arrays.asList("0,0", "39,39", "0,39",
+                "20,20"), Graph.Frontier.INDEXED_HEAP,
+                Graph.Frontier.AUTO);
+
+        // the special cases should hold for every frontier as well
+        testFillGraph(_testDirGraph);
+        for (Graph.Frontier frontier : Graph.Frontier.values()) {
+            assertTrue(_testDirGraph.shortestPathBetween("Hello", "Hello",
+                    frontier).isEmpty());
+            assertEquals(null, _testDirGraph.shortestPathBetween(
+                    "been too long.", "Hello", frontier));
+            try {
+                _testDirGraph.shortestPathBetween("Hello", "Bellow", frontier);
+                fail();
+            }
+            catch (NoSuchElementException e) {} // all is well
+        }
+    }
+
+    @Test
+    public void testBidirectionalShortestPath() {
+        testFillGraph(_testDirGraph);
+        testFillGraph(_testUndirGraph);
+
+        // a directed graph has to search its incoming edges backwards, so
+        // try it both as it is and frozen
+        List<AbstractGraph<String>> graphs = new ArrayList<>();
+        graphs.add(_testDirGraph);
+        graphs.add(_testDirGraph.freeze());
+        graphs.add(_testUndirGraph);
+        graphs.add(_testUndirGraph.freeze());
+
+        for (AbstractGraph<String> graph : graphs) {
+            for (String source : graph.getVertices()) {
+                for (String destination : graph.getVertices()) {
+                    List<Graph.Edge<String>> expected =
+                            graph.shortestPathBetween(source, destination);
+                    List<Graph.Edge<String>> actual = graph
+                            .bidirectionalShortestPathBetween(source,
+                                    destination);
+                    if (expected == null) {
+                        assertEquals(null, actual);
+                    }
+                    else {
+                        assertEquals(edgeListLength(graph, expected),
+                                edgeListLength(graph, actual));
+                        assertEquals(source, actual.isEmpty() ? source :
+                                actual.get(0).getSource());
+                        assertEquals(destination, actual.isEmpty() ?
+                                destination : actual.get(actual.size() - 1)
+                                .getDestination());
+                    }
+                }
+            }
+        }
+
+        try {
+            _testDirGraph.bidirectionalShortestPathBetween("Hello", "Bellow");
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        // removing a vertex should take its edges out of the backward
+        // search as well
+        _testDirGraph.removeVertex("has");
+        assertEquals(null, _testDirGraph.bidirectionalShortestPathBetween(
+                "Hello", "been too long."));
+
+        // and a graph that has grown since the last search should get a
+        // search with room for its new vertices
+        for (int i = 0; i < 100; i++) {
+            _testDirGraph.addVertex("grown" + i);
+        }
+        _testDirGraph.addEdge("Hello", "grown99", 5);
+        _testDirGraph.addEdge("grown99", "been too long.", 5);
+        assertEquals(10, edgeListLength(_testDirGraph,
+                _testDirGraph.bidirectionalShortestPathBetween("Hello",
+                        "been too long.")));
+
+        // corner to corner on a grid, the two searches together should
+        // settle fewer vertices than one search from the source
+        Graph<String> gridGraph = testGridGraph(100, 100, 7);
+        int source = gridGraph.idOf("0,0");
+        int destination = gridGraph.idOf("99,99");
+        DijkstraSearch<String> oneWay = new DijkstraSearch<>(gridGraph);
+        BidirectionalDijkstra<String> twoWay =
+                new BidirectionalDijkstra<>(gridGraph);
+        assertTrue(oneWay.search(source, destination));
+        assertTrue(twoWay.search(source, destination));
+        assertEquals(oneWay.distanceTo(destination),
+                gridGraph.pathLength(twoWay.getPathIds()));
+        assertTrue(twoWay.getSettledCount() < oneWay.getSettledCount());
+    }
+
+    @Test
+    public void testAStar() {
+        testFillGraph(_testDirGraph);
+
+        // with no sense of direction A* should still find the same paths
+        Heuristic<String> zero = Heuristic.zero();
+        for (String source : _testDirGraph.getVertices()) {
+            for (String destination : _testDirGraph.getVertices()) {
+                assertEquals(edgeListLength(_testDirGraph,
+                        _testDirGraph.shortestPathBetween(source,
+                                destination)),
+                        edgeListLength(_testDirGraph, _testDirGraph.aStar(
+                                source, destination, zero)));
+            }
+        }
+        assertTrue(_testDirGraph.aStar("Hello", "Hello", zero).isEmpty());
+
+        try {
+            _testDirGraph.aStar("Hello", "Bellow", zero);
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        // every grid edge is at least one long and joins cells one apart,
+        // so the straight-line distance between cells is a lower bound
+        Graph<String> gridGraph = testGridGraph(100, 100, 3);
+        HashMap<String, double[]> coordinates = new HashMap<>();
+        for (int row = 0; row < 100; row++) {
+            for (int column = 0; column < 100; column++) {
+                coordinates.put(row + "," + column,
+                        new double[] {row, column});
+            }
+        }
+        Heuristic<String> euclidean = Heuristic.euclidean(coordinates);
+        assertEquals(5, euclidean.estimate("0,0", "3,4"));
+        assertEquals(0, euclidean.estimate("0,0", "Bellow"));
+
+        List<String> endpoints = Arrays.asList("0,0", "99,99", "10,90",
+                "50,50", "99,0");
+        for (String source : endpoints) {
+            for (String destination : endpoints) {
+                assertEquals(edgeListLength(gridGraph,
+                        gridGraph.shortestPathBetween(source, destination)),
+                        edgeListLength(gridGraph, gridGraph.aStar(source,
+                                destination, euclidean)));
+            }
+        }
+
+        // and pointing the search at the destination should settle fewer
+        // vertices than spreading out from the source
+        int source = gridGraph.idOf("50,5");
+        int destination = gridGraph.idOf("50,95");
+        DijkstraSearch<String> dijkstra = new DijkstraSearch<>(gridGraph);
+        AStarSearch<String> aStar = new AStarSearch<>(gridGraph);
+        dijkstra.search(source, destination);
+        aStar.search(source, destination, euclidean);
+        assertTrue(aStar.getSettledCount() < dijkstra.getSettledCount());
+    }
+
+    @Test
+    public void testLandmarks() throws IOException {
+        testFillGraph(_testDirGraph);
+
+        // the landmark bounds have to hold against edge direction too
+        LandmarkIndex<String> dirLandmarks =
+                new LandmarkIndex<>(_testDirGraph, 3);
+        assertEquals(3, dirLandmarks.getLandmarks().size());
+        for (String source : _testDirGraph.getVertices()) {
+            for (String destination : _testDirGraph.getVertices()) {
+                List<Graph.Edge<String>> path =
+                        _testDirGraph.shortestPathBetween(source, destination);
+                if (path != null) {
+                    assertTrue(dirLandmarks.estimate(source, destination) <=
+                            edgeListLength(_testDirGraph, path));
+                }
+                assertEquals(edgeListLength(_testDirGraph, path),
+                        edgeListLength(_testDirGraph, _testDirGraph.aStar(
+                                source, destination, dirLandmarks)));
+            }
+        }
+        assertEquals(0, dirLandmarks.estimate("Hello", "Bellow"));
+
+        try {
+            new LandmarkIndex<>(_testDirGraph, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+
+        Graph<String> gridGraph = testGridGraph(100, 100, 3);
+        LandmarkIndex<String> landmarks = new LandmarkIndex<>(gridGraph, 8);
+        List<String> endpoints = Arrays.asList("0,0", "99,99", "10,90",
+                "50,50", "99,0");
+        for (String source : endpoints) {
+            for (String destination : endpoints) {
+                assertEquals(edgeListLength(gridGraph,
+                        gridGraph.shortestPathBetween(source, destination)),
+                        edgeListLength(gridGraph, gridGraph.aStar(source,
+                                destination, landmarks)));
+            }
+        }
+
+        int source = gridGraph.idOf("50,5");
+        int destination = gridGraph.idOf("50,95");
+        DijkstraSearch<String> dijkstra = new DijkstraSearch<>(gridGraph);
+        AStarSearch<String> aStar = new AStarSearch<>(gridGraph);
+        dijkstra.search(source, destination);
+        aStar.search(source, destination, landmarks);
+        assertTrue(aStar.getSettledCount() < dijkstra.getSettledCount());
+
+        // a saved index should come back giving the same estimates
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        landmarks.save(saved);
+        LandmarkIndex<String> loaded = LandmarkIndex.load(
+                new ByteArrayInputStream(saved.toByteArray()));
+        assertEquals(landmarks.getLandmarks(), loaded.getLandmarks());
+        for (String vertex : endpoints) {
+            for (String other : endpoints) {
+                assertEquals(landmarks.estimate(vertex, other),
+                        loaded.estimate(vertex, other));
+            }
+        }
+    }
+
+    @Test
+    public void testShortestPathTree() {
+        testFillGraph(_testDirGraph);
+
+        // one tree should answer everything separate searches would
+        for (String source : _testDirGraph.getVertices()) {
+            ShortestPathTree<String> tree =
+                    _testDirGraph.shortestPathTree(source);
+            assertEquals(source, tree.getSource());
+            for (String destination : _testDirGraph.getVertices()) {
+                List<Graph.Edge<String>> path = tree.pathTo(destination);
+                assertEquals(edgeListLength(_testDirGraph,
+                        _testDirGraph.shortestPathBetween(source,
+                                destination)),
+                        edgeListLength(_testDirGraph, path));
+                assertEquals(edgeListLength(_testDirGraph, path),
+                        tree.distanceTo(destination));
+                assertEquals(path != null, tree.isReachable(destination));
+                if (path != null && !path.isEmpty()) {
+                    assertEquals(source, path.get(0).getSource());
+                    assertEquals(destination,
+                            path.get(path.size() - 1).getDestination());
+                }
+            }
+            assertTrue(tree.pathTo(source).isEmpty());
+        }
+
+        try {
+            _testDirGraph.shortestPathTree("Bellow");
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        try {
+            _testDirGraph.shortestPathTree("Hello").distanceTo("Bellow");
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+    }
+
+    @Test
+    public void testDeltaStepping() {
+        testFillGraph(_testDirGraph);
+
+        // a cycle of free edges must not leave paths going round in circles
+        _testDirGraph.addVertex("Sing");
+        _testDirGraph.addVertex("song");
+        _testDirGraph.addEdge("has", "Sing", 3);
+        _testDirGraph.addEdge("Sing", "song", 0);
+        _testDirGraph.addEdge("song", "Sing", 0);
+        _testDirGraph.addEdge("song", "it", 0);
+
+        for (int delta : new int[] {1, 4, 1000}) {
+            for (String source : _testDirGraph.getVertices()) {
+                compareTrees(_testDirGraph,
+                        _testDirGraph.shortestPathTree(source),
+                        _testDirGraph.shortestPathTree(source, delta));
+            }
+        }
+
+        try {
+            _testDirGraph.shortestPathTree("Hello", 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+
+        try {
+            _testDirGraph.shortestPathTree("Bellow", 5);
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        // big enough that the buckets are relaxed in parallel
+        Graph<String> gridGraph = testGridGraph(150, 150, 20);
+        ShortestPathTree<String> tree = gridGraph.shortestPathTree("75,75");
+        for (int delta : new int[] {1, 10, 100}) {
+            ShortestPathTree<String> deltaTree =
+                    gridGraph.shortestPathTree("75,75", delta);
+            compareTrees(gridGraph, tree, deltaTree);
+        }
+    }
+
+    @Test
+    public void testDistanceMatrix() {
+        testFillGraph(_testDirGraph);
+
+        // every entry should match a tree grown from its row's source,
+        // including repeated targets and targets out of reach
+        List<String> sources = _testDirGraph.getVertices();
+        List<String> targets = new ArrayList<>(_testDirGraph.getVertices());
+        targets.add("Hello");
+        long[] matrix = _testDirGraph.distanceMatrix(sources, targets);
+        assertEquals(sources.size() * targets.size(), matrix.length);
+        for (int row = 0; row < sources.size(); row++) {
+            ShortestPathTree<String> tree =
+                    _testDirGraph.shortestPathTree(sources.get(row));
+            for (int column = 0; column < targets.size(); column++) {
+                assertEquals(tree.distanceTo(targets.get(column)),
+                        matrix[row * targets.size() + column]);
+            }
+        }
+        assertEquals(0, _testDirGraph.distanceMatrix(sources,
+                new ArrayList<String>()).length);
+
+        try {
+            _testDirGraph.distanceMatrix(sources,
+                    Arrays.asList("Hello", "Bellow"));
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        // enough rows to spread over the worker threads
+        Graph<String> gridGraph = testGridGraph(60, 60, 9);
+        Random random = new Random(430);
+        List<String> origins = new ArrayList<>();
+        List<String> destinations = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            origins.add(random.nextInt(60) + "," + random.nextInt(60));
+            destinations.add(random.nextInt(60) + "," + random.nextInt(60));
+        }
+        matrix = gridGraph.distanceMatrix(origins, destinations);
+        for (int row = 0; row < origins.size(); row += 7) {
+            ShortestPathTree<String> tree =
+                    gridGraph.shortestPathTree(origins.get(row));
+            for (int column = 0; column < destinations.size(); column++) {
+                assertEquals(tree.distanceTo(destinations.get(column)),
+                        matrix[row * destinations.size() + column]);
+            }
+        }
+    }
+
+    @Test
+    public void testAllPairsShortestPaths() throws IOException {
+        testFillGraph(_testDirGraph);
+
+        for (Graph.AllPairsMethod method : Graph.AllPairsMethod.values()) {
+            DistanceTable<String> table =
+                    _testDirGraph.allPairsShortestPaths(method);
+            assertEquals(_testDirGraph.getVertices(), table.getVertices());
+            for (String source : _testDirGraph.getVertices()) {
+                ShortestPathTree<String> tree =
+                        _testDirGraph.shortestPathTree(source);
+                for (String destination : _testDirGraph.getVertices()) {
+                    assertEquals(tree.distanceTo(destination),
+                            table.distanceBetween(source, destination));
+                }
+            }
+        }
+
+        // a random graph a few blocks across and dense enough for the
+        // blocked Floyd-Warshall to be picked on its own
+        Graph<Integer> denseGraph = new Graph<>(true);
+        Random random = new Random(430);
+        for (int i = 0; i < 300; i++) {
+            denseGraph.addVertex(i);
+        }
+        for (int i = 0; i < 20000; i++) {
+            Integer source = random.nextInt(300);
+            Integer destination = random.nextInt(300);
+            if (!source.equals(destination)) {
+                denseGraph.addEdge(source, destination,
+                        1 + random.nextInt(1000));
+            }
+        }
+        DistanceTable<Integer> floydWarshall =
+                denseGraph.allPairsShortestPaths(
+                        Graph.AllPairsMethod.FLOYD_WARSHALL);
+        DistanceTable<Integer> dijkstra = denseGraph.allPairsShortestPaths(
+                Graph.AllPairsMethod.DIJKSTRA);
+        for (Integer source : denseGraph.getVertices()) {
+            for (Integer destination : denseGraph.getVertices()) {
+                assertEquals(dijkstra.distanceBetween(source, destination),
+                        floydWarshall.distanceBetween(source, destination));
+            }
+        }
+
+        // a saved table should map back with the same distances
+        File file = File.createTempFile("distances", ".bin");
+        try {
+            floydWarshall.save(file);
+            DistanceTable<Integer> mapped = DistanceTable.map(file,
+                    floydWarshall.getVertices());
+            for (int i = 0; i < 1000; i++) {
+                Integer source = random.nextInt(300);
+                Integer destination = random.nextInt(300);
+                assertEquals(floydWarshall.distanceBetween(source,
+                        destination), mapped.distanceBetween(source,
+                        destination));
+            }
+
+            try {
+                DistanceTable.map(file, Arrays.asList(1, 2, 3));
+                fail();
+            }
+            catch (IOException e) {} // all is well
+        }
+        finally {
+            file.delete();
+        }
+
+        try {
+            floydWarshall.distanceBetween(0, 300);
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        // a path through one vertex too long to store should not hide a
+        // short path through another
+        Graph<String> longGraph = new Graph<>(true);
+        for (String vertex : Arrays.asList("i", "k", "m", "j")) {
+            longGraph.addVertex(vertex);
+        }
+        longGraph.addEdge("i", "k", Integer.MAX_VALUE - 10);
+        longGraph.addEdge("k", "j", 100);
+        longGraph.addEdge("i", "m", 1);
+        longGraph.addEdge("m", "j", 1);
+        for (Graph.AllPairsMethod method : Graph.AllPairsMethod.values()) {
+            assertEquals(2L, longGraph.allPairsShortestPaths(method)
+                    .distanceBetween("i", "j"));
+        }
+
+        // but with no short path, the long one should be refused
+        longGraph.removeVertex("m");
+        for (Graph.AllPairsMethod method : Graph.AllPairsMethod.values()) {
+            try {
+                longGraph.allPairsShortestPaths(method);
+                fail();
+            }
+            catch (IllegalStateException e) {} // all is well
+        }
+
+        // a table too big for an int index should be refused, not wrap
+        Graph<Integer> hugeGraph = new Graph<>(true);
+        for (int i = 0; i < 46341; i++) {
+            hugeGraph.addVertex(i);
+        }
+        try {
+            hugeGraph.allPairsShortestPaths();
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+    }
+
+    @Test
+    public void testKShortestPaths() {
+        testFullyConnectGraph(_testDirGraph);
+        testFullyConnectGraph(_testUndirGraph);
+
+        // with k past the number of paths, every loopless path should come
+        // back exactly once, shortest first
+        for (Graph<String> testGraph : Arrays.asList(_testDirGraph,
+                _testUndirGraph)) {
+            List<Long> expected = simplePathLengths(testGraph, "Hello",
+                    "been too long.");
+            List<List<Graph.Edge<String>>> paths = testGraph.kShortestPaths(
+                    "Hello", "been too long.", expected.size() + 5);
+            assertEquals(expected.size(), paths.size());
+            HashSet<List<String>> distinct = new HashSet<>();
+            for (int i = 0; i < paths.size(); i++) {
+                List<Graph.Edge<String>> path = paths.get(i);
+                assertEquals((long) expected.get(i),
+                        edgeListLength(testGraph, path));
+                assertEquals("Hello", path.get(0).getSource());
+                assertEquals("been too long.",
+                        path.get(path.size() - 1).getDestination());
+                List<String> vertices = pathVertices(path);
+                assertEquals(vertices.size(),
+                        new HashSet<>(vertices).size());
+                assertTrue(distinct.add(vertices));
+            }
+            assertEquals(edgeListLength(testGraph, testGraph
+                            .shortestPathBetween("Hello", "been too long.")),
+                    edgeListLength(testGraph, paths.get(0)));
+        }
+
+        // against the edges in the directed graph there is no way back
+        assertTrue(_testDirGraph.kShortestPaths("been too long.", "Hello", 3)
+                .isEmpty());
+        assertEquals(1, _testDirGraph.kShortestPaths("Hello", "Hello", 3)
+                .size());
+        assertTrue(_testDirGraph.kShortestPaths("Hello", "Hello", 3).get(0)
+                .isEmpty());
+
+        try {
+            _testDirGraph.kShortestPaths("Hello", "Bellow", 3);
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        try {
+            _testDirGraph.kShortestPaths("Hello", "my", 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+
+        // long paths across a grid, where many spurs must search
+        Graph<String> gridGraph = testGridGraph(40, 40, 9);
+        List<List<Graph.Edge<String>>> paths =
+                gridGraph.kShortestPaths("0,0", "39,39", 30);
+        assertEquals(30, paths.size());
+        assertEquals(edgeListLength(gridGraph,
+                gridGraph.shortestPathBetween("0,0", "39,39")),
+                edgeListLength(gridGraph, paths.get(0)));
+        HashSet<List<String>> distinct = new HashSet<>();
+        for (int i = 0; i < paths.size(); i++) {
+            if (i > 0) {
+                assertTrue(edgeListLength(gridGraph, paths.get(i - 1)) <=
+                        edgeListLength(gridGraph, paths.get(i)));
+            }
+            List<String> vertices = pathVertices(paths.get(i));
+            assertEquals(vertices.size(), new HashSet<>(vertices).size());
+            assertTrue(distinct.add(vertices));
+        }
+    }
+
+    @Test
+    public void testPathCache() throws InterruptedException {
+        testFillGraph(_testDirGraph);
+        _testDirGraph.addVertex("Bellow");
+        _testDirGraph.addEdge("Bellow", "Perhaps", 3);
+        PathCache<String> cache = new PathCache<>(_testDirGraph, 3);
+
+        // a repeated pair should come from the cache, and match a search
+        List<Graph.Edge<String>> path =
+                cache.shortestPathBetween("Hello", "it");
+        assertEquals(edgeListLength(_testDirGraph,
+                _testDirGraph.shortestPathBetween("Hello", "it")),
+                edgeListLength(_testDirGraph, path));
+        assertSame(path, cache.shortestPathBetween("Hello", "it"));
+        assertNull(cache.shortestPathBetween("it", "Hello"));
+        assertNull(cache.shortestPathBetween("it", "Hello"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // the least recently used pair makes way once the cache is full
+        cache.shortestPathBetween("my", "has");
+        cache.shortestPathBetween("Hello", "it");
+        cache.shortestPathBetween("old", "Perhaps");
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.size());
+        assertSame(path, cache.shortestPathBetween("Hello", "it"));
+
+        // adding a vertex or removing an edge off the path leaves it
+        // cached, but removing one along it does not
+        _testDirGraph.addVertex("Yellow");
+        _testDirGraph.removeEdge("Bellow", "Perhaps");
+        assertSame(path, cache.shortestPathBetween("Hello", "it"));
+        _testDirGraph.removeEdge("old", "friend.");
+        assertNull(cache.shortestPathBetween("Hello", "it"));
+        assertEquals(1, cache.getInvalidationCount());
+
+        // a new edge can join up pairs that had no path
+        _testDirGraph.addEdge("it", "Hello", 5);
+        assertEquals(5, edgeListLength(_testDirGraph,
+                cache.shortestPathBetween("it", "Hello")));
+        assertEquals(0, edgeListLength(_testDirGraph,
+                cache.shortestPathBetween("it", "it")));
+
+        // a raised weight along the path is noticed, as is a removed vertex
+        path = cache.shortestPathBetween("it", "been too long.");
+        assertEquals(15, edgeListLength(_testDirGraph, path));
+        _testDirGraph.addEdge("has", "been too long.", 20);
+        assertEquals(27, edgeListLength(_testDirGraph,
+                cache.shortestPathBetween("it", "been too long.")));
+        _testDirGraph.removeVertex("has");
+        assertNull(cache.shortestPathBetween("it", "been too long."));
+
+        try {
+            cache.shortestPathBetween("has", "it");
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        try {
+            cache.shortestPathBetween("Hello", "old").clear();
+            fail();
+        }
+        catch (UnsupportedOperationException e) {} // all is well
+
+        // with a time to live, paths are found again once it has passed
+        cache = new PathCache<>(_testDirGraph, 10, 50,
+                java.util.concurrent.TimeUnit.MILLISECONDS);
+        path = cache.shortestPathBetween("Hello", "old");
+        assertSame(path, cache.shortestPathBetween("Hello", "old"));
+        Thread.sleep(100);
+        assertNotSame(path, cache.shortestPathBetween("Hello", "old"));
+        assertEquals(1, cache.getInvalidationCount());
+
+        try {
+            new PathCache<>(_testDirGraph, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+    }
+
+    @Test
+    public void testContractionHierarchy() {
+        testFillGraph(_testDirGraph);
+
+        // every path through the hierarchy should unpack into real edges
+        // and be exactly as long as Dijkstra's
+        ContractionHierarchy<String> dirHierarchy =
+                new ContractionHierarchy<>(_testDirGraph);
+        for (String source : _testDirGraph.getVertices()) {
+            for (String destination : _testDirGraph.getVertices()) {
+                long length = edgeListLength(_testDirGraph,
+                        _testDirGraph.shortestPathBetween(source,
+                                destination));
+                assertEquals(length, edgeListLength(_testDirGraph,
+                        dirHierarchy.shortestPathBetween(source,
+                                destination)));
+                assertEquals(length, dirHierarchy.distanceBetween(source,
+                        destination));
+            }
+        }
+        assertTrue(dirHierarchy.shortestPathBetween("Hello", "Hello")
+                .isEmpty());
+
+        try {
+            dirHierarchy.shortestPathBetween("Hello", "Bellow");
+            fail();
+        }
+        catch (NoSuchElementException e) {} // all is well
+
+        Graph<String> gridGraph = testGridGraph(100, 100, 9);
+        ContractionHierarchy<String> hierarchy =
+                new ContractionHierarchy<>(gridGraph);
+
+        Random random = new Random(430);
+        for (int i = 0; i < 200; i++) {
+            String source = random.nextInt(100) + "," + random.nextInt(100);
+            String destination = random.nextInt(100) + "," +
+                    random.nextInt(100);
+            long length = edgeListLength(gridGraph,
+                    gridGraph.shortestPathBetween(source, destination));
+            assertEquals(length, edgeListLength(gridGraph,
+                    hierarchy.shortestPathBetween(source, destination)));
+            assertEquals(length, hierarchy.distanceBetween(source,
+                    destination));
+        }
+
+        // a vertex cut off from the rest has no path either way
+        gridGraph.addVertex("island");
+        hierarchy = new ContractionHierarchy<>(gridGraph);
+        assertNull(hierarchy.shortestPathBetween("0,0", "island"));
+        assertEquals(-1, hierarchy.distanceBetween("island", "0,0"));
+    }
+
     @Test
     public void testMinimumSpanningTree() {
         System.out.println(_testUndirGraph.minimumSpanningTree());
@@ -396,6 +1088,229 @@ public class GraphTester {
         System.out.println(_testUndirGraph.minimumSpanningTree());
     }
 
+    @Test
+    public void testMinimumSpanningForest() {
+        testFullyConnectGraph(_testUndirGraph);
+
+        // a connected graph's forest is its spanning tree
+        assertEquals(spanningTreeWeight(_testUndirGraph,
+                _testUndirGraph.minimumSpanningTree()),
+                spanningTreeWeight(_testUndirGraph,
+                        _testUndirGraph.minimumSpanningForest()));
+        assertEquals(0, new Graph<String>(false).minimumSpanningForest()
+                .getVertexCount());
+
+        // pieces of a grid cut apart should each get their own tree, as
+        // heavy as the tree of that piece alone
+        Graph<String> gridGraph = testGridGraph(60, 60, 9);
+        Graph<String> topGraph = new Graph<>(false);
+        for (int column = 0; column < 60; column++) {
+            gridGraph.removeEdge("29," + column, "30," + column);
+        }
+        for (String vertex : gridGraph.getVertices()) {
+            if (Integer.parseInt(vertex.split(",")[0]) < 30) {
+                topGraph.addVertex(vertex);
+            }
+        }
+        for (String vertex : topGraph.getVertices()) {
+            for (String neighbor : gridGraph.getNeighbors(vertex)) {
+                topGraph.addEdge(vertex, neighbor,
+                        gridGraph.getEdgeWeight(vertex, neighbor));
+            }
+        }
+        gridGraph.addVertex("island");
+        Graph<String> forest = gridGraph.minimumSpanningForest();
+        assertEquals(gridGraph.getVertexCount(), forest.getVertexCount());
+        long topWeight = 0;
+        int edgeCount = 0;
+        for (String vertex : forest.getVertices()) {
+            for (String neighbor : forest.getNeighbors(vertex)) {
+                assertEquals(gridGraph.getEdgeWeight(vertex, neighbor),
+                        forest.getEdgeWeight(vertex, neighbor));
+                if (vertex.compareTo(neighbor) < 0) {
+                    edgeCount++;
+                    if (Integer.parseInt(vertex.split(",")[0]) < 30) {
+                        topWeight += forest.getEdgeWeight(vertex, neighbor);
+                    }
+                }
+            }
+        }
+        // two trees of 1800 vertices each, and one vertex alone
+        assertEquals(2 * 1799, edgeCount);
+        assertEquals(spanningTreeWeight(topGraph,
+                topGraph.minimumSpanningTree()), topWeight);
+        assertNull(gridGraph.minimumSpanningTree(
+                Graph.SpanningTreeMethod.BORUVKA));
+
+        try {
+            _testDirGraph.minimumSpanningForest();
+            fail();
+        }
+        catch (IllegalStateException e) {} // all is well
+    }
+
+    @Test
+    public void testDynamicSpanningForest() {
+        Graph<String> testGraph = testGridGraph(12, 12, 50);
+        DynamicSpanningForest<String> forest =
+                new DynamicSpanningForest<>(testGraph);
+        List<String> vertices = testGraph.getVertices();
+        Random random = new Random(430);
+
+        // after every change the forest should weigh as much as one built
+        // from scratch, and be a forest of the graph's own edges
+        for (int i = 0; i < 600; i++) {
+            String source = vertices.get(random.nextInt(vertices.size()));
+            String destination =
+                    vertices.get(random.nextInt(vertices.size()));
+            if (source.equals(destination)) {
+                continue;
+            }
+            if (testGraph.edgeExists(source, destination) &&
+                    random.nextBoolean()) {
+                testGraph.removeEdge(source, destination);
+            }
+            else {
+                // sometimes an existing edge just gets a new weight
+                testGraph.addEdge(source, destination, random.nextInt(60));
+            }
+
+            Graph<String> expected = testGraph.minimumSpanningForest();
+            Graph<String> actual = forest.getForest();
+            assertEquals(forestWeight(expected), forest.getTotalWeight());
+            assertEquals(forestWeight(actual), forest.getTotalWeight());
+            int edgeCount = 0;
+            for (String vertex : actual.getVertices()) {
+                for (String neighbor : actual.getNeighbors(vertex)) {
+                    assertEquals(testGraph.getEdgeWeight(vertex, neighbor),
+                            actual.getEdgeWeight(vertex, neighbor));
+                    assertTrue(forest.isForestEdge(vertex, neighbor));
+                    edgeCount++;
+                }
+            }
+            assertEquals(2 * forest.getEdgeCount(), edgeCount);
+            assertEquals(countEdges(expected), forest.getEdgeCount());
+        }
+
+        // removing a vertex takes its edges with it, and a new vertex is
+        // left out until it gets an edge
+        testGraph.removeVertex("5,5");
+        testGraph.addVertex("island");
+        assertEquals(forestWeight(testGraph.minimumSpanningForest()),
+                forest.getTotalWeight());
+        assertFalse(forest.isSpanningTree());
+        testGraph.addEdge("island", "0,0", 1);
+        assertEquals(forestWeight(testGraph.minimumSpanningForest()),
+                forest.getTotalWeight());
+
+        // leaves breaking off a hub should each be joined back by their
+        // lightest other edge, with the hub's lists kept straight as edges
+        // move in and out of the forest around it
+        Graph<String> starGraph = new Graph<>(false);
+        starGraph.addVertex("hub");
+        for (int i = 0; i < 40; i++) {
+            starGraph.addVertex("leaf" + i);
+            starGraph.addEdge("hub", "leaf" + i, 1 + random.nextInt(10));
+            if (i > 0) {
+                starGraph.addEdge("leaf" + (i - 1), "leaf" + i,
+                        5 + random.nextInt(20));
+            }
+        }
+        DynamicSpanningForest<String> starForest =
+                new DynamicSpanningForest<>(starGraph);
+        for (int i = 0; i < 40; i += 3) {
+            starGraph.removeEdge("hub", "leaf" + i);
+            assertEquals(forestWeight(starGraph.minimumSpanningForest()),
+                    starForest.getTotalWeight());
+            assertTrue(starForest.isSpanningTree());
+        }
+        starGraph.removeVertex("hub");
+        assertEquals(forestWeight(starGraph.minimumSpanningForest()),
+                starForest.getTotalWeight());
+        assertEquals(39, starForest.getEdgeCount());
+
+        // once detached it stops following
+        forest.detach();
+        long weight = forest.getTotalWeight();
+        testGraph.removeEdge("island", "0,0");
+        assertEquals(weight, forest.getTotalWeight());
+
+        // a fresh connected graph has a spanning tree
+        testFullyConnectGraph(_testUndirGraph);
+        forest = new DynamicSpanningForest<>(_testUndirGraph);
+        assertTrue(forest.isSpanningTree());
+        assertEquals(spanningTreeWeight(_testUndirGraph,
+                _testUndirGraph.minimumSpanningTree()),
+                forest.getTotalWeight());
+
+        try {
+            new DynamicSpanningForest<>(_testDirGraph);
+            fail();
+        }
+        catch (IllegalStateException e) {} // all is well
+    }
+
+    @Test
+    public void testSpanningTreeMethods() {
+        testFullyConnectGraph(_testUndirGraph);
+
+        // every method should find a tree of the same weight, on graphs
+        // from sparse to complete
+        Random random = new Random(430);
+        List<Graph<String>> testGraphs = new ArrayList<>();
+        testGraphs.add(_testUndirGraph);
+        testGraphs.add(testGridGraph(30, 30, 9));
+        for (double density : new double[] {0.1, 0.6, 1}) {
+            Graph<String> testGraph = new Graph<>(false);
+            for (int i = 0; i < 80; i++) {
+                testGraph.addVertex("v" + i);
+                if (i > 0) {
+                    // a chain keeps it connected
+                    testGraph.addEdge("v" + (i - 1), "v" + i,
+                            random.nextInt(1000));
+                }
+                for (int j = 0; j < i - 1; j++) {
+                    if (random.nextDouble() < density) {
+                        testGraph.addEdge("v" + j, "v" + i,
+                                random.nextInt(1000));
+                    }
+                }
+            }
+            testGraphs.add(testGraph);
+        }
+
+        for (Graph<String> testGraph : testGraphs) {
+            long weight = spanningTreeWeight(testGraph,
+                    testGraph.minimumSpanningTree(
+                            Graph.SpanningTreeMethod.PRIM));
+            assertEquals(weight, spanningTreeWeight(testGraph,
+                    testGraph.minimumSpanningTree(
+                            Graph.SpanningTreeMethod.KRUSKAL)));
+            assertEquals(weight, spanningTreeWeight(testGraph,
+                    testGraph.minimumSpanningTree(
+                            Graph.SpanningTreeMethod.DENSE_PRIM)));
+            assertEquals(weight, spanningTreeWeight(testGraph,
+                    testGraph.minimumSpanningTree(
+                            Graph.SpanningTreeMethod.BORUVKA)));
+            assertEquals(weight, spanningTreeWeight(testGraph,
+                    testGraph.minimumSpanningTree()));
+        }
+
+        // a graph in two pieces has no spanning tree
+        _testUndirGraph.addVertex("island");
+        for (Graph.SpanningTreeMethod method :
+                Graph.SpanningTreeMethod.values()) {
+            assertNull(_testUndirGraph.minimumSpanningTree(method));
+        }
+
+        try {
+            _testDirGraph.minimumSpanningTree(
+                    Graph.SpanningTreeMethod.KRUSKAL);
+            fail();
+        }
+        catch (IllegalStateException e) {} // all is well
+    }
+
 
     @Test
     public void testOptimalPath() {
@@ -403,6 +1318,30 @@ public class GraphTester {
         System.out.println(_testUndirGraph.getOptimalTour(20, (float)0.02,
                 1000));
 
+        // every tour should visit each vertex exactly once
+        List<String> tour = _testUndirGraph.getOptimalTour(20, (float)0.02,
+                100);
+        assertEquals(_testUndirGraph.getVertexCount(), tour.size());
+        assertEquals(new HashSet<>(_testUndirGraph.getVertices()),
+                new HashSet<>(tour));
+        // the length kept up along the way should match the tour's own,
+        // whether or not edges weigh the same both ways
+        testFullyConnectGraph(_testDirGraph);
+        for (Graph<String> testGraph : Arrays.asList(_testUndirGraph,
+                _testDirGraph)) {
+            InverOver<String> search = new InverOver<>(
+                    TourDistances.edges(testGraph), 10, (float)0.2,
+                    new SplittableRandom(430));
+            search.evolve(200);
+            assertEquals(testGraph.pathLength(search.getBestTour()),
+                    search.getBestLength());
+        }
+
+        Graph<String> singleGraph = new Graph<>(false);
+        singleGraph.addVertex("Hello");
+        assertEquals(Collections.singletonList("Hello"),
+                singleGraph.getOptimalTour(5, (float)0.02, 10));
+
 
         try {
             _testUndirGraph = Graph.fromTSPFile(new FileInputStream(new File
@@ -427,6 +1366,259 @@ public class GraphTester {
                 5000));
     }
 
+    @Test
+    public void testTourDistances() {
+        testFullyConnectGraph(_testDirGraph);
+        testFullyConnectGraph(_testUndirGraph);
+
+        // the matrix should hold exactly what the edges give, with 0 where
+        // there is no edge
+        for (Graph<String> testGraph : Arrays.asList(_testDirGraph,
+                _testUndirGraph)) {
+            TourDistances<String> matrix = TourDistances.matrix(testGraph);
+            TourDistances<String> edges = TourDistances.edges(testGraph);
+            List<String> cities = matrix.getCities();
+            assertEquals(testGraph.getVertices(), cities);
+            assertEquals(!testGraph.isDirected(), matrix.isSymmetric());
+            for (int from = 0; from < cities.size(); from++) {
+                for (int to = 0; to < cities.size(); to++) {
+                    assertEquals(Math.max(0, testGraph.getEdgeWeight(
+                            cities.get(from), cities.get(to))),
+                            matrix.distance(from, to));
+                    assertEquals(matrix.distance(from, to),
+                            edges.distance(from, to));
+                }
+            }
+        }
+
+        // straight-line distances from coordinates should match a complete
+        // graph weighted the same way
+        Random random = new Random(430);
+        Graph<String> planeGraph = new Graph<>(false);
+        Map<String, double[]> coordinates = new HashMap<>();
+        for (int i = 0; i < 60; i++) {
+            String city = "c" + i;
+            planeGraph.addVertex(city);
+            coordinates.put(city, new double[] {random.nextInt(1000),
+                    random.nextInt(1000)});
+            for (int j = 0; j < i; j++) {
+                double[] from = coordinates.get("c" + j);
+                double[] to = coordinates.get(city);
+                planeGraph.addEdge("c" + j, city, (int) Math.round(
+                        Math.hypot(from[0] - to[0], from[1] - to[1])));
+            }
+        }
+        TourDistances<String> euclidean = TourDistances.euclidean(
+                planeGraph.getVertices(), coordinates);
+        TourDistances<String> matrix = TourDistances.of(planeGraph);
+        for (int from = 0; from < 60; from++) {
+            for (int to = 0; to < 60; to++) {
+                assertEquals(matrix.distance(from, to),
+                        euclidean.distance(from, to));
+            }
+        }
+        List<String> tour = planeGraph.getOptimalTour(20, (float)0.02, 200,
+                euclidean);
+        assertEquals(new HashSet<>(planeGraph.getVertices()),
+                new HashSet<>(tour));
+
+        try {
+            coordinates.remove("c7");
+            TourDistances.euclidean(planeGraph.getVertices(), coordinates);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+
+        try {
+            planeGraph.getOptimalTour(20, (float)0.02, 10,
+                    TourDistances.matrix(_testUndirGraph));
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+    }
+
+    @Test
+    public void testIslandTour() {
+        testFullyConnectGraph(_testUndirGraph);
+        testFullyConnectGraph(_testDirGraph);
+
+        // every island tour should visit each vertex exactly once, with any
+        // number of islands and migrations
+        for (int islandCount : new int[] {1, 3, 8}) {
+            List<String> tour = _testUndirGraph.getOptimalTour(10,
+                    (float)0.02, 100, islandCount, 7);
+            assertEquals(_testUndirGraph.getVertexCount(), tour.size());
+            assertEquals(new HashSet<>(_testUndirGraph.getVertices()),
+                    new HashSet<>(tour));
+        }
+
+        // and with one island per core
+        List<String> coreTour = _testUndirGraph.getOptimalTour(10,
+                (float)0.02, 100, 7);
+        assertEquals(new HashSet<>(_testUndirGraph.getVertices()),
+                new HashSet<>(coreTour));
+
+        // a migrant should arrive as the island's best, and the island
+        // should carry on from it with its lengths and positions intact
+        TourDistances<String> distances = TourDistances.edges(_testDirGraph);
+        InverOver<String> source = new InverOver<>(distances, 10, (float)0.2,
+                new SplittableRandom(1));
+        InverOver<String> island = new InverOver<>(distances, 10, (float)0.2,
+                new SplittableRandom(2));
+        source.evolve(300);
+        island.immigrate(source.getBestCities(), source.getBestLength());
+        assertTrue(island.getBestLength() <= source.getBestLength());
+        island.evolve(100);
+        assertEquals(_testDirGraph.pathLength(island.getBestTour()),
+                island.getBestLength());
+
+        try {
+            _testUndirGraph.getOptimalTour(10, (float)0.02, 100, 0, 7);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+
+        try {
+            _testUndirGraph.getOptimalTour(10, (float)0.02, 100, 4, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+
+        try {
+            _testUndirGraph.getOptimalTour(10, (float)0.02, 100, 0);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+    }
+
+    @Test
+    public void testSeededTour() {
+        try {
+            _testUndirGraph = Graph.fromTSPFile(new FileInputStream(new File
+                    ("eil101.xml")));
+        }
+        catch (IOException|SAXException|ParserConfigurationException e) {
+            fail();
+        } // rur roh
+        final TourDistances<String> distances =
+                TourDistances.of(_testUndirGraph);
+
+        // the same seed should give the same tour every time, one run at a
+        // time or many at once, and however the islands land on threads
+        List<String> tour = _testUndirGraph.getOptimalTour(20, (float)0.02,
+                300, distances, 430L);
+        List<String> islandTour = _testUndirGraph.getOptimalTour(10,
+                (float)0.02, 300, distances, 4, 25, 430L);
+        assertEquals(tour, _testUndirGraph.getOptimalTour(20, (float)0.02,
+                300, distances, 430L));
+        List<List<String>> tours = IntStream.range(0, 6).parallel()
+                .mapToObj(run -> run % 2 == 0 ?
+                        _testUndirGraph.getOptimalTour(20, (float)0.02, 300,
+                                distances, 430L) :
+                        _testUndirGraph.getOptimalTour(10, (float)0.02, 300,
+                                distances, 4, 25, 430L))
+                .collect(Collectors.toList());
+        for (int run = 0; run < tours.size(); run++) {
+            assertEquals(run % 2 == 0 ? tour : islandTour, tours.get(run));
+        }
+    }
+
+    @Test
+    public void testImproveTour() {
+        try {
+            _testUndirGraph = Graph.fromTSPFile(new FileInputStream(new File
+                    ("eil101.xml")));
+        }
+        catch (IOException|SAXException|ParserConfigurationException e) {
+            fail();
+        } // rur roh
+
+        // polishing should never lengthen a tour, and should take a tour
+        // in no particular order most of the way to the best
+        List<String> tour = _testUndirGraph.getOptimalTour(20, (float)0.02,
+                200, TourDistances.of(_testUndirGraph), 430L);
+        for (List<String> start : Arrays.asList(tour,
+                _testUndirGraph.getVertices())) {
+            List<String> improved = _testUndirGraph.improveTour(start);
+            assertEquals(start.size(), improved.size());
+            assertEquals(new HashSet<>(start), new HashSet<>(improved));
+            assertTrue(_testUndirGraph.pathLength(improved) <=
+                    _testUndirGraph.pathLength(start));
+            assertTrue(_testUndirGraph.pathLength(improved) < 700);
+        }
+
+        // the grid should find neighbors just as near as measuring every
+        // pair does
+        Random random = new Random(430);
+        List<String> cities = new ArrayList<>();
+        Map<String, double[]> coordinates = new HashMap<>();
+        Graph<String> planeGraph = new Graph<>(false);
+        for (int i = 0; i < 300; i++) {
+            cities.add("c" + i);
+            coordinates.put("c" + i, new double[] {random.nextInt(1000),
+                    i % 3 == 0 ? random.nextInt(50) : random.nextInt(1000)});
+            planeGraph.addVertex("c" + i);
+        }
+        final TourDistances<String> euclidean = TourDistances.euclidean(
+                cities, coordinates);
+        TourDistances<String> measured = new TourDistances<String>(cities,
+                true) {
+            public int distance(int from, int to) {
+                return euclidean.distance(from, to);
+            }
+        };
+        int[][] gridNeighbors = euclidean.nearestNeighbors(8);
+        int[][] measuredNeighbors = measured.nearestNeighbors(8);
+        for (int city = 0; city < cities.size(); city++) {
+            assertEquals(8, gridNeighbors[city].length);
+            for (int i = 0; i < 8; i++) {
+                assertEquals(euclidean.distance(city,
+                        measuredNeighbors[city][i]), euclidean.distance(city,
+                        gridNeighbors[city][i]));
+            }
+        }
+        List<String> planeTour = planeGraph.improveTour(cities, euclidean);
+        assertEquals(new HashSet<>(cities), new HashSet<>(planeTour));
+
+        // cities all in a line have a box with no area, which should not
+        // make the grid any finer
+        List<String> lineCities = new ArrayList<>();
+        Map<String, double[]> lineCoordinates = new HashMap<>();
+        Graph<String> lineGraph = new Graph<>(false);
+        for (int i = 0; i < 5000; i++) {
+            lineCities.add("l" + i);
+            lineCoordinates.put("l" + i, new double[] {1e6 * i, 0});
+            lineGraph.addVertex("l" + i);
+        }
+        TourDistances<String> line = TourDistances.euclidean(lineCities,
+                lineCoordinates);
+        int[][] lineNeighbors = line.nearestNeighbors(2);
+        for (int city = 0; city < lineCities.size(); city++) {
+            assertEquals(2, lineNeighbors[city].length);
+            assertEquals(1000000, line.distance(city,
+                    lineNeighbors[city][0]));
+        }
+        List<String> lineStart = new ArrayList<>(lineCities);
+        Collections.shuffle(lineStart, random);
+        List<String> lineTour = lineGraph.improveTour(lineStart, line);
+        assertEquals(new HashSet<>(lineCities), new HashSet<>(lineTour));
+
+        try {
+            testFullyConnectGraph(_testDirGraph);
+            _testDirGraph.improveTour(_testDirGraph.getVertices());
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+
+        try {
+            List<String> repeated = new ArrayList<>(cities);
+            repeated.set(0, repeated.get(1));
+            planeGraph.improveTour(repeated, euclidean);
+            fail();
+        }
+        catch (IllegalArgumentException e) {} // all is well
+    }
+
     @Test
     public void testToString() {
         //System.out.println(_testDirGraph.toString());
@@ -440,6 +1632,125 @@ public class GraphTester {
         System.out.println(_testUndirGraph.toString());
     }
 
+    @Test
+    public void testFreeze() {
+        testFillGraph(_testDirGraph);
+        testFillGraph(_testUndirGraph);
+
+        CsrGraph<String> frozenDir = _testDirGraph.freeze();
+        CsrGraph<String> frozenUndir = _testUndirGraph.freeze();
+
+        assertTrue(frozenDir.isDirected());
+        assertFalse(frozenUndir.isDirected());
+        assertEquals(8, frozenDir.getVertexCount());
+
+        // edges should carry over with their weights, and only in the
+        // directions the original graph had them
+        assertEquals(224, frozenDir.getEdgeWeight("Perhaps", "it"));
+        assertFalse(frozenDir.edgeExists("it", "Perhaps"));
+        assertEquals(224, frozenUndir.getEdgeWeight("it", "Perhaps"));
+        assertEquals(-1, frozenUndir.getEdgeWeight("Hello", "has"));
+        assertFalse(frozenDir.edgeExists("Bellow", "Hello"));
+
+        // the algorithms should agree with the original graph
+        int totalPathWeight = 0;
+        for (Graph.Edge<String> edge : frozenDir.shortestPathBetween
+                ("Hello", "been too long.")) {
+            totalPathWeight += edge.getWeight();
+        }
+        assertEquals(68, totalPathWeight);
+        assertEquals(null, frozenDir.shortestPathBetween("been too long.",
+                "Hello"));
+        assertEquals(_testUndirGraph.getVertices().size(),
+                frozenUndir.minimumSpanningTree().getVertices().size());
+
+        // later changes to the graph should not leak into the snapshot
+        _testDirGraph.removeEdge("Hello", "my");
+        assertTrue(frozenDir.edgeExists("Hello", "my"));
+
+        // the unchanged graph and its snapshot should have just the same
+        // edges, though the snapshot may list them in another order
+        for (String source : _testUndirGraph.getVertices()) {
+            for (String destination : _testUndirGraph.getVertices()) {
+                assertEquals(_testUndirGraph.getEdgeWeight(source,
+                        destination), frozenUndir.getEdgeWeight(source,
+                        destination));
+            }
+        }
+        assertEquals(_testUndirGraph.toString().length(),
+                frozenUndir.toString().length());
+    }
+
+    @Test
+    public void testVertexIds() {
+        testFillGraph(_testDirGraph);
+
+        int hello = _testDirGraph.idOf("Hello");
+        int my = _testDirGraph.idOf("my");
+        int old = _testDirGraph.idOf("old");
+
+        assertEquals(-1, _testDirGraph.idOf("Bellow"));
+        assertEquals("Hello", _testDirGraph.vertexOf(hello));
+        assertEquals(null, _testDirGraph.vertexOf(-1));
+        assertEquals(null, _testDirGraph.vertexOf(
+                _testDirGraph.getVertexIdBound()));
+
+        // the id overloads should agree with the vertex versions
+        assertTrue(_testDirGraph.edgeExists(hello, my));
+        assertFalse(_testDirGraph.edgeExists(my, hello));
+        assertEquals(1, _testDirGraph.getEdgeWeight(hello, my));
+        assertEquals(-1, _testDirGraph.getEdgeWeight(my, hello));
+        assertEquals(3, _testDirGraph.pathLength(new int[] {hello, my, old}));
+        assertEquals(-1, _testDirGraph.pathLength(new int[0]));
+        assertEquals(-1, _testDirGraph.pathLength(new int[] {hello, -5}));
+
+        // a removed vertex loses its id, and the id can be handed out again
+        _testDirGraph.removeVertex("my");
+        assertEquals(null, _testDirGraph.vertexOf(my));
+        assertFalse(_testDirGraph.edgeExists(hello, my));
+        _testDirGraph.addVertex("Bellow");
+        assertEquals(my, _testDirGraph.idOf("Bellow"));
+        assertFalse(_testDirGraph.edgeExists(hello, my));
+        assertEquals(8, _testDirGraph.getVertices().size());
+    }
+
+    @Test
+    public void testManyEdges() {
+        final int NUM_VERTICES = 60;
+
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            _testUndirGraph.addVertex("v" + i);
+        }
+
+        // connect every pair so each vertex's edges have to grow a few times
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            for (int j = i + 1; j < NUM_VERTICES; j++) {
+                _testUndirGraph.addEdge("v" + i, "v" + j, i + j);
+            }
+        }
+
+        // knock out every other edge, then make sure the rest survived
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            for (int j = i + 1; j < NUM_VERTICES; j++) {
+                if ((i + j) % 2 == 0) {
+                    _testUndirGraph.removeEdge("v" + j, "v" + i);
+                }
+            }
+        }
+
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            for (int j = 0; j < NUM_VERTICES; j++) {
+                if (i != j && (i + j) % 2 == 1) {
+                    assertEquals(i + j, _testUndirGraph.getEdgeWeight("v" + i,
+                            "v" + j));
+                }
+                else {
+                    assertFalse(_testUndirGraph.edgeExists("v" + i, "v" + j));
+                }
+            }
+        }
+    }
+
     // ADD DUPLICATE VERTICES
     private void testAddVertices(Graph testGraph) {
         // adding a null value should break it
@@ -828,6 +2139,196 @@ public class GraphTester {
         testGraph.addEdge("has", "been too long.", 8);
     }
 
+    // runs shortestPathBetween over every pair of the given vertices with
+    // both frontiers, checking that the paths are valid and equally long
+    private void comparePathLengths(Graph<String> testGraph,
+                                    List<String> vertices,
+                                    Graph.Frontier firstFrontier,
+                                    Graph.Frontier secondFrontier) {
+        for (String source : vertices) {
+            for (String destination : vertices) {
+                long firstLength = edgeListLength(testGraph,
+                        testGraph.shortestPathBetween(source, destination,
+                                firstFrontier));
+                long secondLength = edgeListLength(testGraph,
+                        testGraph.shortestPathBetween(source, destination,
+                                secondFrontier));
+                assertEquals(firstLength, secondLength);
+            }
+        }
+    }
+
+    // returns the total weight of a list of edges after checking that they
+    // exist in the graph and join up, or -1 for a null list
+    private long edgeListLength(AbstractGraph<String> testGraph,
+                                List<Graph.Edge<String>> path) {
+        long length = -1;
+
+        if (path != null) {
+            length = 0;
+            for (int i = 0; i < path.size(); i++) {
+                Graph.Edge<String> edge = path.get(i);
+                assertEquals(testGraph.getEdgeWeight(edge.getSource(),
+                        edge.getDestination()), edge.getWeight());
+                if (i > 0) {
+                    assertEquals(path.get(i - 1).getDestination(),
+                            edge.getSource());
+                }
+                length += edge.getWeight();
+            }
+        }
+
+        return length;
+    }
+
+    // checks that two trees from the same source agree on every distance,
+    // and that every path in the second is real and as long as it claims
+    private void compareTrees(AbstractGraph<String> testGraph,
+                              ShortestPathTree<String> expected,
+                              ShortestPathTree<String> actual) {
+        assertEquals(expected.getSource(), actual.getSource());
+        for (String vertex : testGraph.getVertices()) {
+            assertEquals(expected.distanceTo(vertex),
+                    actual.distanceTo(vertex));
+            assertEquals(actual.distanceTo(vertex),
+                    edgeListLength(testGraph, actual.pathTo(vertex)));
+        }
+    }
+
+    // returns the lengths of every path from the source to the destination
+    // that visits no vertex twice, shortest first
+    private List<Long> simplePathLengths(AbstractGraph<String> testGraph,
+                                         String source, String destination) {
+        List<Long> lengths = new ArrayList<>();
+        Deque<String> path = new ArrayDeque<>();
+
+        path.push(source);
+        simplePathLengths(testGraph, path, 0, destination, lengths);
+        Collections.sort(lengths);
+
+        return lengths;
+    }
+
+    private void simplePathLengths(AbstractGraph<String> testGraph,
+                                   Deque<String> path, long length,
+                                   String destination, List<Long> lengths) {
+        String last = path.peek();
+
+        if (last.equals(destination)) {
+            lengths.add(length);
+        }
+        else {
+            for (String next : testGraph.getVertices()) {
+                if (testGraph.edgeExists(last, next) &&
+                        !path.contains(next)) {
+                    path.push(next);
+                    simplePathLengths(testGraph, path, length +
+                            testGraph.getEdgeWeight(last, next), destination,
+                            lengths);
+                    path.pop();
+                }
+            }
+        }
+    }
+
+    // returns the vertices a non-empty list of edges passes through
+    private List<String> pathVertices(List<Graph.Edge<String>> path) {
+        List<String> vertices = new ArrayList<>();
+
+        vertices.add(path.get(0).getSource());
+        for (Graph.Edge<String> edge : path) {
+            vertices.add(edge.getDestination());
+        }
+
+        return vertices;
+    }
+
+    // returns the total weight of a spanning tree after checking that it
+    // has every vertex of the graph, only edges of the graph, and just
+    // enough of them to join every vertex
+    private long spanningTreeWeight(Graph<String> testGraph,
+                                    Graph<String> tree) {
+        List<String> vertices = tree.getVertices();
+        long weight = 0;
+        int edgeCount = 0;
+
+        assertEquals(testGraph.getVertexCount(), tree.getVertexCount());
+        for (int i = 0; i < vertices.size(); i++) {
+            for (int j = i + 1; j < vertices.size(); j++) {
+                if (tree.edgeExists(vertices.get(i), vertices.get(j))) {
+                    assertEquals(testGraph.getEdgeWeight(vertices.get(i),
+                            vertices.get(j)), tree.getEdgeWeight(
+                            vertices.get(i), vertices.get(j)));
+                    weight += tree.getEdgeWeight(vertices.get(i),
+                            vertices.get(j));
+                    edgeCount++;
+                }
+            }
+        }
+        assertEquals(vertices.size() - 1, edgeCount);
+        for (String vertex : vertices) {
+            assertNotNull(tree.shortestPathBetween(vertices.get(0), vertex));
+        }
+
+        return weight;
+    }
+
+    // returns the total weight of an undirected forest
+    private long forestWeight(Graph<String> forest) {
+        long weight = 0;
+
+        for (String vertex : forest.getVertices()) {
+            for (String neighbor : forest.getNeighbors(vertex)) {
+                weight += forest.getEdgeWeight(vertex, neighbor);
+            }
+        }
+
+        // every edge was counted from both ends
+        return weight / 2;
+    }
+
+    // returns the number of edges in an undirected graph
+    private int countEdges(Graph<String> testGraph) {
+        int edgeCount = 0;
+
+        for (String vertex : testGraph.getVertices()) {
+            edgeCount += testGraph.getNeighbors(vertex).size();
+        }
+
+        return edgeCount / 2;
+    }
+
+    // builds an undirected grid of "row,column" vertices with pseudo-random
+    // weights from 1 to maxWeight, the same every run
+    private Graph<String> testGridGraph(int rows, int columns,
+                                        int maxWeight) {
+        Graph<String> gridGraph = new Graph<>(false);
+        Random random = new Random(430);
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                gridGraph.addVertex(row + "," + column);
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (row + 1 < rows) {
+                    gridGraph.addEdge(row + "," + column,
+                            (row + 1) + "," + column,
+                            1 + random.nextInt(maxWeight));
+                }
+                if (column + 1 < columns) {
+                    gridGraph.addEdge(row + "," + column,
+                            row + "," + (column + 1),
+                            1 + random.nextInt(maxWeight));
+                }
+            }
+        }
+
+        return gridGraph;
+    }
+
     private void testFullyConnectGraph(Graph testGraph) {
         testGraph.addVertex("Hello");
         testGraph.addVertex("my");